@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.m2e.wtp.internal.AntPathMatcher;
+import org.eclipse.m2e.wtp.internal.AntPathMatcher.CompiledPattern;
+import org.eclipse.m2e.wtp.internal.AntPathMatcher.TokenizedPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matches web resource paths against packaging patterns, one path per invocation, cycling through the workload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AntPathMatcherBenchmark {
+
+  @Param({"10000", "1000000"})
+  int pathCount;
+
+  private String[] paths;
+
+  private int cursor;
+
+  private AntPathMatcher matcher;
+
+  private CompiledPattern[] compiledPatterns;
+
+  @Setup
+  public void setUp() {
+    paths = Workloads.webPaths(pathCount);
+    matcher = new AntPathMatcher();
+    compiledPatterns = new CompiledPattern[Workloads.PACKAGING_INCLUDES.length + Workloads.PACKAGING_EXCLUDES.length];
+    int i = 0;
+    for (String pattern : Workloads.PACKAGING_INCLUDES) {
+      compiledPatterns[i++] = matcher.compile(pattern);
+    }
+    for (String pattern : Workloads.PACKAGING_EXCLUDES) {
+      compiledPatterns[i++] = matcher.compile(pattern);
+    }
+  }
+
+  private String nextPath() {
+    String path = paths[cursor];
+    if (++cursor == paths.length) {
+      cursor = 0;
+    }
+    return path;
+  }
+
+  /**
+   * @return the number of patterns matching the next path
+   */
+  @Benchmark
+  public int match() {
+    String path = nextPath();
+    int matches = 0;
+    for (String pattern : Workloads.PACKAGING_INCLUDES) {
+      if (matcher.match(pattern, path)) {
+        matches++;
+      }
+    }
+    for (String pattern : Workloads.PACKAGING_EXCLUDES) {
+      if (matcher.match(pattern, path)) {
+        matches++;
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * @return the number of compiled patterns matching the next path, tokenized once
+   */
+  @Benchmark
+  public int matchCompiled() {
+    TokenizedPath path = matcher.tokenize(nextPath());
+    int matches = 0;
+    for (CompiledPattern pattern : compiledPatterns) {
+      if (pattern.matches(path)) {
+        matches++;
+      }
+    }
+    return matches;
+  }
+}
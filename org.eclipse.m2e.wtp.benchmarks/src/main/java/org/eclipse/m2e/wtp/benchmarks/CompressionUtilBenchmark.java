@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.m2e.wtp.overlay.internal.utilities.CompressionUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Unzips a war-like archive, as done when an overlay is exploded, either in an empty directory or in a directory
+ * already holding the archive content.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CompressionUtilBenchmark {
+
+  @Param({"1000", "10000"})
+  int entryCount;
+
+  @Param({"4096"})
+  int entrySize;
+
+  private File workDir;
+
+  private File archive;
+
+  private File cleanDir;
+
+  private File upToDateDir;
+
+  @Setup
+  public void setUp() throws IOException, InterruptedException {
+    workDir = Workloads.createTempDirectory("m2e-wtp-unzip");
+    archive = Workloads.createArchive(new File(workDir, "overlay.war"), Workloads.webPaths(entryCount), entrySize);
+    cleanDir = new File(workDir, "clean");
+    upToDateDir = new File(workDir, "up-to-date");
+    CompressionUtil.unzip(archive, upToDateDir, new NullProgressMonitor());
+  }
+
+  @Setup(Level.Invocation)
+  public void cleanUp() {
+    Workloads.delete(cleanDir);
+  }
+
+  @TearDown
+  public void tearDown() {
+    Workloads.delete(workDir);
+  }
+
+  @Benchmark
+  public void unzip() throws IOException, InterruptedException {
+    CompressionUtil.unzip(archive, cleanDir, new NullProgressMonitor());
+  }
+
+  @Benchmark
+  public void unzipUpToDate() throws IOException, InterruptedException {
+    CompressionUtil.unzip(archive, upToDateDir, new NullProgressMonitor());
+  }
+}
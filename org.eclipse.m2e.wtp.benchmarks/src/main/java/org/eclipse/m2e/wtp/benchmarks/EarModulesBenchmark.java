@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.benchmarks;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.artifact.Artifact;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.m2e.wtp.earmodules.ArtifactTypeMappingService;
+import org.eclipse.m2e.wtp.earmodules.EarModule;
+import org.eclipse.m2e.wtp.earmodules.EarModuleFactory;
+import org.eclipse.m2e.wtp.earmodules.EarPluginException;
+import org.eclipse.m2e.wtp.namemapping.FileNameMappingFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Collects the EAR modules of a project's dependencies, with {@link EarModuleFactory#addDependencyModules}, as
+ * <code>EarPluginConfiguration.getAllEarModules()</code> does.
+ * <br/>
+ * <code>EarPluginConfiguration</code> resolves the EAR facet version of the project, which requires the WTP facet
+ * framework of a running platform. So this benchmark creates the {@link EarModuleFactory} itself, as for a
+ * Java EE 5+ EAR without modules configured in the maven-ear-plugin.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EarModulesBenchmark {
+
+  @Param({"500", "2000"})
+  int artifactCount;
+
+  private Set<Artifact> artifacts;
+
+  private Xpp3Dom artifactTypeMappings;
+
+  @Setup
+  public void setUp() {
+    artifacts = new LinkedHashSet<Artifact>(Workloads.artifacts(artifactCount));
+    artifactTypeMappings = new Xpp3Dom("artifactTypeMappings");
+    Xpp3Dom testJarMapping = new Xpp3Dom("artifactTypeMapping");
+    testJarMapping.setAttribute("type", "test-jar");
+    testJarMapping.setAttribute("mapping", "jar");
+    artifactTypeMappings.addChild(testJarMapping);
+  }
+
+  @Benchmark
+  public Set<EarModule> collectEarModules() throws EarPluginException {
+    ArtifactTypeMappingService typeMappingService = ArtifactTypeMappingService.getInstance(artifactTypeMappings);
+    EarModuleFactory earModuleFactory = EarModuleFactory.createEarModuleFactory(typeMappingService,
+        FileNameMappingFactory.getDefaultFileNameMapping(), "none", artifacts);
+    Set<EarModule> earModules = new LinkedHashSet<EarModule>(artifacts.size());
+    earModuleFactory.addDependencyModules(earModules, artifacts, "lib", true, false);
+    return earModules;
+  }
+}
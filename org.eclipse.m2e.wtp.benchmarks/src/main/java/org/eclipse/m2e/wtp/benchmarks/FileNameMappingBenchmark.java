@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.artifact.Artifact;
+import org.eclipse.m2e.wtp.namemapping.FileNameMapping;
+import org.eclipse.m2e.wtp.namemapping.FileNameMappingFactory;
+import org.eclipse.m2e.wtp.namemapping.PatternBasedFileNameMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Maps artifacts to file names, one artifact per invocation, with each of the {@link FileNameMapping}
+ * implementations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileNameMappingBenchmark {
+
+  /**
+   * Name of the mapping, as set in the maven-ear-plugin configuration, or a war plugin pattern
+   */
+  @Param({"standard", "full", "no-version", "no-version-for-ejb", "@{artifactId}@@{dashClassifier?}@.@{extension}@",
+      "@{groupId}@-@{artifactId}@-@{baseVersion}@@{dashClassifier?}@.@{extension}@"})
+  String mapping;
+
+  @Param({"500", "5000"})
+  int artifactCount;
+
+  private List<Artifact> artifacts;
+
+  private int cursor;
+
+  private FileNameMapping fileNameMapping;
+
+  @Setup
+  public void setUp() {
+    artifacts = Workloads.artifacts(artifactCount);
+    if (mapping.indexOf('@') > -1) {
+      fileNameMapping = new PatternBasedFileNameMapping(mapping);
+    } else {
+      fileNameMapping = FileNameMappingFactory.getFileNameMapping(mapping);
+    }
+  }
+
+  @Benchmark
+  public String mapFileName() {
+    Artifact artifact = artifacts.get(cursor);
+    if (++cursor == artifacts.size()) {
+      cursor = 0;
+    }
+    return fileNameMapping.mapFileName(artifact);
+  }
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.m2e.wtp.PackagingConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Checks whether web resource paths are packaged, one path per invocation, cycling through the workload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackagingConfigurationBenchmark {
+
+  @Param({"10000", "1000000"})
+  int pathCount;
+
+  private String[] paths;
+
+  private int cursor;
+
+  private PackagingConfiguration packagingConfiguration;
+
+  @Setup
+  public void setUp() {
+    paths = Workloads.webPaths(pathCount);
+    packagingConfiguration = new PackagingConfiguration(Workloads.PACKAGING_INCLUDES, Workloads.PACKAGING_EXCLUDES);
+  }
+
+  private String nextPath() {
+    String path = paths[cursor];
+    if (++cursor == paths.length) {
+      cursor = 0;
+    }
+    return path;
+  }
+
+  @Benchmark
+  public boolean isPackaged() {
+    return packagingConfiguration.isPackaged(nextPath());
+  }
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.m2e.wtp.overlay.internal.modulecore.DynamicResourceFilter;
+import org.eclipse.m2e.wtp.overlay.internal.modulecore.FileSystemResourceFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filters overlay resources the way overlay virtual folders do, one path per invocation.
+ * <br/>
+ * {@link FileSystemResourceFilter} scans its base directory when created, so the workload is written to a temporary
+ * directory first. Since the overlay plugin is not started, scan indexes are not persisted between runs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceFilterBenchmark {
+
+  private static final List<String> INCLUSIONS = Arrays.asList(Workloads.PACKAGING_INCLUDES);
+
+  private static final List<String> EXCLUSIONS = Arrays.asList(Workloads.PACKAGING_EXCLUDES);
+
+  @Param({"10000", "100000"})
+  int pathCount;
+
+  private String[] paths;
+
+  private int cursor;
+
+  private File baseDir;
+
+  private DynamicResourceFilter dynamicFilter;
+
+  private FileSystemResourceFilter fileSystemFilter;
+
+  @Setup
+  public void setUp() throws IOException {
+    paths = Workloads.toSystemPaths(Workloads.webPaths(pathCount));
+    baseDir = Workloads.createTempDirectory("m2e-wtp-filter");
+    Workloads.createFiles(baseDir, paths);
+    dynamicFilter = new DynamicResourceFilter(INCLUSIONS, EXCLUSIONS);
+    fileSystemFilter = new FileSystemResourceFilter(INCLUSIONS, EXCLUSIONS, new Path(baseDir.getAbsolutePath()));
+  }
+
+  @TearDown
+  public void tearDown() {
+    Workloads.delete(baseDir);
+  }
+
+  private String nextPath() {
+    String path = paths[cursor];
+    if (++cursor == paths.length) {
+      cursor = 0;
+    }
+    return path;
+  }
+
+  @Benchmark
+  public boolean dynamicResourceFilter() {
+    return dynamicFilter.accepts(nextPath(), true);
+  }
+
+  @Benchmark
+  public boolean fileSystemResourceFilter() {
+    return fileSystemFilter.accepts(nextPath(), true);
+  }
+
+  /**
+   * Measures the initial scan, done every time an overlay component is (re)created.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 3)
+  @Measurement(iterations = 10)
+  public FileSystemResourceFilter fileSystemResourceFilterScan() {
+    return new FileSystemResourceFilter(INCLUSIONS, EXCLUSIONS, new Path(baseDir.getAbsolutePath()));
+  }
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+/**
+ * Synthetic, reproducible, workloads shaped like the content of real web and enterprise projects.
+ */
+final class Workloads {
+
+  private static final long SEED = 20140613L;
+
+  private static final String[] TOP_FOLDERS = {"WEB-INF/classes", "WEB-INF/lib", "WEB-INF/views", "css", "js",
+      "images", "META-INF", "resources"};
+
+  private static final String[] WEB_EXTENSIONS = {"jsp", "xhtml", "html", "css", "js", "png", "gif", "properties",
+      "xml", "psd"};
+
+  private static final String[] NOISE = {".svn", "CVS", "test", "thumb-", ".DS_Store", "vssver.scc", "%tmp%"};
+
+  private static final String[] TYPES = {"jar", "jar", "jar", "jar", "ejb", "ejb-client", "war", "app-client", "rar",
+      "test-jar", "pom"};
+
+  private static final String[] SCOPES = {"compile", "compile", "compile", "runtime", "provided", "test"};
+
+  /**
+   * Packaging includes, as in a typical maven-war-plugin configuration
+   */
+  static final String[] PACKAGING_INCLUDES = {"WEB-INF/**", "**/*.jsp", "**/*.xhtml", "css/**/*.css", "js/**",
+      "images/**", "META-INF/*"};
+
+  /**
+   * Packaging excludes, as in a typical maven-war-plugin configuration
+   */
+  static final String[] PACKAGING_EXCLUDES = {"WEB-INF/lib/*-sources.jar", "**/*.psd", "**/.svn/**",
+      "WEB-INF/classes/**/test/**", "images/**/thumb-*.png", "**/%*%"};
+
+  private Workloads() {
+  }
+
+  /**
+   * @return <code>count</code> '/' separated relative paths, of depth 1 to 10, such as found in an exploded war.
+   */
+  static String[] webPaths(int count) {
+    Random random = new Random(SEED);
+    String[] paths = new String[count];
+    StringBuilder sb = new StringBuilder(128);
+    for (int i = 0; i < count; i++) {
+      sb.setLength(0);
+      String top = TOP_FOLDERS[random.nextInt(TOP_FOLDERS.length)];
+      sb.append(top);
+      if ("WEB-INF/lib".equals(top)) {
+        sb.append("/artifact-").append(random.nextInt(2000)).append("-1.").append(random.nextInt(10));
+        sb.append(random.nextInt(10) == 0 ? "-sources.jar" : ".jar");
+      } else if ("WEB-INF/classes".equals(top)) {
+        sb.append("/com/acme");
+        int depth = 1 + random.nextInt(6);
+        for (int d = 0; d < depth; d++) {
+          sb.append(random.nextInt(15) == 0 ? "/test" : "/pkg" + random.nextInt(20));
+        }
+        sb.append("/Class").append(i).append(random.nextBoolean() ? ".class" : "$1.class");
+      } else {
+        int depth = random.nextInt(5);
+        for (int d = 0; d < depth; d++) {
+          sb.append('/');
+          sb.append(random.nextInt(20) == 0 ? NOISE[random.nextInt(NOISE.length)] : "folder" + random.nextInt(30));
+        }
+        sb.append('/');
+        if (random.nextInt(25) == 0) {
+          sb.append(NOISE[random.nextInt(NOISE.length)]);
+        }
+        sb.append("file").append(i).append('.').append(WEB_EXTENSIONS[random.nextInt(WEB_EXTENSIONS.length)]);
+      }
+      paths[i] = sb.toString();
+    }
+    return paths;
+  }
+
+  /**
+   * @return the same paths, using the platform file separator
+   */
+  static String[] toSystemPaths(String[] paths) {
+    String[] systemPaths = new String[paths.length];
+    for (int i = 0; i < paths.length; i++) {
+      systemPaths[i] = paths[i].replace('/', File.separatorChar);
+    }
+    return systemPaths;
+  }
+
+  /**
+   * @return <code>count</code> resolved artifacts of various types, scopes and versions, including timestamped
+   *         snapshots and classified artifacts.
+   */
+  static List<Artifact> artifacts(int count) {
+    Random random = new Random(SEED);
+    List<Artifact> artifacts = new ArrayList<Artifact>(count);
+    for (int i = 0; i < count; i++) {
+      String groupId = "org.acme.group" + random.nextInt(count / 10 + 1);
+      String artifactId = "artifact-" + i;
+      String version;
+      switch (random.nextInt(5)) {
+        case 0:
+          version = "1." + random.nextInt(10) + "-20140613.1015" + (10 + random.nextInt(50)) + "-" + (1 + random.nextInt(20));
+          break;
+        case 1:
+          version = "2." + random.nextInt(10) + "-SNAPSHOT";
+          break;
+        default:
+          version = random.nextInt(5) + "." + random.nextInt(10) + "." + random.nextInt(10);
+      }
+      String type = TYPES[random.nextInt(TYPES.length)];
+      String classifier = random.nextInt(8) == 0 ? "jdk15" : null;
+      String scope = SCOPES[random.nextInt(SCOPES.length)];
+      DefaultArtifactHandler handler = new DefaultArtifactHandler(type);
+      handler.setExtension(getExtension(type));
+      handler.setAddedToClasspath(true);
+      Artifact artifact = new DefaultArtifact(groupId, artifactId, VersionRange.createFromVersion(version), scope,
+          type, classifier, handler);
+      artifact.setOptional(random.nextInt(20) == 0);
+      artifacts.add(artifact);
+    }
+    return artifacts;
+  }
+
+  private static String getExtension(String type) {
+    if ("ejb".equals(type) || "ejb-client".equals(type) || "test-jar".equals(type) || "app-client".equals(type)) {
+      return "jar";
+    }
+    return type;
+  }
+
+  /**
+   * Creates the directories and (empty) files of the given relative paths.
+   */
+  static void createFiles(File baseDir, String[] paths) throws IOException {
+    for (String path : paths) {
+      File file = new File(baseDir, path);
+      File parent = file.getParentFile();
+      if (!parent.isDirectory() && !parent.mkdirs()) {
+        throw new IOException("Can't create " + parent);
+      }
+      if (!file.isFile() && !file.createNewFile()) {
+        throw new IOException("Can't create " + file);
+      }
+    }
+  }
+
+  /**
+   * Creates a war-like archive, having an entry per path, of <code>entrySize</code> bytes each.
+   */
+  static File createArchive(File archive, String[] paths, int entrySize) throws IOException {
+    Random random = new Random(SEED);
+    byte[] content = new byte[entrySize];
+    OutputStream os = new FileOutputStream(archive);
+    ZipOutputStream zos = new ZipOutputStream(os);
+    try {
+      for (String path : paths) {
+        zos.putNextEntry(new ZipEntry(path));
+        random.nextBytes(content);
+        //Keep the content compressible, like text resources and classes
+        for (int i = 0; i < content.length; i += 2) {
+          content[i] = 'a';
+        }
+        zos.write(content);
+        zos.closeEntry();
+      }
+    } finally {
+      zos.close();
+    }
+    return archive;
+  }
+
+  /**
+   * @return a new empty temporary directory
+   */
+  static File createTempDirectory(String prefix) throws IOException {
+    File dir = File.createTempFile(prefix, "");
+    if (!dir.delete() || !dir.mkdirs()) {
+      throw new IOException("Can't create " + dir);
+    }
+    return dir;
+  }
+
+  static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+}
@@ -5,6 +5,7 @@ import org.eclipse.osgi.util.NLS;
 public class Messages extends NLS {
 	private static final String BUNDLE_NAME = "org.eclipse.m2e.wtp.overlay.internal.ui.messages"; //$NON-NLS-1$
 	public static String OverlayPublishingPreferencePage_Automatically_Republish_Servers_On_Overlay_Modifications;
+	public static String OverlayPublishingPreferencePage_Republish_Delay;
 	static {
 		// initialize resource bundle
 		NLS.initializeMessages(BUNDLE_NAME, Messages.class);
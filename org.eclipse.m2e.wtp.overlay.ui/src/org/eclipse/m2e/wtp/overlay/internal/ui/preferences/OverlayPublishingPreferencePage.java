@@ -9,6 +9,7 @@ package org.eclipse.m2e.wtp.overlay.internal.ui.preferences;
 
 import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.m2e.wtp.overlay.OverlayConstants;
 import org.eclipse.m2e.wtp.overlay.internal.ui.Messages;
 import org.eclipse.m2e.wtp.overlay.internal.ui.OverlayUIPluginActivator;
@@ -27,6 +28,11 @@ public class OverlayPublishingPreferencePage  extends FieldEditorPreferencePage
     addField(new BooleanFieldEditor(OverlayConstants.P_REPUBLISH_ON_PROJECT_CHANGE, 
                                     Messages.OverlayPublishingPreferencePage_Automatically_Republish_Servers_On_Overlay_Modifications,
                                     getFieldEditorParent()));
+    IntegerFieldEditor delayEditor = new IntegerFieldEditor(OverlayConstants.P_REPUBLISH_DELAY,
+                                    Messages.OverlayPublishingPreferencePage_Republish_Delay,
+                                    getFieldEditorParent());
+    delayEditor.setValidRange(0, 60000);
+    addField(delayEditor);
   }
 
   public void init(IWorkbench workbench) {
@@ -24,4 +24,14 @@ public class OverlayConstants {
    */
   public static final String P_REPUBLISH_ON_PROJECT_CHANGE = "republishOnProjectChange"; //$NON-NLS-1$
 
+  /**
+   * Time, in milliseconds, without overlay changes to wait for, before republishing servers.
+   */
+  public static final String P_REPUBLISH_DELAY = "republishDelay"; //$NON-NLS-1$
+
+  /**
+   * Default value of {@link #P_REPUBLISH_DELAY}
+   */
+  public static final long DEFAULT_REPUBLISH_DELAY = 500;
+
 }
@@ -7,20 +7,26 @@
  *******************************************************************************/
 package org.eclipse.m2e.wtp.overlay.internal;
 
-import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Plugin;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.m2e.wtp.overlay.OverlayConstants;
+import org.eclipse.m2e.wtp.overlay.internal.modulecore.ProjectChangeTracker;
 import org.eclipse.m2e.wtp.overlay.internal.servers.OverlayResourceChangeListener;
+import org.eclipse.m2e.wtp.overlay.internal.utilities.ZipArchiveIndex;
 import org.osgi.framework.BundleContext;
 
 public class OverlayPluginActivator extends Plugin {
 	
 	public static final String PLUGIN_ID = OverlayConstants.PLUGIN_ID;
 
-	IResourceChangeListener overlayresourceChangeListener;
+	OverlayResourceChangeListener overlayresourceChangeListener;
+
+	ProjectChangeTracker projectChangeTracker;
 	
 	private static OverlayPluginActivator instance;
 	
@@ -31,14 +37,26 @@ public class OverlayPluginActivator extends Plugin {
 		overlayresourceChangeListener = new OverlayResourceChangeListener();
 		IWorkspace workspace = ResourcesPlugin.getWorkspace();
 	    workspace.addResourceChangeListener(overlayresourceChangeListener);
+	    projectChangeTracker = new ProjectChangeTracker();
+	    workspace.addResourceChangeListener(projectChangeTracker,
+	    		IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+	    JavaCore.addElementChangedListener(projectChangeTracker, ElementChangedEvent.POST_CHANGE);
+	    ProjectChangeTracker.setInstance(projectChangeTracker);
 	}
-	
+
 	@Override
 	public void stop(BundleContext context) throws Exception {
 		if (overlayresourceChangeListener != null) {
 			IWorkspace workspace = ResourcesPlugin.getWorkspace();
 		    workspace.removeResourceChangeListener(overlayresourceChangeListener);
+		    overlayresourceChangeListener.dispose();
+		}
+		if (projectChangeTracker != null) {
+			ProjectChangeTracker.setInstance(null);
+			JavaCore.removeElementChangedListener(projectChangeTracker);
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(projectChangeTracker);
 		}
+		ZipArchiveIndex.closeAll();
 		instance = null;
 		super.stop(context);
 	}
@@ -0,0 +1,399 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.m2e.wtp.overlay.internal.modulecore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.m2e.wtp.overlay.internal.Messages;
+import org.eclipse.m2e.wtp.overlay.internal.utilities.PathUtil;
+import org.eclipse.m2e.wtp.overlay.internal.utilities.ZipArchiveIndex;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.wst.common.componentcore.internal.resources.VirtualFile;
+import org.eclipse.wst.common.componentcore.internal.resources.VirtualFolder;
+import org.eclipse.wst.common.componentcore.resources.IVirtualFile;
+import org.eclipse.wst.common.componentcore.resources.IVirtualFolder;
+import org.eclipse.wst.common.componentcore.resources.IVirtualResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-only Virtual Folder mapping the content of a zip archive, read from its central directory
+ * (see {@link ZipArchiveIndex}).
+ * <br/>
+ * Files have no underlying workspace resource. An archive entry is only extracted to the output directory
+ * when its {@link File} is requested, through <code>getAdapter(File.class)</code>, and is not extracted again
+ * while unchanged. An entry which can't be extracted doesn't exist anymore. The filter applies to the whole archive tree, and is evaluated against the entry paths
+ * relative to the archive root. Folders are kept when they, or one of their descendants, are accepted.
+ *
+ * @provisional This class has been added as part of a work in progress.
+ * It is not guaranteed to work or remain the same in future releases.
+ * For more information contact <a href="mailto:m2e-wtp-dev@eclipse.org">m2e-wtp-dev@eclipse.org</a>.
+ */
+@SuppressWarnings("restriction")
+public class ArchiveVirtualFolder extends VirtualFolder implements IFilteredVirtualFolder {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ArchiveVirtualFolder.class);
+
+	private static final IContainer[] NO_CONTAINERS = new IContainer[0];
+
+	private final Archive archive;
+
+	/**
+	 * Path of this folder in the archive, using '/' separators, "" for the root
+	 */
+	private final String path;
+
+	private IVirtualResource[] cachedMembers;
+
+	private Map<String, IVirtualResource> cachedMembersByName;
+
+	private Set<String> cachedAccepted;
+
+	/**
+	 * @param project the project of the component
+	 * @param runtimePath the runtime path of the archive root
+	 * @param index the archive index
+	 * @param outputDirectory the directory the entries are extracted to, when needed
+	 */
+	public ArchiveVirtualFolder(IProject project, IPath runtimePath, ZipArchiveIndex index, File outputDirectory) {
+		this(project, runtimePath, new Archive(index, outputDirectory), ""); //$NON-NLS-1$
+	}
+
+	private ArchiveVirtualFolder(IProject project, IPath runtimePath, Archive archive, String path) {
+		super(project, runtimePath);
+		this.archive = archive;
+		this.path = path;
+	}
+
+	/**
+	 * @return the index of the mapped archive
+	 */
+	public ZipArchiveIndex getIndex() {
+		return archive.index;
+	}
+
+	@Override
+	public void setFilter(IResourceFilter filter) {
+		archive.setFilter(filter);
+	}
+
+	@Override
+	public IResourceFilter getFilter() {
+		return archive.getFilter();
+	}
+
+	@Override
+	public String getName() {
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+
+	@Override
+	public boolean exists() {
+		return archive.index.getDirectory(path) != null;
+	}
+
+	@Override
+	public IResource getUnderlyingResource() {
+		return null;
+	}
+
+	@Override
+	public IResource[] getUnderlyingResources() {
+		return NO_CONTAINERS;
+	}
+
+	@Override
+	public IContainer getUnderlyingFolder() {
+		return null;
+	}
+
+	@Override
+	public IContainer[] getUnderlyingFolders() {
+		return NO_CONTAINERS;
+	}
+
+	@Override
+	public synchronized IVirtualResource[] members(int memberFlags) throws CoreException {
+		Set<String> accepted = archive.getAccepted();
+		if (cachedMembers == null || cachedAccepted != accepted) {
+			convertMembers(accepted);
+		}
+		return cachedMembers;
+	}
+
+	private synchronized IVirtualResource getMember(String name) {
+		Set<String> accepted = archive.getAccepted();
+		if (cachedMembers == null || cachedAccepted != accepted) {
+			convertMembers(accepted);
+		}
+		return cachedMembersByName.get(name);
+	}
+
+	private void convertMembers(Set<String> accepted) {
+		List<IVirtualResource> members = new ArrayList<IVirtualResource>();
+		Map<String, IVirtualResource> membersByName = new HashMap<String, IVirtualResource>();
+		ZipArchiveIndex.Directory directory = archive.index.getDirectory(path);
+		if (directory != null) {
+			String prefix = path.length() == 0 ? path : path + '/';
+			for (String name : directory.directories) {
+				String folderPath = prefix + name;
+				if (accepted == null || accepted.contains(folderPath)) {
+					IVirtualResource folder = new ArchiveVirtualFolder(getProject(), getRuntimePath().append(name), archive, folderPath);
+					members.add(folder);
+					membersByName.put(name, folder);
+				}
+			}
+			for (String name : directory.files.keySet()) {
+				String filePath = prefix + name;
+				//A file can't replace a folder of the same name
+				if ((accepted == null || accepted.contains(filePath)) && !membersByName.containsKey(name) 
+						&& !archive.isUnreadable(filePath)) {
+					IVirtualResource file = new ArchiveVirtualFile(getProject(), getRuntimePath().append(name), archive, filePath);
+					members.add(file);
+					membersByName.put(name, file);
+				}
+			}
+		}
+		cachedMembers = members.toArray(new IVirtualResource[members.size()]);
+		cachedMembersByName = membersByName;
+		cachedAccepted = accepted;
+	}
+
+	@Override
+	public IVirtualResource findMember(IPath aPath, int searchFlags) {
+		if (aPath == null) {
+			return null;
+		}
+		int segmentCount = aPath.segmentCount();
+		if (segmentCount == 0) {
+			return this;
+		}
+		ArchiveVirtualFolder folder = this;
+		for (int i = 0; i < segmentCount; i++) {
+			IVirtualResource member = folder.getMember(aPath.segment(i));
+			if (member == null || i == segmentCount - 1) {
+				return member;
+			}
+			if (!(member instanceof ArchiveVirtualFolder)) {
+				return null;
+			}
+			folder = (ArchiveVirtualFolder) member;
+		}
+		return null;
+	}
+
+	@Override
+	public IVirtualResource findMember(IPath aPath) {
+		return findMember(aPath, 0);
+	}
+
+	@Override
+	public IVirtualResource findMember(String aPath) {
+		return findMember(new Path(aPath), 0);
+	}
+
+	@Override
+	public IVirtualResource findMember(String aPath, int searchFlags) {
+		return findMember(new Path(aPath), searchFlags);
+	}
+
+	@Override
+	public boolean exists(IPath aPath) {
+		return findMember(aPath) != null;
+	}
+
+	@Override
+	public IVirtualFile getFile(IPath aPath) {
+		IVirtualResource member = findMember(aPath);
+		return member instanceof IVirtualFile ? (IVirtualFile) member : null;
+	}
+
+	@Override
+	public IVirtualFile getFile(String aPath) {
+		return getFile(new Path(aPath));
+	}
+
+	@Override
+	public IVirtualFolder getFolder(IPath aPath) {
+		IVirtualResource member = findMember(aPath);
+		return member instanceof IVirtualFolder ? (IVirtualFolder) member : null;
+	}
+
+	@Override
+	public IVirtualFolder getFolder(String aPath) {
+		return getFolder(new Path(aPath));
+	}
+
+	/**
+	 * State shared by all the folders of an archive tree.
+	 */
+	private static class Archive {
+
+		final ZipArchiveIndex index;
+
+		final File outputDirectory;
+
+		private IResourceFilter filter;
+
+		/**
+		 * Paths of the accepted files and folders, <code>null</code> if there's no filter
+		 */
+		private Set<String> accepted;
+
+		private boolean acceptedComputed;
+
+		/**
+		 * Paths of the entries which failed to be extracted
+		 */
+		private final Set<String> unreadable = new HashSet<String>();
+
+		Archive(ZipArchiveIndex index, File outputDirectory) {
+			this.index = index;
+			this.outputDirectory = outputDirectory;
+		}
+
+		synchronized IResourceFilter getFilter() {
+			return filter;
+		}
+
+		synchronized void setFilter(IResourceFilter filter) {
+			this.filter = filter;
+			accepted = null;
+			acceptedComputed = false;
+		}
+
+		synchronized Set<String> getAccepted() {
+			if (!acceptedComputed) {
+				accepted = filter == null ? null : computeAccepted();
+				acceptedComputed = true;
+			}
+			return accepted;
+		}
+
+		private Set<String> computeAccepted() {
+			Set<String> acceptedPaths = new HashSet<String>();
+			for (Map.Entry<String, ZipArchiveIndex.Directory> e : index.getDirectories().entrySet()) {
+				String dir = e.getKey();
+				if (dir.length() > 0 && filter.accepts(PathUtil.useSystemSeparator(dir), false)) {
+					addWithParents(dir, acceptedPaths);
+				}
+				String prefix = dir.length() == 0 ? dir : dir + '/';
+				for (String name : e.getValue().files.keySet()) {
+					String file = prefix + name;
+					if (filter.accepts(PathUtil.useSystemSeparator(file), true)) {
+						addWithParents(file, acceptedPaths);
+					}
+				}
+			}
+			return acceptedPaths;
+		}
+
+		private static void addWithParents(String path, Set<String> paths) {
+			while (path.length() > 0 && paths.add(path)) {
+				int lastSlash = path.lastIndexOf('/');
+				path = lastSlash < 0 ? "" : path.substring(0, lastSlash); //$NON-NLS-1$
+			}
+		}
+
+		File materialize(String path) {
+			try {
+				File file = index.materialize(path, outputDirectory);
+				synchronized (this) {
+					unreadable.remove(path);
+				}
+				return file;
+			} catch (IOException e) {
+				LOG.error(NLS.bind(Messages.ArchiveVirtualFolder_Error_Extracting, path, index.getArchive()), e);
+				synchronized (this) {
+					unreadable.add(path);
+				}
+				return null;
+			}
+		}
+
+		synchronized boolean isUnreadable(String path) {
+			return unreadable.contains(path);
+		}
+	}
+
+	/**
+	 * Virtual file mapping an archive entry, extracted when its {@link File} is requested.
+	 */
+	private static class ArchiveVirtualFile extends VirtualFile {
+
+		private final Archive archive;
+
+		private final String path;
+
+		ArchiveVirtualFile(IProject project, IPath runtimePath, Archive archive, String path) {
+			super(project, runtimePath, null);
+			this.archive = archive;
+			this.path = path;
+		}
+
+		@Override
+		public String getName() {
+			return getRuntimePath().lastSegment();
+		}
+
+		@Override
+		public boolean exists() {
+			return !archive.isUnreadable(path);
+		}
+
+		@Override
+		public IFile getUnderlyingFile() {
+			return null;
+		}
+
+		@Override
+		public IFile[] getUnderlyingFiles() {
+			return new IFile[0];
+		}
+
+		@Override
+		public IResource getUnderlyingResource() {
+			return null;
+		}
+
+		@Override
+		public IResource[] getUnderlyingResources() {
+			return new IResource[0];
+		}
+
+		@Override
+		public IPath getWorkspaceRelativePath() {
+			return null;
+		}
+
+		@Override
+		public Object getAdapter(Class adapter) {
+			if (File.class.equals(adapter)) {
+				return archive.materialize(path);
+			}
+			if (IFile.class.equals(adapter)) {
+				return null;
+			}
+			return super.getAdapter(adapter);
+		}
+	}
+}
@@ -8,11 +8,12 @@
 package org.eclipse.m2e.wtp.overlay.internal.modulecore;
 
 import java.io.File;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.resources.IContainer;
@@ -44,6 +45,14 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Virtual folder mapping a FlatVirtualComponent
+ * <br/>
+ * The component is only flattened on first access. Its resources are then converted to virtual resources 
+ * one folder at a time, when that folder is first accessed, and the members of each folder are indexed by name, 
+ * so looking up a member only converts the folders along its path.
+ * <br/>
+ * Flattening is not lazy though : FlatVirtualComponent can only flatten the whole component, so the first call to 
+ * {@link #members()}, {@link #findMember(IPath)}, {@link #getFile(IPath)} or {@link #getFolder(IPath)} 
+ * still fetches all the resources of the overlaid component.
  * 
  * @provisional This class has been added as part of a work in progress. 
  * It is not guaranteed to work or remain the same in future releases. 
@@ -57,11 +66,14 @@ public class CompositeVirtualFolder implements IFilteredVirtualFolder {
 
 	private static final Logger LOG = LoggerFactory.getLogger(CompositeVirtualFolder.class);
 
+	private static final IVirtualResource[] NO_MEMBERS = new IVirtualResource[0];
+
 	private FlatVirtualComponent flatVirtualComponent;
 	private IPath runtimePath;
 	private IProject project;
-	private Set<IVirtualReference> references = new LinkedHashSet<IVirtualReference>();
-	private IVirtualResource[] members;
+	private IFlatResource[] flatResources;
+	private volatile Members rootMembers;
+	private volatile IVirtualReference[] references;
 	private IResourceFilter filter;
 	
 	public CompositeVirtualFolder(FlatVirtualComponent aFlatVirtualComponent, IPath aRuntimePath, IResourceFilter filter) {
@@ -71,11 +83,6 @@ public class CompositeVirtualFolder implements IFilteredVirtualFolder {
 		}
 		this.runtimePath = aRuntimePath;
 		this.filter = filter;
-		try {
-			treeWalk();
-		} catch (CoreException e) {
-			LOG.error(Messages.CompositeVirtualFolder_Error_Scanning, e);
-		}
 	}
 
 	@Override
@@ -90,58 +97,60 @@ public class CompositeVirtualFolder implements IFilteredVirtualFolder {
 
 	@Override
 	public IVirtualResource[] members() throws CoreException {
-		if (members == null) {
-			members = new IVirtualResource[0]; 
-		}
-		return members;
+		return getRootMembers().get();
 	}
 	
+	/**
+	 * Converts the whole flattened component at once.
+	 * 
+	 * @deprecated resources are converted on first access, use {@link #members()} or {@link #getReferences()} instead.
+	 */
+	@Deprecated
 	public void treeWalk() throws CoreException {	 
-		IFlatResource[] flatResources = flatVirtualComponent.fetchResources();
-		List<IVirtualResource> membersList = new ArrayList<IVirtualResource>(flatResources.length);
-		for (IFlatResource flatResource : flatResources) {
-			IVirtualResource resource = convert(flatResource);
-			if (resource != null) {
-				membersList.add(resource);	
+		getReferences();
+	}
+
+	private Members getRootMembers() {
+		Members members = rootMembers;
+		if (members == null) {
+			synchronized (this) {
+				members = rootMembers;
+				if (members == null) {
+					if (flatResources == null) {
+						try {
+							flatResources = flatVirtualComponent.fetchResources();
+						} catch (CoreException e) {
+							LOG.error(Messages.CompositeVirtualFolder_Error_Scanning, e);
+							flatResources = new IFlatResource[0];
+						}
+					}
+					members = new Members(flatResources);
+					rootMembers = members;
+				}
 			}
 		}
-		members = new IVirtualResource[membersList.size()];
-		membersList.toArray(members);
+		return members;
 	}
 
-	private IVirtualResource convert(IFlatResource flatResource) {
+	private IVirtualResource convert(IFlatResource flatResource, List<Object> walkOrder) {
 		IVirtualResource virtualResource = null;
 		if (flatResource instanceof IFlatFolder) {
-			virtualResource = convertFolder((IFlatFolder) flatResource);
+			LazyVirtualFolder folder = convertFolder((IFlatFolder) flatResource);
+			walkOrder.add(folder);
+			virtualResource = folder;
 		} else if (flatResource instanceof IFlatFile){
-			virtualResource = convertFile((IFlatFile) flatResource);
+			virtualResource = convertFile((IFlatFile) flatResource, walkOrder);
 		}
 		
 		return virtualResource;
 	}
 
-	private IVirtualFolder convertFolder(IFlatFolder flatFolder) {
-		IFlatResource[] flatMembers = flatFolder.members();
-		List<IVirtualResource> membersList = new ArrayList<IVirtualResource>(flatMembers.length);
-		for (IFlatResource flatResource : flatMembers) {
-			IVirtualResource resource = convert(flatResource);
-			if (resource != null) {
-				membersList.add(resource);	
-			}
-		}
-		final IVirtualResource[] folderMembers = new IVirtualResource[membersList.size()];
-		membersList.toArray(folderMembers);
-		VirtualFolder vf = new VirtualFolder(project, flatFolder.getModuleRelativePath().append(flatFolder.getName())) {
-			@Override
-			public IVirtualResource[] members() throws CoreException {
-				return folderMembers; 
-			}
-		}; 
-		return vf;
-		
+	private LazyVirtualFolder convertFolder(IFlatFolder flatFolder) {
+		return new LazyVirtualFolder(project, flatFolder.getModuleRelativePath().append(flatFolder.getName()), 
+				new Members(flatFolder.members()));
 	}
 
-	private IVirtualFile convertFile(IFlatFile flatFile) {
+	private IVirtualFile convertFile(IFlatFile flatFile, List<Object> walkOrder) {
 		final IFile f = (IFile)flatFile.getAdapter(IFile.class);
 		String filePath  = null;
 		if (f == null) {
@@ -151,7 +160,7 @@ public class CompositeVirtualFolder implements IFilteredVirtualFolder {
 				filePath = flatFile.getModuleRelativePath().toPortableString() + Path.SEPARATOR + underlyingFile.getName();
 				if (filter == null || filter.accepts(filePath, true)) {
 					IVirtualReference reference = createReference(underlyingFile, flatFile.getModuleRelativePath());
-					references.add(reference);
+					walkOrder.add(reference);
 				}
 			}
 		} else {
@@ -220,61 +229,41 @@ public class CompositeVirtualFolder implements IFilteredVirtualFolder {
     	if (path == null) {
     		return null;
     	}
-    	Queue<String> segments = new ArrayDeque<String>(path.segmentCount());
-    	for (String s : path.segments()) {
-    		segments.add(s);
-    	}
-    	try {
-    		return findMember(segments, members);
-    	} catch (CoreException ce) {
-    		LOG.error(Messages.CompositeVirtualFolder_Error_Finding_Member, ce);
-    	}
-    	return null;
-    }
-    
-    private static IVirtualResource findMember(Queue<String> segments, IVirtualResource[] members) throws CoreException {
-    	if (segments.isEmpty()) {
-    		return null;
-    	}
-    	String segment = segments.poll();
-    	boolean finalResource = segments.isEmpty();
-    	for (IVirtualResource m : members) {
-    		if (m.getName().equals(segment)) {
-    			if (finalResource) {
-    				return m;
-    			}
-    			if (m instanceof IVirtualFolder) {
-    				return findMember(segments, ((IVirtualFolder)m).members());
-    			}
+    	int segmentCount = path.segmentCount();
+    	Members members = getRootMembers();
+    	for (int i = 0; i < segmentCount; i++) {
+    		IVirtualResource member = members.get(path.segment(i));
+    		if (member == null || i == segmentCount - 1) {
+    			return member;
+    		}
+    		if (!(member instanceof LazyVirtualFolder)) {
+    			return null;
     		}
+    		members = ((LazyVirtualFolder) member).folderMembers;
     	}
         return null;
     }
     
-    
-    
 	@Override
-	public IVirtualFile getFile(IPath arg0) {
-		// ignore
-		return null;
+	public IVirtualFile getFile(IPath path) {
+		IVirtualResource member = findMember(path);
+		return member instanceof IVirtualFile ? (IVirtualFile) member : null;
 	}
 
 	@Override
-	public IVirtualFile getFile(String arg0) {
-		// ignore
-		return null;
+	public IVirtualFile getFile(String path) {
+		return getFile(new Path(path));
 	}
 
 	@Override
-	public IVirtualFolder getFolder(IPath arg0) {
-		// ignore
-		return null;
+	public IVirtualFolder getFolder(IPath path) {
+		IVirtualResource member = findMember(path);
+		return member instanceof IVirtualFolder ? (IVirtualFolder) member : null;
 	}
 
 	@Override
-	public IVirtualFolder getFolder(String arg0) {
-		// ignore
-		return null;
+	public IVirtualFolder getFolder(String path) {
+		return getFolder(new Path(path));
 	}
 
 	@Override
@@ -415,8 +404,31 @@ public class CompositeVirtualFolder implements IFilteredVirtualFolder {
 		return null;
 	}
 
+	/**
+	 * @return the references to the external archives of the flattened component. Converts the whole component.
+	 */
 	public IVirtualReference[] getReferences() {
-		return references.toArray(new IVirtualReference[references.size()]);
+		IVirtualReference[] refs = references;
+		if (refs == null) {
+			Set<IVirtualReference> allReferences = new LinkedHashSet<IVirtualReference>();
+			collectReferences(getRootMembers(), allReferences);
+			refs = allReferences.toArray(new IVirtualReference[allReferences.size()]);
+			references = refs;
+		}
+		return refs;
+	}
+
+	/**
+	 * Collects references depth first, in the order of the flattened resources. 
+	 */
+	private static void collectReferences(Members members, Set<IVirtualReference> allReferences) {
+		for (Object o : members.getWalkOrder()) {
+			if (o instanceof LazyVirtualFolder) {
+				collectReferences(((LazyVirtualFolder) o).folderMembers, allReferences);
+			} else {
+				allReferences.add((IVirtualReference) o);
+			}
+		}
 	}
 	
 	@Override
@@ -426,7 +438,99 @@ public class CompositeVirtualFolder implements IFilteredVirtualFolder {
 
 	@Override
 	public void setFilter(IResourceFilter filter) {
-		this.filter = filter;
+		synchronized (this) {
+			this.filter = filter;
+			//Converted resources depend on the filter
+			rootMembers = null;
+			references = null;
+		}
+	}
+
+	/**
+	 * Members of a folder, converted on first access.
+	 */
+	private class Members {
+
+		private IFlatResource[] flatMembers;
+
+		private IVirtualResource[] members;
+
+		private Map<String, IVirtualResource> membersByName;
+
+		/**
+		 * Sub folders and external references, in the order of the flattened resources 
+		 */
+		private Object[] walkOrder;
+
+		Members(IFlatResource[] flatMembers) {
+			this.flatMembers = flatMembers;
+		}
+
+		synchronized IVirtualResource[] get() {
+			if (members == null) {
+				convertMembers();
+			}
+			return members;
+		}
+
+		synchronized IVirtualResource get(String name) {
+			if (members == null) {
+				convertMembers();
+			}
+			return membersByName.get(name);
+		}
+
+		synchronized Object[] getWalkOrder() {
+			if (members == null) {
+				convertMembers();
+			}
+			return walkOrder;
+		}
+
+		private void convertMembers() {
+			if (flatMembers == null || flatMembers.length == 0) {
+				members = NO_MEMBERS;
+				membersByName = Collections.emptyMap();
+				walkOrder = new Object[0];
+				flatMembers = null;
+				return;
+			}
+			List<IVirtualResource> membersList = new ArrayList<IVirtualResource>(flatMembers.length);
+			List<Object> walkOrderList = new ArrayList<Object>();
+			Map<String, IVirtualResource> byName = new HashMap<String, IVirtualResource>(flatMembers.length * 4 / 3 + 1);
+			for (IFlatResource flatResource : flatMembers) {
+				IVirtualResource resource = convert(flatResource, walkOrderList);
+				if (resource != null) {
+					membersList.add(resource);
+					//First member wins, as with a linear lookup
+					if (!byName.containsKey(resource.getName())) {
+						byName.put(resource.getName(), resource);
+					}
+				}
+			}
+			members = membersList.toArray(new IVirtualResource[membersList.size()]);
+			membersByName = byName;
+			walkOrder = walkOrderList.toArray();
+			//Not needed anymore
+			flatMembers = null;
+		}
+	}
+
+	/**
+	 * Virtual folder which members are converted on first access.
+	 */
+	private static class LazyVirtualFolder extends VirtualFolder {
+
+		final Members folderMembers;
+
+		LazyVirtualFolder(IProject project, IPath runtimePath, Members folderMembers) {
+			super(project, runtimePath);
+			this.folderMembers = folderMembers;
+		}
+
+		@Override
+		public IVirtualResource[] members() throws CoreException {
+			return folderMembers.get();
+		}
 	}
-	
 }
@@ -19,12 +19,9 @@
 package org.eclipse.m2e.wtp.overlay.internal.modulecore;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
 
-import org.apache.tools.ant.types.selectors.SelectorUtils;
+import org.eclipse.m2e.wtp.overlay.internal.utilities.PathPatternMatcher;
 import org.eclipse.m2e.wtp.overlay.internal.utilities.PathUtil;
 
 /**
@@ -76,66 +73,11 @@ public class DynamicResourceFilter implements IResourceFilter {
     protected boolean isCaseSensitive = true;
 
     /**
-     * Array of all include patterns that contain wildcards.
-     *
-     * <p>Gets lazily initialized on the first invocation of
-     * isIncluded or isExcluded and cleared at the end of the scan
-     * method (cleared in clearCaches, actually).</p>
-     *
-     * @since Ant 1.6.3
-     */
-    private String[] includePatterns;
-
-    /**
-     * Array of all exclude patterns that contain wildcards.
-     *
-     * <p>Gets lazily initialized on the first invocation of
-     * isIncluded or isExcluded and cleared at the end of the scan
-     * method (cleared in clearCaches, actually).</p>
-     *
-     * @since Ant 1.6.3
-     */
-    private String[] excludePatterns;
-
-    /**
-     * Have the non-pattern sets and pattern arrays for in- and
-     * excludes been initialized?
-     *
-     * @since Ant 1.6.3
-     */
-    private boolean areNonPatternSetsReady = false;
-    
-    /**
-     * Set of all include patterns that are full file names and don't
-     * contain any wildcards.
-     *
-     * <p>If this instance is not case sensitive, the file names get
-     * turned to lower case.</p>
-     *
-     * <p>Gets lazily initialized on the first invocation of
-     * isIncluded or isExcluded and cleared at the end of the scan
-     * method (cleared in clearCaches, actually).</p>
-     *
-     * @since Ant 1.6.3
+     * Compiled form of the in- and exclude patterns, rebuilt whenever the patterns change.
+     * Matching doesn't need any lock.
      */
-    private Set<String> includeNonPatterns = new HashSet<String>();
+    private volatile PathPatternMatcher matcher;
 
-    /**
-     * Set of all include patterns that are full file names and don't
-     * contain any wildcards.
-     *
-     * <p>If this instance is not case sensitive, the file names get
-     * turned to lower case.</p>
-     *
-     * <p>Gets lazily initialized on the first invocation of
-     * isIncluded or isExcluded and cleared at the end of the scan
-     * method (cleared in clearCaches, actually).</p>
-     *
-     * @since Ant 1.6.3
-     */
-    private Set<String> excludeNonPatterns = new HashSet<String>();
-
-    
     public DynamicResourceFilter(Collection<String> inclusions, Collection<String> exclusions) {
 		if (inclusions != null && !inclusions.isEmpty()) {
 			setIncludes(inclusions.toArray(new String[inclusions.size()]));
@@ -147,6 +89,13 @@ public class DynamicResourceFilter implements IResourceFilter {
 		}
 		addExcludes(DEFAULTEXCLUDES);
 	}
+
+    /**
+     * Compiles the current in|exclude patterns.
+     */
+    private void compile() {
+        matcher = PathPatternMatcher.compile(includes, excludes, isCaseSensitive());
+    }
     
     public synchronized void setIncludes(String[] includes) {
         if (includes == null) {
@@ -157,6 +106,7 @@ public class DynamicResourceFilter implements IResourceFilter {
                 this.includes[i] = normalizePattern(includes[i]);
             }
         }
+        compile();
     }
 
     public synchronized void setExcludes(String[] excludes) {
@@ -168,6 +118,7 @@ public class DynamicResourceFilter implements IResourceFilter {
                 this.excludes[i] = normalizePattern(excludes[i]);
             }
         }
+        compile();
     }    
   
     public synchronized void addExcludes(String[] excludes) {
@@ -182,6 +133,7 @@ public class DynamicResourceFilter implements IResourceFilter {
                         normalizePattern(excludes[i]);
                 }
                 this.excludes = tmp;
+                compile();
             } else {
                 setExcludes(excludes);
             }
@@ -196,42 +148,6 @@ public class DynamicResourceFilter implements IResourceFilter {
         return pattern;
     }
     
-    /**
-     * Ensure that the in|exclude &quot;patterns&quot;
-     * have been properly divided up.
-     *
-     * @since Ant 1.6.3
-     */
-    private synchronized void ensureNonPatternSetsReady() {
-        if (!areNonPatternSetsReady) {
-            includePatterns = fillNonPatternSet(includeNonPatterns, includes);
-            excludePatterns = fillNonPatternSet(excludeNonPatterns, excludes);
-            areNonPatternSetsReady = true;
-        }
-    }
-
-    /**
-     * Add all patterns that are not real patterns (do not contain
-     * wildcards) to the set and returns the real patterns.
-     *
-     * @param set Set to populate.
-     * @param patterns String[] of patterns.
-     * @since Ant 1.6.3
-     */
-    private String[] fillNonPatternSet(Set<String> set, String[] patterns) {
-        ArrayList<String> al = new ArrayList<String>(patterns.length);
-        for (int i = 0; i < patterns.length; i++) {
-            if (!SelectorUtils.hasWildcards(patterns[i])) {
-                set.add(isCaseSensitive() ? patterns[i]
-                    : patterns[i].toUpperCase());
-            } else {
-                al.add(patterns[i]);
-            }
-        }
-        return set.size() == 0 ? patterns
-            : al.toArray(new String[al.size()]);
-    }
-    
     private boolean isCaseSensitive() {
 		return isCaseSensitive;
 	}
@@ -245,19 +161,7 @@ public class DynamicResourceFilter implements IResourceFilter {
      *         exclude pattern, or <code>false</code> otherwise.
      */
     protected boolean isExcluded(String name) {
-        ensureNonPatternSetsReady();
-
-        if (isCaseSensitive()
-            ? excludeNonPatterns.contains(name)
-            : excludeNonPatterns.contains(name.toUpperCase())) {
-            return true;
-        }
-        for (int i = 0; i < excludePatterns.length; i++) {
-            if (matchPath(excludePatterns[i], name, isCaseSensitive())) {
-                return true;
-            }
-        }
-        return false;
+        return matcher.isExcluded(name);
     }
     
     /**
@@ -269,31 +173,13 @@ public class DynamicResourceFilter implements IResourceFilter {
      *         include pattern, or <code>false</code> otherwise.
      */
     protected boolean isIncluded(String name) {
-        ensureNonPatternSetsReady();
-
-        if (isCaseSensitive()
-            ? includeNonPatterns.contains(name)
-            : includeNonPatterns.contains(name.toUpperCase())) {
-            return true;
-        }
-        for (int i = 0; i < includePatterns.length; i++) {
-            if (matchPath(includePatterns[i], name, isCaseSensitive())) {
-                return true;
-            }
-        }
-        return false;
-    }
-    
-    protected static boolean matchPath(String pattern, String str,
-            boolean isCaseSensitive) {
-    	return SelectorUtils.matchPath(pattern, str, isCaseSensitive);
+        return matcher.isIncluded(name);
     }
 
 	public boolean accepts(String path, boolean isFile) {
 		if (path == null) return false;
-		path = PathUtil.useSystemSeparator(path);
-		boolean isIncluded = isIncluded(path) && ! isExcluded(path);
-		return isIncluded;
+		//Included and not excluded, evaluated in a single pass over the path segments
+		return matcher.accepts(path);
 	}
 
 }
@@ -9,21 +9,23 @@
 package org.eclipse.m2e.wtp.overlay.internal.modulecore;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Set;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IPath;
-import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.m2e.wtp.overlay.internal.Messages;
+import org.eclipse.m2e.wtp.overlay.internal.utilities.ZipArchiveIndex;
 import org.eclipse.m2e.wtp.overlay.modulecore.IOverlayVirtualComponent;
-import org.eclipse.m2e.wtp.overlay.modulecore.UnpackArchiveJob;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.common.componentcore.ComponentCore;
 import org.eclipse.wst.common.componentcore.internal.resources.VirtualArchiveComponent;
 import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
 import org.eclipse.wst.common.componentcore.resources.IVirtualFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Archive-based Overlay Virtual Component. 
@@ -37,17 +39,15 @@ import org.eclipse.wst.common.componentcore.resources.IVirtualFolder;
 @SuppressWarnings("restriction")
 public class OverlayVirtualArchiveComponent extends VirtualArchiveComponent implements IOverlayVirtualComponent {
 
+	private static final Logger LOG = LoggerFactory.getLogger(OverlayVirtualArchiveComponent.class);
+
 	protected IPath unpackDirPath;
 	
 	private Set<String> inclusions;
 	
 	private Set<String> exclusions;
 
-	private ResourceListVirtualFolder cachedRoot;
-
-	private long lastCacheUpdate;
-	
-	private static int MAX_CACHE = 2000;
+	private volatile ArchiveVirtualFolder cachedRoot;
 	
 	public OverlayVirtualArchiveComponent(IProject aComponentProject,
 			String archiveLocation, IPath unpackDirPath, IPath aRuntimePath) {
@@ -57,41 +57,41 @@ public class OverlayVirtualArchiveComponent extends VirtualArchiveComponent impl
 
 	public void setInclusions(Set<String> inclusionPatterns) {
 		this.inclusions = inclusionPatterns;
+		cachedRoot = null;
 	}
 
 	public void setExclusions(Set<String> exclusionPatterns) {
 		this.exclusions = exclusionPatterns;
+		cachedRoot = null;
 	}
 	
+	/**
+	 * Returns a folder serving the archive content directly, without unpacking the archive first. 
+	 * Entries are only extracted to the unpack folder when their file is requested.
+	 * The folder is cached until the archive is modified.
+	 */
 	@Override
 	public IVirtualFolder getRootFolder() {
 		IVirtualComponent component = ComponentCore.createComponent(getProject());
 		File archive = getArchive();
-		ResourceListVirtualFolder root =null;
-		if (component != null && archive != null) {
-			IFolder unpackedFolder = getUnpackedArchiveFolder(archive);
-			if (isUnpackNeeded(archive, unpackedFolder)) {
-			  Job[] currentJobs = Job.getJobManager().find(unpackedFolder);
-			  if (currentJobs.length == 0) {
-				  Job job = new UnpackArchiveJob(NLS.bind(Messages.OverlayVirtualArchiveComponent_Unpacking_Job,archive.getName()), archive, unpackedFolder);
-				  job.schedule();
-			  }
-			  root = new ResourceListVirtualFolder(getProject(), getRuntimePath(), new IContainer[] {}); 	
-			} else {
-			  	
-			  if (cachedRoot != null && (System.currentTimeMillis() - lastCacheUpdate) < MAX_CACHE){
-					return cachedRoot;
-			  } 
-				
-			  IContainer[] containers = new IContainer[] {unpackedFolder};
-			  root = new ResourceListVirtualFolder(getProject(), getRuntimePath(), containers);
-			  root.setFilter(new FileSystemResourceFilter(inclusions, exclusions, unpackedFolder.getLocation()));
-			  
-			  lastCacheUpdate = System.currentTimeMillis();
-			  cachedRoot = root;
+		if (component == null || archive == null) {
+			return null;
+		}
+		ArchiveVirtualFolder root = cachedRoot;
+		try {
+			ZipArchiveIndex index = ZipArchiveIndex.get(archive);
+			if (root != null && root.getIndex() == index) {
+				return root;
 			}
+			IFolder unpackedFolder = getUnpackedArchiveFolder(archive);
+			root = new ArchiveVirtualFolder(getProject(), getRuntimePath(), index, unpackedFolder.getLocation().toFile());
+			root.setFilter(new DynamicResourceFilter(inclusions, exclusions));
+			cachedRoot = root;
+			return root;
+		} catch (IOException e) {
+			LOG.error(NLS.bind(Messages.OverlayVirtualArchiveComponent_Error_Reading, archive), e);
+			return new ResourceListVirtualFolder(getProject(), getRuntimePath(), new IContainer[] {});
 		}
-		return root;
 	}
 
 	protected IFolder getUnpackedArchiveFolder(File archive) {
@@ -107,15 +107,6 @@ public class OverlayVirtualArchiveComponent extends VirtualArchiveComponent impl
 		}
 		return archive;
 	}
-	
-	private boolean isUnpackNeeded(File archive, IFolder unpackFolder) {
-		if (!unpackFolder.exists()) {
-		  return true;
-		}
-		long lastUnpacked = new File(unpackFolder.getLocation().toOSString()).lastModified();
-		long lastModified = archive.lastModified();
-		return lastModified > lastUnpacked;
-	}
 
 	public IPath getUnpackFolderPath() {
 		return unpackDirPath;
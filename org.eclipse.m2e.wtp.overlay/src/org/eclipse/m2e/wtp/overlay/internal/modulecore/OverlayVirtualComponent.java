@@ -9,6 +9,7 @@
 package org.eclipse.m2e.wtp.overlay.internal.modulecore;
 
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -52,11 +53,13 @@ public class OverlayVirtualComponent extends VirtualComponent implements
 	
 	protected Set<IVirtualReference> references;
 	
-	private CompositeVirtualFolder cachedRoot;
+	private volatile CompositeVirtualFolder cachedRoot;
 	
-	private long lastCacheUpdate;
-	
-	private static int MAX_CACHE = 2000;
+	/**
+	 * Stamp of the projects the cached root was built from. The cached root remains valid 
+	 * until one of these projects changes, see {@link ProjectChangeTracker}.
+	 */
+	private volatile ProjectChangeTracker.Stamp cacheStamp;
 	
 	public OverlayVirtualComponent(IProject project) {
 		super(project, ROOT);
@@ -69,21 +72,60 @@ public class OverlayVirtualComponent extends VirtualComponent implements
 	}
 
 	private CompositeVirtualFolder getRoot() {
-		if (cachedRoot != null && (System.currentTimeMillis() - lastCacheUpdate) < MAX_CACHE){
-			return cachedRoot;
+		CompositeVirtualFolder root = cachedRoot;
+		ProjectChangeTracker.Stamp stamp = cacheStamp;
+		if (root != null && stamp != null && stamp.isValid()){
+			return root;
 		}
 		
 		if (project != null) {
 			IVirtualComponent component = ComponentCore.createComponent(project);
 			if (component != null) {
+				//Stamp taken before flattening, so changes occurring meanwhile invalidate the new root
+				stamp = ProjectChangeTracker.stamp(getFlattenedProjects(component));
 				//FlatVirtualComponent will build the project structure from the definition in .component
 				FlatVirtualComponent flatVirtualComponent = new FlatVirtualComponent(component, getOptions());
 				IResourceFilter filter = new DynamicResourceFilter(getInclusions(), getExclusions()); 
-				cachedRoot = new CompositeVirtualFolder(flatVirtualComponent, ROOT, filter);
+				root = new CompositeVirtualFolder(flatVirtualComponent, ROOT, filter);
+				cachedRoot = root;
+				cacheStamp = stamp;
+			}
+		}
+		return root;
+	}
+
+	/**
+	 * @return the overlaid project and the workspace projects it references, directly or transitively, 
+	 * which can all contribute to the flattened root.
+	 */
+	private Set<IProject> getFlattenedProjects(IVirtualComponent component) {
+		Set<IProject> projects = new LinkedHashSet<IProject>();
+		projects.add(project);
+		collectReferencedProjects(component, projects);
+		return projects;
+	}
+
+	/**
+	 * Collects the projects of the non binary components referenced by the component, skipping the visited projects, 
+	 * so reference cycles terminate.
+	 */
+	private static void collectReferencedProjects(IVirtualComponent component, Set<IProject> visited) {
+		IVirtualReference[] references = component.getReferences();
+		if (references == null) {
+			return;
+		}
+		for (IVirtualReference reference : references) {
+			IVirtualComponent referencedComponent = reference.getReferencedComponent();
+			if (referencedComponent != null && !referencedComponent.isBinary() && referencedComponent.getProject() != null 
+					&& visited.add(referencedComponent.getProject())) {
+				collectReferencedProjects(referencedComponent, visited);
 			}
 		}
-		lastCacheUpdate = System.currentTimeMillis();
-		return cachedRoot;
+	}
+
+	private void clearCache() {
+		cachedRoot = null;
+		cacheStamp = null;
 	}
 	
 	private FlatComponentTaskModel getOptions() {
@@ -119,10 +161,12 @@ public class OverlayVirtualComponent extends VirtualComponent implements
 
 	public void setInclusions(Set<String> inclusionPatterns) {
 		this.inclusionPatterns = inclusionPatterns;
+		clearCache();
 	}
 
 	public void setExclusions(Set<String> exclusionPatterns) {
 		this.exclusionPatterns = exclusionPatterns;
+		clearCache();
 	}
 
 	public Set<String> getExclusions() {
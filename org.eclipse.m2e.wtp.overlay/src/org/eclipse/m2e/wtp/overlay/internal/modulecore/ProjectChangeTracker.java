@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.m2e.wtp.overlay.internal.modulecore;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the changes affecting the structure of flattened projects : resources being added,
+ * removed or moved, changes to the <code>.component</code>, <code>.classpath</code> and facets files,
+ * and resolved classpath changes.
+ * <br/>
+ * Each project is given a stamp, bumped on every such change. Caches built from the structure of a
+ * set of projects remain valid as long as the {@link Stamp} taken before building them is.
+ * <br/>
+ * Finer grained stamps can be taken on containers. They're bumped whenever a direct member of the container
+ * is added, removed, moved or replaced. Containers are only tracked once stamped, until they're removed or
+ * their project is closed.
+ */
+public class ProjectChangeTracker implements IResourceChangeListener, IElementChangedListener {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ProjectChangeTracker.class);
+
+	private static final String COMPONENT_FILE = "org.eclipse.wst.common.component"; //$NON-NLS-1$
+
+	private static final String FACETS_FILE = "org.eclipse.wst.common.project.facet.core.xml"; //$NON-NLS-1$
+
+	private static final String CLASSPATH_FILE = ".classpath"; //$NON-NLS-1$
+
+	private static final int STRUCTURE_FLAGS = IResourceDelta.OPEN | IResourceDelta.DESCRIPTION | IResourceDelta.TYPE
+			| IResourceDelta.REPLACED | IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO;
+
+	private static final int CLASSPATH_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED;
+
+	private static volatile ProjectChangeTracker instance;
+
+	private final AtomicLong counter = new AtomicLong();
+
+	private final ConcurrentMap<String, Long> stamps = new ConcurrentHashMap<String, Long>();
+
+	private final ConcurrentMap<IPath, Long> containerStamps = new ConcurrentHashMap<IPath, Long>();
+
+	/**
+	 * @return the running tracker, or <code>null</code> if changes are not tracked.
+	 */
+	public static ProjectChangeTracker getInstance() {
+		return instance;
+	}
+
+	public static void setInstance(ProjectChangeTracker tracker) {
+		instance = tracker;
+	}
+
+	/**
+	 * Takes a snapshot of the stamps of the given projects.
+	 *
+	 * @return a {@link Stamp}, never valid if changes are not being tracked.
+	 */
+	public static Stamp stamp(Collection<IProject> projects) {
+		ProjectChangeTracker tracker = instance;
+		if (tracker == null) {
+			return Stamp.INVALID;
+		}
+		Object[] names = new Object[projects.size()];
+		long[] values = new long[names.length];
+		int i = 0;
+		for (IProject project : projects) {
+			names[i] = project.getName();
+			values[i] = tracker.getStamp(names[i]);
+			i++;
+		}
+		return new Stamp(tracker, names, values);
+	}
+
+	/**
+	 * Takes a snapshot of the stamps of the given containers, and starts tracking them.
+	 *
+	 * @return a {@link Stamp}, never valid if changes are not being tracked.
+	 */
+	public static Stamp stamp(IContainer[] containers) {
+		ProjectChangeTracker tracker = instance;
+		if (tracker == null) {
+			return Stamp.INVALID;
+		}
+		Object[] paths = new Object[containers.length];
+		long[] values = new long[paths.length];
+		for (int i = 0; i < containers.length; i++) {
+			IPath path = containers[i].getFullPath();
+			paths[i] = path;
+			values[i] = tracker.track(path);
+		}
+		return new Stamp(tracker, paths, values);
+	}
+
+	long getStamp(Object key) {
+		Long stamp = key instanceof IPath ? containerStamps.get(key) : stamps.get(key);
+		return stamp == null ? 0 : stamp.longValue();
+	}
+
+	private long track(IPath containerPath) {
+		Long stamp = containerStamps.get(containerPath);
+		if (stamp == null) {
+			//A new value, so a container removed then tracked again doesn't get its former stamp back
+			Long newStamp = Long.valueOf(counter.incrementAndGet());
+			stamp = containerStamps.putIfAbsent(containerPath, newStamp);
+			if (stamp == null) {
+				stamp = newStamp;
+			}
+		}
+		return stamp.longValue();
+	}
+
+	private void touchContainer(IPath containerPath) {
+		if (containerStamps.containsKey(containerPath)) {
+			containerStamps.put(containerPath, Long.valueOf(counter.incrementAndGet()));
+		}
+	}
+
+	private void forgetContainers(IProject project) {
+		IPath projectPath = project.getFullPath();
+		for (Iterator<IPath> paths = containerStamps.keySet().iterator(); paths.hasNext();) {
+			if (projectPath.isPrefixOf(paths.next())) {
+				paths.remove();
+			}
+		}
+	}
+
+	void touch(IProject project) {
+		stamps.put(project.getName(), Long.valueOf(counter.incrementAndGet()));
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (event.getType() == IResourceChangeEvent.PRE_CLOSE || event.getType() == IResourceChangeEvent.PRE_DELETE) {
+			if (event.getResource() instanceof IProject) {
+				touch((IProject) event.getResource());
+				forgetContainers((IProject) event.getResource());
+			}
+			return;
+		}
+		IResourceDelta delta = event.getDelta();
+		if (delta == null) {
+			return;
+		}
+		for (IResourceDelta projectDelta : delta.getAffectedChildren()) {
+			IResource resource = projectDelta.getResource();
+			if (resource instanceof IProject && isStructuralChange(projectDelta)) {
+				touch((IProject) resource);
+				if (!containerStamps.isEmpty()) {
+					touchContainers(projectDelta);
+				}
+			}
+		}
+	}
+
+	private void touchContainers(IResourceDelta projectDelta) {
+		try {
+			projectDelta.accept(new IResourceDeltaVisitor() {
+				public boolean visit(IResourceDelta delta) throws CoreException {
+					int kind = delta.getKind();
+					if (kind != IResourceDelta.ADDED && kind != IResourceDelta.REMOVED
+							&& (delta.getFlags() & STRUCTURE_FLAGS) == 0) {
+						return true;
+					}
+					IResource resource = delta.getResource();
+					IContainer parent = resource.getParent();
+					if (parent != null) {
+						touchContainer(parent.getFullPath());
+					}
+					if (resource instanceof IProject && !((IProject) resource).isOpen()) {
+						forgetContainers((IProject) resource);
+					} else if (resource instanceof IContainer) {
+						if (kind == IResourceDelta.REMOVED) {
+							containerStamps.remove(resource.getFullPath());
+						} else {
+							touchContainer(resource.getFullPath());
+						}
+					}
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			LOG.error(e.getLocalizedMessage(), e);
+			containerStamps.clear();
+		}
+	}
+
+	private static boolean isStructuralChange(IResourceDelta projectDelta) {
+		final boolean[] result = new boolean[1];
+		try {
+			projectDelta.accept(new IResourceDeltaVisitor() {
+				public boolean visit(IResourceDelta delta) throws CoreException {
+					if (result[0]) {
+						return false;
+					}
+					if (delta.getKind() == IResourceDelta.ADDED || delta.getKind() == IResourceDelta.REMOVED
+							|| (delta.getFlags() & STRUCTURE_FLAGS) != 0) {
+						result[0] = true;
+						return false;
+					}
+					IResource resource = delta.getResource();
+					if (resource instanceof IFile && (delta.getFlags() & IResourceDelta.CONTENT) != 0) {
+						String name = resource.getName();
+						if (COMPONENT_FILE.equals(name) || FACETS_FILE.equals(name) || CLASSPATH_FILE.equals(name)) {
+							result[0] = true;
+						}
+						return false;
+					}
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			LOG.error(e.getLocalizedMessage(), e);
+			result[0] = true;
+		}
+		return result[0];
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		IJavaElementDelta delta = event.getDelta();
+		if (delta == null) {
+			return;
+		}
+		for (IJavaElementDelta projectDelta : delta.getAffectedChildren()) {
+			IJavaElement element = projectDelta.getElement();
+			if (element.getElementType() == IJavaElement.JAVA_PROJECT && (projectDelta.getFlags() & CLASSPATH_FLAGS) != 0) {
+				IResource project = element.getResource();
+				if (project instanceof IProject) {
+					touch((IProject) project);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Snapshot of project stamps.
+	 */
+	public static final class Stamp {
+
+		static final Stamp INVALID = new Stamp(null, new Object[0], new long[0]);
+
+		private final ProjectChangeTracker tracker;
+
+		/**
+		 * Project names or container paths
+		 */
+		private final Object[] keys;
+
+		private final long[] values;
+
+		Stamp(ProjectChangeTracker tracker, Object[] keys, long[] values) {
+			this.tracker = tracker;
+			this.keys = keys;
+			this.values = values;
+		}
+
+		/**
+		 * @return <code>true</code> if none of the projects or containers changed since this stamp was taken.
+		 */
+		public boolean isValid() {
+			if (tracker == null || tracker != instance) {
+				return false;
+			}
+			for (int i = 0; i < keys.length; i++) {
+				if (tracker.getStamp(keys[i]) != values[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
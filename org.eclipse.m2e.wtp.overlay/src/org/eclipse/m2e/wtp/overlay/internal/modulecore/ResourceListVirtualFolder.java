@@ -14,6 +14,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
@@ -34,6 +36,10 @@ import org.slf4j.LoggerFactory;
 /**
  * Virtual Folder traversing the {@link IResource}s members of a {@link IVirtualComponent} 
  * and mapping them as {@link IVirtualResource}.
+ * <br/>
+ * Members are cached until a direct member of the underlying containers is added or removed
+ * (see {@link ProjectChangeTracker}), or the filter changes. Sub folders are kept when their own
+ * underlying containers didn't change, so only the modified parts of the tree are traversed again.
  * 
  * @provisional This class has been added as part of a work in progress. 
  * It is not guaranteed to work or remain the same in future releases. 
@@ -47,9 +53,18 @@ public class ResourceListVirtualFolder extends VirtualFolder implements IFiltere
 
 	private static final Logger LOG = LoggerFactory.getLogger(ResourceListVirtualFolder.class);
 
+	/**
+	 * Resources added in addition to the members of the underlying containers
+	 */
 	private ArrayList<IResource> children;
 	private ArrayList<IContainer> underlying;
 	private IResourceFilter filter;
+
+	private IVirtualResource[] cachedMembers;
+	private HashMap<String, IVirtualResource> cachedMembersByName;
+	private IResourceFilter cachedFilter;
+	private int cachedMemberFlags;
+	private ProjectChangeTracker.Stamp cachedStamp;
 	
 	public ResourceListVirtualFolder(
 			IProject aComponentProject,
@@ -74,21 +89,15 @@ public class ResourceListVirtualFolder extends VirtualFolder implements IFiltere
 		addChildren(looseResources);
 	}
 
-	public void setFilter(IResourceFilter filter) {
+	public synchronized void setFilter(IResourceFilter filter) {
 		this.filter = filter;
 	}
 	
-	protected void addUnderlyingResource(IResource resource) {
+	protected synchronized void addUnderlyingResource(IResource resource) {
 		if( resource instanceof IContainer ) { 
+			//Members are read when needed
 			underlying.add((IContainer)resource);
-			try {
-				IResource[] newChildren = ((IContainer)resource).members();
-				for( int i = 0; i < newChildren.length; i++ ) {
-					children.add(newChildren[i]);
-				}
-			} catch( CoreException ce) {
-				LOG.error(ce.getLocalizedMessage(), ce);
-			}
+			cachedMembers = null;
 		}
 	}
 
@@ -98,12 +107,14 @@ public class ResourceListVirtualFolder extends VirtualFolder implements IFiltere
 		}
 	}
 	
-	protected void addChild(IResource resource) {
+	protected synchronized void addChild(IResource resource) {
 		this.children.add(resource);
+		cachedMembers = null;
 	}
 
-	protected void addChildren(IResource[] resources) {
+	protected synchronized void addChildren(IResource[] resources) {
 		this.children.addAll(Arrays.asList(resources));
+		cachedMembers = null;
 	}
 	
 	@Override
@@ -127,14 +138,62 @@ public class ResourceListVirtualFolder extends VirtualFolder implements IFiltere
 	}
 
 	@Override
-	public IVirtualResource[] members(int memberFlags) throws CoreException {
+	public synchronized IVirtualResource[] members(int memberFlags) throws CoreException {
+		if (cachedMembers != null && cachedFilter == filter && cachedMemberFlags == memberFlags && cachedStamp.isValid()) {
+			return cachedMembers;
+		}
+		//Stamp taken before reading the members, so changes occurring meanwhile invalidate the new members
+		ProjectChangeTracker.Stamp stamp = ProjectChangeTracker.stamp(getUnderlyingFolders());
 		HashMap<String, IVirtualResource> virtualResources = new HashMap<String, IVirtualResource>(); // result
-		IResource[] resources = (IResource[]) this.children.toArray(new IResource[this.children.size()]);
-		for( int i = 0; i < resources.length; i++ ) {
-			handleResource(resources[i], virtualResources, memberFlags);
+		for (IResource resource : getChildren()) {
+			handleResource(resource, virtualResources, memberFlags);
+		}
+		if (cachedMembersByName != null && cachedFilter == filter) {
+			keepUnchangedFolders(virtualResources, cachedMembersByName);
 		}
 		Collection<IVirtualResource> c = virtualResources.values();
-		return (IVirtualResource[]) c.toArray(new IVirtualResource[c.size()]);
+		cachedMembers = (IVirtualResource[]) c.toArray(new IVirtualResource[c.size()]);
+		cachedMembersByName = virtualResources;
+		cachedFilter = filter;
+		cachedMemberFlags = memberFlags;
+		cachedStamp = stamp;
+		return cachedMembers;
+	}
+
+	/**
+	 * @return the members of the underlying containers, followed by the additional resources
+	 */
+	private List<IResource> getChildren() {
+		List<IResource> resources = new ArrayList<IResource>();
+		for (IContainer container : underlying) {
+			try {
+				resources.addAll(Arrays.asList(container.members()));
+			} catch( CoreException ce) {
+				LOG.error(ce.getLocalizedMessage(), ce);
+			}
+		}
+		resources.addAll(children);
+		return resources;
+	}
+
+	/**
+	 * Replaces new sub folders by the previous ones mapping the same containers, along with their cached members.
+	 */
+	private static void keepUnchangedFolders(Map<String, IVirtualResource> virtualResources, Map<String, IVirtualResource> previousResources) {
+		for (Map.Entry<String, IVirtualResource> entry : virtualResources.entrySet()) {
+			if (!(entry.getValue() instanceof ResourceListVirtualFolder)) {
+				continue;
+			}
+			IVirtualResource previous = previousResources.get(entry.getKey());
+			if (previous instanceof ResourceListVirtualFolder
+					&& ((ResourceListVirtualFolder) previous).mapsSameContainers((ResourceListVirtualFolder) entry.getValue())) {
+				entry.setValue(previous);
+			}
+		}
+	}
+
+	private synchronized boolean mapsSameContainers(ResourceListVirtualFolder folder) {
+		return filter == folder.filter && children.equals(folder.children) && underlying.equals(folder.underlying);
 	}
 
 	protected void handleResource(final IResource resource, HashMap<String, IVirtualResource> map, int memberFlags) throws CoreException {
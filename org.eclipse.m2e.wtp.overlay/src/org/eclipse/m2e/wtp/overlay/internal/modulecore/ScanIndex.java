@@ -0,0 +1,432 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.m2e.wtp.overlay.internal.modulecore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.m2e.wtp.overlay.internal.OverlayPluginActivator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent listing of a directory tree, used by {@link FileSystemResourceFilter}.
+ * <br/>
+ * Each directory is stored with its modification stamp and the names of its files and sub-directories,
+ * so only the directories that changed since the previous scan need to be listed again.
+ * Indexes are stored in a versioned binary format, under a key derived from the base directory and
+ * the inclusion/exclusion patterns. The total size of the stored indexes is bounded, least recently
+ * used indexes being evicted first.
+ */
+class ScanIndex {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ScanIndex.class);
+
+	private static final int MAGIC = 0x4D325753;
+
+	private static final int VERSION = 1;
+
+	private static final String INDEX_FOLDER = "scan-index"; //$NON-NLS-1$
+
+	private static final String INDEX_EXTENSION = ".idx"; //$NON-NLS-1$
+
+	private static final String LEGACY_EXTENSION = ".scan"; //$NON-NLS-1$
+
+	private static final String UTF_8 = "UTF-8"; //$NON-NLS-1$
+
+	/** Maximum disk space used by all the stored indexes */
+	private static final long MAX_STORAGE_SIZE = 32L * 1024 * 1024;
+
+	/**
+	 * Directories modified less than this many ms before the scan started might be modified again
+	 * within the file system timestamp granularity, their stamp can't be trusted.
+	 */
+	private static final long RACY_DELAY = 2000;
+
+	private static final long UNKNOWN_STAMP = -1;
+
+	private static final int MAX_STRING_LENGTH = 1024 * 1024;
+
+	private static volatile boolean legacyFilesRemoved;
+
+	private final String baseDirAsString;
+
+	private final String[] includes;
+
+	private final String[] excludes;
+
+	/** Directories, by path relative to the base directory, "" being the base directory */
+	private final Map<String, DirectoryEntry> directories;
+
+	private boolean changed;
+
+	private ScanIndex(String baseDirAsString, String[] includes, String[] excludes, Map<String, DirectoryEntry> directories) {
+		this.baseDirAsString = baseDirAsString;
+		this.includes = includes;
+		this.excludes = excludes;
+		this.directories = directories;
+	}
+
+	/**
+	 * Returns an up-to-date index of the base directory. The persisted index, if any, is validated
+	 * directory by directory, and only the directories modified since are listed again.
+	 */
+	static ScanIndex scan(File baseDir, String[] includes, String[] excludes) {
+		String baseDirAsString = baseDir.getAbsolutePath();
+		File indexFile = getIndexFile(computeKey(baseDirAsString, includes, excludes));
+		ScanIndex previous = null;
+		if (indexFile != null) {
+			previous = read(indexFile, baseDirAsString, includes, excludes);
+		}
+		ScanIndex index = new ScanIndex(baseDirAsString, includes, excludes, new TreeMap<String, DirectoryEntry>());
+		index.walk(baseDir, "", previous, System.currentTimeMillis() - RACY_DELAY, new HashSet<String>()); //$NON-NLS-1$
+		if (previous == null || previous.directories.size() != index.directories.size()) {
+			index.changed = true;
+		}
+		if (indexFile != null) {
+			if (index.changed) {
+				index.write(indexFile);
+				evict(indexFile.getParentFile());
+			} else {
+				//Keep track of the last access, for LRU eviction
+				indexFile.setLastModified(System.currentTimeMillis());
+			}
+		}
+		return index;
+	}
+
+	Map<String, DirectoryEntry> getDirectories() {
+		return directories;
+	}
+
+	/**
+	 * @param ancestors canonical paths of the directories being walked, so symbolic links pointing to one of
+	 * them are not followed endlessly
+	 */
+	private void walk(File dir, String relativePath, ScanIndex previous, long racyLimit, Set<String> ancestors) {
+		String canonicalPath = getCanonicalPath(dir);
+		if (!ancestors.add(canonicalPath)) {
+			return;
+		}
+		long lastModified = dir.lastModified();
+		DirectoryEntry entry = previous == null ? null : previous.directories.get(relativePath);
+		if (entry == null || entry.lastModified == UNKNOWN_STAMP || entry.lastModified != lastModified) {
+			entry = list(dir, lastModified < racyLimit ? lastModified : UNKNOWN_STAMP);
+			changed = true;
+		}
+		directories.put(relativePath, entry);
+		for (String subDir : entry.directories) {
+			String subPath = relativePath.length() == 0 ? subDir : relativePath + File.separator + subDir;
+			walk(new File(dir, subDir), subPath, previous, racyLimit, ancestors);
+		}
+		ancestors.remove(canonicalPath);
+	}
+
+	private static String getCanonicalPath(File dir) {
+		try {
+			return dir.getCanonicalPath();
+		} catch (IOException ex) {
+			return dir.getAbsolutePath();
+		}
+	}
+
+	private static DirectoryEntry list(File dir, long stamp) {
+		File[] children = dir.listFiles();
+		if (children == null) {
+			return new DirectoryEntry(stamp, new String[0], new String[0]);
+		}
+		List<String> files = new ArrayList<String>(children.length);
+		List<String> dirs = new ArrayList<String>();
+		for (File child : children) {
+			if (child.isDirectory()) {
+				dirs.add(child.getName());
+			} else if (child.isFile()) {
+				files.add(child.getName());
+			}
+		}
+		Collections.sort(files);
+		Collections.sort(dirs);
+		return new DirectoryEntry(stamp, files.toArray(new String[files.size()]), dirs.toArray(new String[dirs.size()]));
+	}
+
+	/**
+	 * @return a hex encoded SHA-1 digest of the base directory and the patterns.
+	 */
+	static String computeKey(String baseDirAsString, String[] includes, String[] excludes) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+			update(digest, baseDirAsString);
+			digest.update((byte) 1);
+			for (String include : includes) {
+				update(digest, include);
+			}
+			digest.update((byte) 2);
+			for (String exclude : excludes) {
+				update(digest, exclude);
+			}
+			StringBuilder key = new StringBuilder(40);
+			for (byte b : digest.digest()) {
+				key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void update(MessageDigest digest, String value) throws UnsupportedEncodingException {
+		digest.update(value.getBytes(UTF_8));
+		digest.update((byte) 0);
+	}
+
+	private static File getIndexFile(String key) {
+		IPath location = OverlayPluginActivator.getWorkspacePluginPath();
+		if (location == null) {
+			return null;
+		}
+		File root = location.toFile();
+		if (!legacyFilesRemoved) {
+			removeLegacyFiles(root);
+		}
+		File folder = new File(root, INDEX_FOLDER);
+		if (!folder.isDirectory() && !folder.mkdirs()) {
+			return null;
+		}
+		return new File(folder, key + INDEX_EXTENSION);
+	}
+
+	/**
+	 * Deletes the <code>&lt;hashCode&gt;.scan</code> files written by previous versions, which were never evicted.
+	 */
+	private static void removeLegacyFiles(File root) {
+		legacyFilesRemoved = true;
+		File[] legacyFiles = root.listFiles(new FileFilter() {
+			public boolean accept(File file) {
+				return file.isFile() && file.getName().endsWith(LEGACY_EXTENSION);
+			}
+		});
+		if (legacyFiles != null) {
+			for (File legacyFile : legacyFiles) {
+				legacyFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Deletes the least recently used indexes until their total size fits in {@link #MAX_STORAGE_SIZE}.
+	 */
+	static void evict(File folder) {
+		File[] indexes = folder.listFiles();
+		if (indexes == null) {
+			return;
+		}
+		long totalSize = 0;
+		for (File index : indexes) {
+			totalSize += index.length();
+		}
+		if (totalSize <= MAX_STORAGE_SIZE) {
+			return;
+		}
+		Arrays.sort(indexes, new Comparator<File>() {
+			public int compare(File f1, File f2) {
+				long l1 = f1.lastModified();
+				long l2 = f2.lastModified();
+				return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+			}
+		});
+		for (File index : indexes) {
+			if (totalSize <= MAX_STORAGE_SIZE) {
+				break;
+			}
+			long size = index.length();
+			if (index.delete()) {
+				totalSize -= size;
+			}
+		}
+	}
+
+	private void write(File indexFile) {
+		File tmpFile = new File(indexFile.getParentFile(), indexFile.getName() + "." + System.nanoTime() + ".tmp"); //$NON-NLS-1$ //$NON-NLS-2$
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			writeString(out, baseDirAsString);
+			writeStrings(out, includes);
+			writeStrings(out, excludes);
+			out.writeInt(directories.size());
+			//Directories are sorted, consecutive paths are front-coded
+			String previousPath = ""; //$NON-NLS-1$
+			for (Map.Entry<String, DirectoryEntry> e : directories.entrySet()) {
+				String path = e.getKey();
+				int prefix = commonPrefixLength(previousPath, path);
+				out.writeInt(prefix);
+				writeString(out, path.substring(prefix));
+				DirectoryEntry entry = e.getValue();
+				out.writeLong(entry.lastModified);
+				writeStrings(out, entry.files);
+				writeStrings(out, entry.directories);
+				previousPath = path;
+			}
+			out.close();
+			out = null;
+			//Replace the previous index at once, so readers never see a partially written file
+			if (!tmpFile.renameTo(indexFile)) {
+				indexFile.delete();
+				if (!tmpFile.renameTo(indexFile)) {
+					LOG.error("Unable to save scan index to " + indexFile); //$NON-NLS-1$
+				}
+			}
+		} catch (IOException ex) {
+			LOG.error("Unable to save scan index", ex); //$NON-NLS-1$
+		} finally {
+			try {
+				if (out != null) {
+					out.close();
+				}
+			} catch (IOException ignore) {
+			}
+			if (tmpFile.exists()) {
+				tmpFile.delete();
+			}
+		}
+	}
+
+	private static ScanIndex read(File indexFile, String baseDirAsString, String[] includes, String[] excludes) {
+		if (!indexFile.isFile()) {
+			return null;
+		}
+		ScanIndex index = null;
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return null;
+			}
+			if (!baseDirAsString.equals(readString(in))
+				|| !Arrays.equals(includes, readStrings(in))
+				|| !Arrays.equals(excludes, readStrings(in))) {
+				//Digest collision, should never happen
+				return null;
+			}
+			int size = in.readInt();
+			Map<String, DirectoryEntry> directories = new TreeMap<String, DirectoryEntry>();
+			String previousPath = ""; //$NON-NLS-1$
+			for (int i = 0; i < size; i++) {
+				int prefix = in.readInt();
+				if (prefix < 0 || prefix > previousPath.length()) {
+					throw new IOException("Invalid path prefix length " + prefix); //$NON-NLS-1$
+				}
+				String path = previousPath.substring(0, prefix) + readString(in);
+				long lastModified = in.readLong();
+				directories.put(path, new DirectoryEntry(lastModified, readStrings(in), readStrings(in)));
+				previousPath = path;
+			}
+			index = new ScanIndex(baseDirAsString, includes, excludes, directories);
+		} catch (IOException ex) {
+			LOG.error("Unable to read scan index " + indexFile, ex); //$NON-NLS-1$
+			index = null;
+		} finally {
+			try {
+				if (in != null) {
+					in.close();
+				}
+			} catch (IOException ignore) {
+			}
+		}
+		if (index == null) {
+			indexFile.delete();
+		}
+		return index;
+	}
+
+	private static int commonPrefixLength(String s1, String s2) {
+		int max = Math.min(s1.length(), s2.length());
+		int i = 0;
+		while (i < max && s1.charAt(i) == s2.charAt(i)) {
+			i++;
+		}
+		return i;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+		out.writeInt(values.length);
+		for (String value : values) {
+			writeString(out, value);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > MAX_STRING_LENGTH) {
+			throw new IOException("Invalid string length " + length); //$NON-NLS-1$
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	private static String[] readStrings(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		if (size < 0) {
+			throw new IOException("Invalid array size " + size); //$NON-NLS-1$
+		}
+		String[] values = new String[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = readString(in);
+		}
+		return values;
+	}
+
+	/**
+	 * Listing of a directory at the time it was last modified.
+	 */
+	static class DirectoryEntry {
+
+		final long lastModified;
+
+		final String[] files;
+
+		final String[] directories;
+
+		DirectoryEntry(long lastModified, String[] files, String[] directories) {
+			this.lastModified = lastModified;
+			this.files = files;
+			this.directories = directories;
+		}
+	}
+}
@@ -23,5 +23,6 @@ public class OverlayPreferencesInitializer extends AbstractPreferenceInitializer
 public void initializeDefaultPreferences() {
     IEclipsePreferences store = ((IScopeContext) new DefaultScope()).getNode(OverlayPluginActivator.PLUGIN_ID);
     store.putBoolean(OverlayConstants.P_REPUBLISH_ON_PROJECT_CHANGE, true);
+    store.putLong(OverlayConstants.P_REPUBLISH_DELAY, OverlayConstants.DEFAULT_REPUBLISH_DELAY);
   }
 }
\ No newline at end of file
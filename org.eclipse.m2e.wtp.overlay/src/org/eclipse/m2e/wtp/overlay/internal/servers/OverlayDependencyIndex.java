@@ -0,0 +1,303 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.m2e.wtp.overlay.internal.servers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.m2e.wtp.overlay.internal.modulecore.OverlaySelfComponent;
+import org.eclipse.m2e.wtp.overlay.modulecore.IOverlayVirtualComponent;
+import org.eclipse.wst.common.componentcore.ComponentCore;
+import org.eclipse.wst.common.componentcore.ModuleCoreNature;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualReference;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
+import org.eclipse.wst.server.core.IServerLifecycleListener;
+import org.eclipse.wst.server.core.ServerCore;
+
+/**
+ * Reverse index of the overlay dependencies of the modules deployed on servers : for each overlaid project,
+ * the server modules consuming it.
+ * <br/>
+ * The modules of each server are indexed the first time they're needed, and again after a server is added
+ * or removed, or its modules changed. Projects no longer deployed on any server are then dropped from the index. The overlay references of a module project are indexed the first time they're needed,
+ * and again after the project is {@link #invalidate(IProject) invalidated}, i.e. after its <code>.component</code>
+ * file changed, or it was opened, closed or removed.
+ */
+public class OverlayDependencyIndex implements IServerLifecycleListener {
+
+	/**
+	 * Overlaid projects, per consuming project
+	 */
+	private final Map<IProject, ConsumerEntry> consumers = new HashMap<IProject, ConsumerEntry>();
+
+	/**
+	 * Consuming projects, per (non binary) overlaid project
+	 */
+	private final Map<IProject, Set<IProject>> overlayDependents = new HashMap<IProject, Set<IProject>>();
+
+	/**
+	 * Consuming projects, per project overlaying itself. Those need to be republished when the
+	 * <code>.component</code> file of the overlaid project changes.
+	 */
+	private final Map<IProject, Set<IProject>> selfOverlayDependents = new HashMap<IProject, Set<IProject>>();
+
+	/**
+	 * Server modules, per module project
+	 */
+	private Map<IProject, List<ServerModule>> serverModules;
+
+	/**
+	 * Modules of each server, when the server modules were indexed
+	 */
+	private Map<IServer, IModule[]> indexedModules;
+
+	private boolean listening;
+
+	/**
+	 * Returns the server modules depending on the given overlaid projects, grouped by server.
+	 *
+	 * @param changedProjects the changed, potentially overlaid, projects
+	 * @param changedComponents the projects which <code>.component</code> file changed
+	 */
+	public synchronized Map<IServer, List<IModule>> getDependentModules(Collection<IProject> changedProjects, Collection<IProject> changedComponents) {
+		Map<IProject, List<ServerModule>> modulesByProject = getServerModules();
+		if (modulesByProject.isEmpty()) {
+			return new HashMap<IServer, List<IModule>>(0);
+		}
+		indexConsumers(modulesByProject.keySet());
+
+		Set<IProject> dependents = new HashSet<IProject>();
+		for (IProject changedProject : changedProjects) {
+			addAll(dependents, overlayDependents.get(changedProject));
+		}
+		for (IProject changedComponent : changedComponents) {
+			addAll(dependents, selfOverlayDependents.get(changedComponent));
+		}
+
+		Map<IServer, List<IModule>> dependentModules = new LinkedHashMap<IServer, List<IModule>>();
+		for (IProject dependent : dependents) {
+			List<ServerModule> modules = modulesByProject.get(dependent);
+			if (modules == null) {
+				continue;
+			}
+			for (ServerModule serverModule : modules) {
+				List<IModule> republishableModules = dependentModules.get(serverModule.server);
+				if (republishableModules == null) {
+					republishableModules = new ArrayList<IModule>();
+					dependentModules.put(serverModule.server, republishableModules);
+				}
+				republishableModules.add(serverModule.module);
+			}
+		}
+		return dependentModules;
+	}
+
+	/**
+	 * Discards the indexed overlay references of a project. They will be read again on the next lookup.
+	 */
+	public synchronized void invalidate(IProject project) {
+		ConsumerEntry entry = consumers.remove(project);
+		if (entry != null) {
+			unindex(project, entry);
+		}
+	}
+
+	/**
+	 * Discards the indexed server modules. They will be read again on the next lookup.
+	 */
+	public synchronized void invalidateServers() {
+		serverModules = null;
+		indexedModules = null;
+	}
+
+	/**
+	 * Stops listening to server changes and clears the index.
+	 */
+	public synchronized void dispose() {
+		if (listening) {
+			ServerCore.removeServerLifecycleListener(this);
+			listening = false;
+		}
+		serverModules = null;
+		indexedModules = null;
+		consumers.clear();
+		overlayDependents.clear();
+		selfOverlayDependents.clear();
+	}
+
+	@Override
+	public void serverAdded(IServer server) {
+		invalidateServers();
+	}
+
+	@Override
+	public void serverChanged(IServer server) {
+		//Fired on every publish, most of the time the modules are unchanged
+		IModule[] modules = server.getModules();
+		synchronized (this) {
+			if (indexedModules != null && Arrays.equals(modules, indexedModules.get(server))) {
+				return;
+			}
+		}
+		invalidateServers();
+	}
+
+	@Override
+	public void serverRemoved(IServer server) {
+		invalidateServers();
+	}
+
+	private Map<IProject, List<ServerModule>> getServerModules() {
+		if (!listening) {
+			//Registered lazily, to not load the server definitions before they're needed
+			ServerCore.addServerLifecycleListener(this);
+			listening = true;
+		}
+		if (serverModules == null) {
+			Map<IProject, List<ServerModule>> modulesByProject = new HashMap<IProject, List<ServerModule>>();
+			Map<IServer, IModule[]> modulesByServer = new HashMap<IServer, IModule[]>();
+			for (IServer server : ServerCore.getServers()) {
+				IModule[] deployedModules = server.getModules();
+				modulesByServer.put(server, deployedModules);
+				for (IModule module : deployedModules) {
+					IProject moduleProject = module.getProject();
+					if (moduleProject == null) {
+						continue;
+					}
+					List<ServerModule> modules = modulesByProject.get(moduleProject);
+					if (modules == null) {
+						modules = new ArrayList<ServerModule>(1);
+						modulesByProject.put(moduleProject, modules);
+					}
+					modules.add(new ServerModule(server, module));
+				}
+			}
+			serverModules = modulesByProject;
+			indexedModules = modulesByServer;
+			pruneConsumers(modulesByProject.keySet());
+		}
+		return serverModules;
+	}
+
+	private void indexConsumers(Collection<IProject> moduleProjects) {
+		for (IProject moduleProject : moduleProjects) {
+			if (consumers.containsKey(moduleProject)) {
+				continue;
+			}
+			ConsumerEntry entry = readOverlays(moduleProject);
+			consumers.put(moduleProject, entry);
+			index(moduleProject, entry);
+		}
+	}
+
+	/**
+	 * Drops the overlay references of the projects no longer deployed on any server
+	 */
+	private void pruneConsumers(Set<IProject> moduleProjects) {
+		for (Iterator<Map.Entry<IProject, ConsumerEntry>> it = consumers.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<IProject, ConsumerEntry> e = it.next();
+			if (!moduleProjects.contains(e.getKey())) {
+				it.remove();
+				unindex(e.getKey(), e.getValue());
+			}
+		}
+	}
+
+	private static ConsumerEntry readOverlays(IProject projectDeployedOnServer) {
+		ConsumerEntry entry = new ConsumerEntry();
+		if (!projectDeployedOnServer.isAccessible() || !ModuleCoreNature.isFlexibleProject(projectDeployedOnServer)) {
+			return entry;
+		}
+		IVirtualComponent component = ComponentCore.createComponent(projectDeployedOnServer);
+		if (component == null) {
+			return entry;
+		}
+		IVirtualReference[] references = component.getReferences();
+		if (references == null) {
+			return entry;
+		}
+		for (IVirtualReference reference : references) {
+			IVirtualComponent vc = reference.getReferencedComponent();
+			if (vc instanceof IOverlayVirtualComponent) {
+				IProject overlaidProject = vc.getProject();
+				if (vc instanceof OverlaySelfComponent) {
+					entry.selfOverlays.add(overlaidProject);
+				} else if (!vc.isBinary()) {
+					entry.overlays.add(overlaidProject);
+				}
+			}
+		}
+		return entry;
+	}
+
+	private void index(IProject consumer, ConsumerEntry entry) {
+		for (IProject overlay : entry.overlays) {
+			getDependents(overlayDependents, overlay).add(consumer);
+		}
+		for (IProject overlay : entry.selfOverlays) {
+			getDependents(selfOverlayDependents, overlay).add(consumer);
+		}
+	}
+
+	private void unindex(IProject consumer, ConsumerEntry entry) {
+		for (IProject overlay : entry.overlays) {
+			removeDependent(overlayDependents, overlay, consumer);
+		}
+		for (IProject overlay : entry.selfOverlays) {
+			removeDependent(selfOverlayDependents, overlay, consumer);
+		}
+	}
+
+	private static Set<IProject> getDependents(Map<IProject, Set<IProject>> index, IProject overlay) {
+		Set<IProject> dependents = index.get(overlay);
+		if (dependents == null) {
+			dependents = new HashSet<IProject>(2);
+			index.put(overlay, dependents);
+		}
+		return dependents;
+	}
+
+	private static void removeDependent(Map<IProject, Set<IProject>> index, IProject overlay, IProject consumer) {
+		Set<IProject> dependents = index.get(overlay);
+		if (dependents != null && dependents.remove(consumer) && dependents.isEmpty()) {
+			index.remove(overlay);
+		}
+	}
+
+	private static void addAll(Set<IProject> dependents, Set<IProject> projects) {
+		if (projects != null) {
+			dependents.addAll(projects);
+		}
+	}
+
+	private static class ConsumerEntry {
+		final Set<IProject> overlays = new HashSet<IProject>(2);
+		final Set<IProject> selfOverlays = new HashSet<IProject>(1);
+	}
+
+	private static class ServerModule {
+		final IServer server;
+		final IModule module;
+
+		ServerModule(IServer server, IModule module) {
+			this.server = server;
+			this.module = module;
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.m2e.wtp.overlay.internal.servers;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.m2e.wtp.overlay.OverlayConstants;
+import org.eclipse.m2e.wtp.overlay.internal.Messages;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
+import org.eclipse.wst.server.core.IServerLifecycleListener;
+import org.eclipse.wst.server.core.ServerCore;
+import org.eclipse.wst.server.core.internal.Server;
+
+/**
+ * Republishes the servers which overlaid modules changed, asynchronously.
+ * <br/>
+ * The modules of a server are collected until no new change was reported for a quiet period
+ * (see {@link OverlayConstants#P_REPUBLISH_DELAY}), then published at once. Each server has its own job,
+ * so publishes to the same server never overlap : changes reported while a server is being published are
+ * published by a single follow-up run. Under a steady stream of changes, pending modules are published
+ * after at most {@link #MAX_DELAY_FACTOR} quiet periods. The job of a server is discarded when that server is removed.
+ */
+public class OverlayPublishScheduler implements IServerLifecycleListener {
+
+	/**
+	 * The family of the publish jobs.
+	 */
+	public static final Object FAMILY = OverlayPublishScheduler.class;
+
+	static final int MAX_DELAY_FACTOR = 10;
+
+	private final Map<IServer, ServerPublishJob> jobs = new HashMap<IServer, ServerPublishJob>();
+
+	private boolean disposed;
+
+	private boolean listening;
+
+	/**
+	 * Queues the republishing of modules.
+	 *
+	 * @param server the server to republish
+	 * @param modules the changed modules of that server
+	 * @param buildOccurred <code>true</code> if the change was caused by a build
+	 */
+	public synchronized void schedule(IServer server, Collection<IModule> modules, boolean buildOccurred) {
+		if (disposed) {
+			return;
+		}
+		if (!listening) {
+			ServerCore.addServerLifecycleListener(this);
+			listening = true;
+		}
+		ServerPublishJob job = jobs.get(server);
+		if (job == null) {
+			job = new ServerPublishJob(this, server);
+			jobs.put(server, job);
+		}
+		job.add(modules, buildOccurred, getQuietPeriod());
+	}
+
+	/**
+	 * Cancels the pending publishes. Changes reported afterwards are ignored.
+	 */
+	public synchronized void dispose() {
+		disposed = true;
+		if (listening) {
+			ServerCore.removeServerLifecycleListener(this);
+			listening = false;
+		}
+		for (ServerPublishJob job : jobs.values()) {
+			job.cancel();
+		}
+		jobs.clear();
+	}
+
+	@Override
+	public void serverAdded(IServer server) {
+		//Nothing to do
+	}
+
+	@Override
+	public void serverChanged(IServer server) {
+		//Nothing to do
+	}
+
+	@Override
+	public synchronized void serverRemoved(IServer server) {
+		ServerPublishJob job = jobs.remove(server);
+		if (job != null) {
+			job.cancel();
+		}
+	}
+
+	/**
+	 * Forgets the job of a server, unless it was replaced meanwhile.
+	 */
+	synchronized void remove(IServer server, ServerPublishJob job) {
+		if (jobs.get(server) == job) {
+			jobs.remove(server);
+		}
+	}
+
+	private static long getQuietPeriod() {
+		long delay = new InstanceScope().getNode(OverlayConstants.PLUGIN_ID)
+				.getLong(OverlayConstants.P_REPUBLISH_DELAY, OverlayConstants.DEFAULT_REPUBLISH_DELAY);
+		return Math.max(0, delay);
+	}
+
+	/**
+	 * Publishes the pending modules of a server.
+	 */
+	private static class ServerPublishJob extends Job {
+
+		private final OverlayPublishScheduler scheduler;
+
+		private final IServer server;
+
+		private final Set<IModule> pendingModules = new LinkedHashSet<IModule>();
+
+		private boolean pendingBuild;
+
+		private long firstChange;
+
+		private long lastChange;
+
+		private long quietPeriod;
+
+		ServerPublishJob(OverlayPublishScheduler scheduler, IServer server) {
+			super(NLS.bind(Messages.OverlayPublishScheduler_Publishing, server.getName()));
+			this.scheduler = scheduler;
+			this.server = server;
+			setSystem(true);
+		}
+
+		synchronized void add(Collection<IModule> modules, boolean buildOccurred, long delay) {
+			long now = System.currentTimeMillis();
+			if (pendingModules.isEmpty()) {
+				firstChange = now;
+			}
+			pendingModules.addAll(modules);
+			pendingBuild |= buildOccurred;
+			lastChange = now;
+			quietPeriod = delay;
+			//No effect if already waiting. If running, the job will run again once done.
+			schedule(delay);
+		}
+
+		@Override
+		public boolean belongsTo(Object family) {
+			return FAMILY == family;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			IModule[] modules;
+			boolean buildOccurred;
+			synchronized (this) {
+				if (pendingModules.isEmpty()) {
+					return Status.OK_STATUS;
+				}
+				long now = System.currentTimeMillis();
+				long remaining = lastChange + quietPeriod - now;
+				if (remaining > 0 && now - firstChange < quietPeriod * MAX_DELAY_FACTOR) {
+					//Changes are still coming, wait for things to settle down
+					schedule(remaining);
+					return Status.OK_STATUS;
+				}
+				modules = pendingModules.toArray(new IModule[pendingModules.size()]);
+				buildOccurred = pendingBuild;
+				pendingModules.clear();
+				pendingBuild = false;
+			}
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			if (ServerCore.findServer(server.getId()) == null) {
+				//Server was deleted meanwhile
+				scheduler.remove(server, this);
+				return Status.OK_STATUS;
+			}
+			publish(modules, buildOccurred, monitor);
+			return Status.OK_STATUS;
+		}
+
+		private void publish(IModule[] modules, boolean buildOccurred, IProgressMonitor monitor) {
+			boolean shouldPublish = true;
+			if (server instanceof Server) {
+				Server s = (Server) server;
+				s.setModulePublishState(modules, IServer.PUBLISH_STATE_INCREMENTAL);
+				int autoPublishSetting = s.getAutoPublishSetting();
+				shouldPublish = autoPublishSetting == Server.AUTO_PUBLISH_RESOURCE
+						|| (autoPublishSetting == Server.AUTO_PUBLISH_BUILD && buildOccurred);
+			}
+			if (shouldPublish && server.getServerState() == IServer.STATE_STARTED) {
+				server.publish(IServer.PUBLISH_INCREMENTAL, monitor);
+			}
+		}
+	}
+}
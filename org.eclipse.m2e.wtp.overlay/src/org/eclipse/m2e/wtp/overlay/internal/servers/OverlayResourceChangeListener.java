@@ -7,8 +7,6 @@
  *******************************************************************************/
 package org.eclipse.m2e.wtp.overlay.internal.servers;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -22,33 +20,54 @@ import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
-import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.m2e.wtp.overlay.OverlayConstants;
-import org.eclipse.m2e.wtp.overlay.internal.modulecore.OverlaySelfComponent;
-import org.eclipse.m2e.wtp.overlay.modulecore.IOverlayVirtualComponent;
-import org.eclipse.wst.common.componentcore.ComponentCore;
-import org.eclipse.wst.common.componentcore.ModuleCoreNature;
-import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
-import org.eclipse.wst.common.componentcore.resources.IVirtualReference;
 import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.IServer;
-import org.eclipse.wst.server.core.ServerCore;
-import org.eclipse.wst.server.core.internal.Server;
 
 /**
  * Listens to overlaid project changes to force server redeployment.
+ * The server modules to redeploy are looked up in an {@link OverlayDependencyIndex},
+ * then republished asynchronously by an {@link OverlayPublishScheduler}.
  * 
  * @author Fred Bricon
  *
  */
 public class OverlayResourceChangeListener implements IResourceChangeListener {
 
+	private static final IPath COMPONENT_FILE_PATH = new Path(".settings/org.eclipse.wst.common.component"); //$NON-NLS-1$
+
+	private static final int PROJECT_FLAGS = IResourceDelta.OPEN | IResourceDelta.REPLACED | IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO;
+
+	private final OverlayDependencyIndex dependencyIndex;
+
+	private final OverlayPublishScheduler publishScheduler;
+
+	public OverlayResourceChangeListener() {
+		this(new OverlayDependencyIndex(), new OverlayPublishScheduler());
+	}
+
+	public OverlayResourceChangeListener(OverlayDependencyIndex dependencyIndex, OverlayPublishScheduler publishScheduler) {
+		this.dependencyIndex = dependencyIndex;
+		this.publishScheduler = publishScheduler;
+	}
+
+	/**
+	 * Stops tracking the server changes and cancels the pending publishes.
+	 */
+	public void dispose() {
+		publishScheduler.dispose();
+		dependencyIndex.dispose();
+	}
+
 	@Override
 	public void resourceChanged(IResourceChangeEvent event) {
 		boolean isPublishOverlaysEnabled = isPublishOverlaysEnabled();
 		if (!isPublishOverlaysEnabled)
 		{
+			//Changes are not tracked meanwhile
+			dependencyIndex.dispose();
 			return;
 		}
 
@@ -57,12 +76,6 @@ public class OverlayResourceChangeListener implements IResourceChangeListener {
 			return;
 		}
 
-		IServer[] servers = ServerCore.getServers();
-		if (servers.length == 0) {
-			//No servers defined, so nothing to do
-			return;
-		}
-		
 		IResourceDelta[] projectDeltas = delta.getAffectedChildren();
 		if (projectDeltas == null || projectDeltas.length == 0) {
 			return;
@@ -70,50 +83,37 @@ public class OverlayResourceChangeListener implements IResourceChangeListener {
 	   
 		boolean buildOccurred = hasBuildOccurred(event);
 	   	
-		Set<IProject> changedProjects  = getChangedProjects(projectDeltas);
+		Set<IProject> changedProjects  = new HashSet<IProject>(projectDeltas.length);
+		Set<IProject> changedComponents  = new HashSet<IProject>();
+		for (IResourceDelta projectDelta : projectDeltas) {
+			IResource resource = projectDelta.getResource();
+			if (!(resource instanceof IProject)) {
+				continue;
+			}
+			IProject project = (IProject) resource;
+			changedProjects.add(project);
+			boolean componentChanged = projectDelta.findMember(COMPONENT_FILE_PATH) != null;
+			if (componentChanged) {
+				changedComponents.add(project);
+			}
+			if (componentChanged || projectDelta.getKind() != IResourceDelta.CHANGED
+					|| (projectDelta.getFlags() & PROJECT_FLAGS) != 0) {
+				//The overlays of that project need to be read again
+				dependencyIndex.invalidate(project);
+			}
+		}
 		if (changedProjects.isEmpty()) {
 			return;
 		}
 		
-		Map<IServer, List<IModule>> republishableServers = new HashMap<IServer, List<IModule>>(servers.length);
-		
-		for (IServer server : servers) {
-			modules : for (IModule module : server.getModules()) {
-				IProject moduleProject = module.getProject();
-				for (IProject changedProject : changedProjects) {
-					if (hasOverlayChanged(changedProject, moduleProject, delta)) {
-						List<IModule> republishableModules = republishableServers.get(server);
-						if (republishableModules == null) {
-							republishableModules = new ArrayList<IModule>(server.getModules().length);
-							republishableServers.put(server, republishableModules);
-						}
-						republishableModules.add(module);
-						break modules;
-					}
-				}
-			}
-		}
+		Map<IServer, List<IModule>> republishableServers = dependencyIndex.getDependentModules(changedProjects, changedComponents);
 		
 		if (republishableServers.isEmpty()) {
 			return;
 		}
 		
 		for(Map.Entry<IServer, List<IModule>> entries : republishableServers.entrySet()) {
-			IServer iserver = entries.getKey();
-			boolean shouldPublish = isPublishOverlaysEnabled;
-			if (iserver instanceof Server) {
-				Server server = ((Server)iserver);
-				List<IModule> modules = entries.getValue();
-				IModule[] mod = new IModule[modules.size()];
-				modules.toArray(mod);
-				server.setModulePublishState(mod, IServer.PUBLISH_STATE_INCREMENTAL);
-				int autoPublishSetting = server.getAutoPublishSetting(); 
-				shouldPublish = shouldPublish && (autoPublishSetting == Server.AUTO_PUBLISH_RESOURCE || 
-						                (autoPublishSetting == Server.AUTO_PUBLISH_BUILD && buildOccurred));
-			}
-			if (shouldPublish && iserver.getServerState() == IServer.STATE_STARTED) {
-				iserver.publish(IServer.PUBLISH_INCREMENTAL, new NullProgressMonitor());
-			} 
+			publishScheduler.schedule(entries.getKey(), entries.getValue(), buildOccurred);
 		}
 	}
 
@@ -123,55 +123,6 @@ public class OverlayResourceChangeListener implements IResourceChangeListener {
 	  return isEnabled;
 	}
 
-	private Set<IProject> getChangedProjects(IResourceDelta[] projectDeltas) {
-		Set<IProject> projects = new HashSet<IProject>();
-		if (projectDeltas != null) {
-			for (IResourceDelta delta : projectDeltas) {
-				IResource resource = delta.getResource();
-				if (resource != null && resource instanceof IProject) {
-					projects.add((IProject) resource);
-				}
-			}
-		}
-		return projects;
-	}
-	
-	/**
-	 * Return true if moduleProject references changedProject as an IOverlayComponent
-	 * @param changedProject
-	 * @param projectDeployedOnServer
-	 * @param delta 
-	 * @return true if moduleProject references changedProject as an IOverlayComponent
-	 */
-	private boolean hasOverlayChanged(IProject changedProject, IProject projectDeployedOnServer, IResourceDelta delta) {
-		if (!ModuleCoreNature.isFlexibleProject(projectDeployedOnServer)) {
-			return false; 
-		}
-		IVirtualComponent component = ComponentCore.createComponent(projectDeployedOnServer);
-		if (component == null) {
-			return false;
-		}
-		IVirtualReference[] references = component.getReferences();
-		if (references == null || references.length == 0) {
-			return false;
-		}
-		for (IVirtualReference reference : references) {
-			IVirtualComponent vc = reference.getReferencedComponent();
-			if (vc instanceof IOverlayVirtualComponent){
-			  IProject overlaidProject = vc.getProject(); 
-			  if (vc instanceof OverlaySelfComponent) {
-			    IPath componentFilePath = overlaidProject.getFile(".settings/org.eclipse.wst.common.component").getFullPath(); //$NON-NLS-1$
-			    if (delta.findMember(componentFilePath) != null) {
-			      return true;
-			    }
-			  } else if (!vc.isBinary() && overlaidProject.equals(changedProject)){
-			    return true;
-			  }
-			}
-		}
-		return false;
-	}
-
      private boolean hasBuildOccurred(IResourceChangeEvent event) {
     	 if (event == null) {
     		 return false;
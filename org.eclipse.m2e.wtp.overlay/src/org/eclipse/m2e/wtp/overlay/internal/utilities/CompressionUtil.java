@@ -13,17 +13,9 @@ package org.eclipse.m2e.wtp.overlay.internal.utilities;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.Enumeration;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
-import org.apache.tools.ant.util.FileUtils;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.m2e.wtp.overlay.internal.Messages;
 import org.eclipse.osgi.util.NLS;
 
@@ -37,12 +29,11 @@ import org.eclipse.osgi.util.NLS;
  */
 public class CompressionUtil {
 	
-	private final static int BUFFER = 1024*4;
-	
 	private CompressionUtil() {}
 
 	/**
-	 * Unzips the platform formatted zip file to specified folder
+	 * Unzips the platform formatted zip file to specified folder. 
+	 * Only new or modified entries are written, files not belonging to the archive are deleted.
 	 * 
 	 * @param zipFile
 	 *            The platform formatted zip file
@@ -57,65 +48,32 @@ public class CompressionUtil {
 	public static void unzip(File archive, File projectFolderFile,
 			IProgressMonitor monitor) throws IOException,
 			FileNotFoundException, InterruptedException {
+		unzip(archive, projectFolderFile, null, monitor);
+	}
 
-		initialize(projectFolderFile);
-		
-		ZipFile zipFile = new ZipFile(archive);
-		Enumeration<ZipEntry> e = (Enumeration<ZipEntry>) zipFile.entries();
+	/**
+	 * Unzips the entries of a zip file accepted by a filter to specified folder. 
+	 * Only new or modified entries are written, other files are deleted.
+	 * 
+	 * @param zipFile
+	 *            The platform formatted zip file
+	 * @param projectFolderFile
+	 *            The folder where to unzip the archive
+	 * @param filter
+	 *            The filter selecting the entries to unzip, <code>null</code> to unzip all entries
+	 * @param monitor
+	 *            Monitor to display progress and/or cancel operation
+	 * @throws IOException
+	 * @throws FileNotFoundException
+	 * @throws InterruptedException
+	 */
+	public static void unzip(File archive, File projectFolderFile, ZipExtractor.EntryFilter filter,
+			IProgressMonitor monitor) throws IOException,
+			FileNotFoundException, InterruptedException {
 
-		if (monitor == null) {
-			monitor = new NullProgressMonitor();
-		}
+		initialize(projectFolderFile);
 		
-		monitor.beginTask(Messages.CompressionUtil_Extracting_Task, zipFile.size());
-		try {
-			while (e.hasMoreElements()) {
-				ZipEntry zipEntry = (ZipEntry) e.nextElement();
-				File file = new File(projectFolderFile, zipEntry.getName());
-				
-				if (!zipEntry.isDirectory()) {
-					monitor.subTask(zipEntry.getName());
-								
-					File parentFile = file.getParentFile();
-					if (null != parentFile && !parentFile.exists()) {
-						parentFile.mkdirs();
-					}
-					
-					InputStream is = null;
-					OutputStream os = null;
-					
-					try {
-						is = zipFile.getInputStream(zipEntry);
-						os = new FileOutputStream(file);
-						
-						byte[] buffer = new byte[BUFFER];
-						while (true) {
-							int len = is.read(buffer);
-							if (len < 0)
-								break;
-							os.write(buffer, 0, len);
-						}
-					} finally {
-						FileUtils.close(is);
-						FileUtils.close(os);
-					}
-				}
-				
-				monitor.worked(1);
-				
-				if (monitor.isCanceled()) {
-					throw new InterruptedException(NLS.bind(Messages.CompressionUtil_Unzipping_Interrupted, archive.getAbsolutePath(), projectFolderFile.getAbsolutePath()));
-				}
-			}
-		} finally {
-			if (zipFile != null) {
-				try {
-					zipFile.close();
-				} catch (IOException ioe) {
-					//ignore
-				}
-			}
-		}
+		new ZipExtractor(archive, projectFolderFile, filter).extract(monitor);
 	}
 
 	private static void initialize(File outputDirectory) throws IOException {
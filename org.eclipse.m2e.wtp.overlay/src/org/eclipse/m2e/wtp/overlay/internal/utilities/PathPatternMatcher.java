@@ -0,0 +1,502 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.m2e.wtp.overlay.internal.utilities;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable matcher for a set of Ant-style inclusion and exclusion patterns.
+ * <br/>
+ * All patterns are compiled into a single segment-level automaton : patterns sharing the same
+ * prefix share the same states, literal segments are resolved with a hash lookup and
+ * <code>**</code> is handled as a state looping on any segment. A path is then evaluated
+ * against every pattern in one pass over its segments, instead of being tokenized and matched
+ * once per pattern. Matching semantics are the same as
+ * {@link org.apache.tools.ant.types.selectors.SelectorUtils#matchPath(String, String, boolean)}.
+ * <br/>
+ * Instances can be shared between threads without synchronization : the state sets used during
+ * evaluation are allocated once per thread, and reused by the following evaluations.
+ */
+public final class PathPatternMatcher {
+
+	private static final String DEEP_TREE_MATCH = "**"; //$NON-NLS-1$
+
+	private static final int INCLUDED = 1;
+
+	private static final int EXCLUDED = 2;
+
+	private final Node root;
+
+	private final int nodeCount;
+
+	private final boolean isCaseSensitive;
+
+	private final ThreadLocal<Scratch> scratches = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch(nodeCount);
+		}
+	};
+
+	private PathPatternMatcher(Node root, int nodeCount, boolean isCaseSensitive) {
+		this.root = root;
+		this.nodeCount = nodeCount;
+		this.isCaseSensitive = isCaseSensitive;
+	}
+
+	/**
+	 * Compiles inclusion and exclusion patterns into a new matcher.
+	 *
+	 * @param includes the inclusion patterns, may be <code>null</code>
+	 * @param excludes the exclusion patterns, may be <code>null</code>
+	 * @param isCaseSensitive whether segments are compared case sensitively
+	 * @return a new {@link PathPatternMatcher}, never <code>null</code>
+	 */
+	public static PathPatternMatcher compile(String[] includes, String[] excludes, boolean isCaseSensitive) {
+		Builder builder = new Builder(isCaseSensitive);
+		builder.add(includes, INCLUDED);
+		builder.add(excludes, EXCLUDED);
+		return builder.build();
+	}
+
+	/**
+	 * @return <code>true</code> if the path matches at least one inclusion pattern and no exclusion pattern.
+	 */
+	public boolean accepts(String path) {
+		if (path == null) {
+			return false;
+		}
+		return evaluate(path, INCLUDED | EXCLUDED) == INCLUDED;
+	}
+
+	/**
+	 * @return <code>true</code> if the path matches at least one inclusion pattern.
+	 */
+	public boolean isIncluded(String path) {
+		return path != null && (evaluate(path, INCLUDED) & INCLUDED) != 0;
+	}
+
+	/**
+	 * @return <code>true</code> if the path matches at least one exclusion pattern.
+	 */
+	public boolean isExcluded(String path) {
+		return path != null && (evaluate(path, EXCLUDED) & EXCLUDED) != 0;
+	}
+
+	/**
+	 * Runs the automaton over the path segments and returns the union of the accepted flags.
+	 * Evaluation stops as soon as the outcome for the <code>wanted</code> flags can't change anymore.
+	 */
+	private int evaluate(String path, int wanted) {
+		Scratch scratch = scratches.get();
+		Node[] current = scratch.current;
+		Node[] next = scratch.next;
+		int[] marks = scratch.marks;
+		int generation = scratch.nextGeneration(path.length() + 2);
+		int size = addClosure(root, current, 0, marks, generation);
+
+		int length = path.length();
+		int start = rootLength(path);
+		if (start > 0) {
+			generation++;
+			size = step(current, size, rootToken(path, start), next, marks, generation);
+			Node[] tmp = current; current = next; next = tmp;
+		}
+		while (start < length) {
+			int end = start;
+			while (end < length && !isSeparator(path.charAt(end))) {
+				end++;
+			}
+			if (end > start) {
+				int decided = decide(current, size, wanted);
+				if (decided >= 0) {
+					return decided;
+				}
+				generation++;
+				size = step(current, size, path.substring(start, end), next, marks, generation);
+				Node[] tmp = current; current = next; next = tmp;
+			}
+			start = end + 1;
+		}
+
+		int flags = 0;
+		for (int i = 0; i < size; i++) {
+			flags |= current[i].accept;
+		}
+		return flags;
+	}
+
+	/**
+	 * @return the final flags if they're already known from the active states, -1 otherwise.
+	 */
+	private static int decide(Node[] active, int size, int wanted) {
+		if (size == 0) {
+			return 0;
+		}
+		int reachable = 0;
+		for (int i = 0; i < size; i++) {
+			Node node = active[i];
+			if ((wanted & EXCLUDED) != 0 && node.deep && (node.accept & EXCLUDED) != 0) {
+				//Matched **/something/** : whatever follows, the path is excluded
+				return EXCLUDED;
+			}
+			reachable |= node.reachable;
+		}
+		//When checking for acceptance, the path is rejected as soon as no inclusion can match 
+		int required = (wanted & INCLUDED) != 0 ? INCLUDED : wanted;
+		if ((reachable & required) == 0) {
+			return 0;
+		}
+		return -1;
+	}
+
+	private int step(Node[] active, int size, String segment, Node[] next, int[] marks, int generation) {
+		int nextSize = 0;
+		String key = null;
+		for (int i = 0; i < size; i++) {
+			Node node = active[i];
+			if (node.deep) {
+				nextSize = addClosure(node, next, nextSize, marks, generation);
+			}
+			if (node.literals != null) {
+				if (key == null) {
+					key = isCaseSensitive ? segment : segment.toUpperCase(Locale.ENGLISH);
+				}
+				Node child = node.literals.get(key);
+				if (child != null) {
+					nextSize = addClosure(child, next, nextSize, marks, generation);
+				}
+			}
+			for (int j = 0; j < node.wildcards.length; j++) {
+				if (node.wildcards[j].matches(segment, isCaseSensitive)) {
+					nextSize = addClosure(node.wildcardTargets[j], next, nextSize, marks, generation);
+				}
+			}
+		}
+		return nextSize;
+	}
+
+	private static int addClosure(Node node, Node[] set, int size, int[] marks, int generation) {
+		while (node != null && marks[node.id] != generation) {
+			marks[node.id] = generation;
+			set[size++] = node;
+			// ** may match no segment at all
+			node = node.deepChild;
+		}
+		return size;
+	}
+
+	private static boolean isSeparator(char c) {
+		return c == '/' || c == '\\';
+	}
+
+	/**
+	 * Ant tokenizes absolute paths with their root (file separator or drive) as first token.
+	 *
+	 * @return the length of the root prefix of the path, 0 if the path is relative.
+	 */
+	private static int rootLength(String path) {
+		if (path.length() > 0 && isSeparator(path.charAt(0))) {
+			return 1;
+		}
+		if (File.separatorChar == '\\' && path.length() > 2 && path.charAt(1) == ':' && isSeparator(path.charAt(2))) {
+			return 3;
+		}
+		return 0;
+	}
+
+	private static String rootToken(String path, int rootLength) {
+		return rootLength == 1 ? File.separator : path.substring(0, rootLength - 1) + File.separator;
+	}
+
+	private static String[] tokenize(String pattern) {
+		List<String> tokens = new ArrayList<String>();
+		int start = rootLength(pattern);
+		if (start > 0) {
+			tokens.add(rootToken(pattern, start));
+		}
+		int length = pattern.length();
+		while (start < length) {
+			int end = start;
+			while (end < length && !isSeparator(pattern.charAt(end))) {
+				end++;
+			}
+			if (end > start) {
+				String token = pattern.substring(start, end);
+				// a/**/**/b is equivalent to a/**/b
+				if (!(DEEP_TREE_MATCH.equals(token) && !tokens.isEmpty() && DEEP_TREE_MATCH.equals(tokens.get(tokens.size() - 1)))) {
+					tokens.add(token);
+				}
+			}
+			start = end + 1;
+		}
+		return tokens.toArray(new String[tokens.size()]);
+	}
+
+	private static boolean hasWildcards(String segment) {
+		return segment.indexOf('*') > -1 || segment.indexOf('?') > -1;
+	}
+
+	/**
+	 * State sets of an evaluation, reused by the evaluations of the same thread.
+	 */
+	private static final class Scratch {
+
+		final Node[] current;
+
+		final Node[] next;
+
+		/** generation in which each state was last added to a set, so sets need no clearing */
+		final int[] marks;
+
+		private int generation;
+
+		Scratch(int nodeCount) {
+			current = new Node[nodeCount];
+			next = new Node[nodeCount];
+			marks = new int[nodeCount];
+		}
+
+		/**
+		 * @param steps an upper bound of the generations the evaluation will use
+		 * @return the first generation of a new evaluation, greater than any mark left by the previous ones
+		 */
+		int nextGeneration(int steps) {
+			if (generation > Integer.MAX_VALUE - steps) {
+				Arrays.fill(marks, 0);
+				generation = 0;
+			}
+			int first = generation + 1;
+			generation += steps;
+			return first;
+		}
+	}
+
+	/**
+	 * An automaton state, reached once a pattern prefix has been consumed.
+	 */
+	private static final class Node {
+
+		final int id;
+
+		/** true if this state was reached through <code>**</code>, i.e. loops on any segment */
+		final boolean deep;
+
+		Map<String, Node> literals;
+
+		SegmentPattern[] wildcards = new SegmentPattern[0];
+
+		Node[] wildcardTargets = new Node[0];
+
+		Node deepChild;
+
+		int accept;
+
+		int reachable;
+
+		Node(int id, boolean deep) {
+			this.id = id;
+			this.deep = deep;
+		}
+	}
+
+	/**
+	 * Matches a single path segment against a pattern containing <code>*</code> and/or <code>?</code>.
+	 */
+	private static final class SegmentPattern {
+
+		private final String pattern;
+
+		private final String prefix;
+
+		private final String suffix;
+
+		private final boolean matchesAll;
+
+		SegmentPattern(String pattern) {
+			this.pattern = pattern;
+			int first = firstWildcard(pattern);
+			int last = lastWildcard(pattern);
+			prefix = pattern.substring(0, first);
+			suffix = pattern.substring(last + 1);
+			boolean onlyStars = true;
+			for (int i = 0; i < pattern.length(); i++) {
+				if (pattern.charAt(i) != '*') {
+					onlyStars = false;
+					break;
+				}
+			}
+			matchesAll = onlyStars;
+		}
+
+		private static int firstWildcard(String s) {
+			for (int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				if (c == '*' || c == '?') {
+					return i;
+				}
+			}
+			return s.length();
+		}
+
+		private static int lastWildcard(String s) {
+			for (int i = s.length() - 1; i >= 0; i--) {
+				char c = s.charAt(i);
+				if (c == '*' || c == '?') {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		boolean matches(String str, boolean isCaseSensitive) {
+			if (matchesAll) {
+				return true;
+			}
+			if (!str.regionMatches(!isCaseSensitive, 0, prefix, 0, prefix.length())
+					|| !str.regionMatches(!isCaseSensitive, str.length() - suffix.length(), suffix, 0, suffix.length())) {
+				return false;
+			}
+			int p = 0;
+			int s = 0;
+			int star = -1;
+			int mark = 0;
+			int pLength = pattern.length();
+			int sLength = str.length();
+			while (s < sLength) {
+				if (p < pLength && pattern.charAt(p) == '*') {
+					star = p++;
+					mark = s;
+				} else if (p < pLength && (pattern.charAt(p) == '?' || same(pattern.charAt(p), str.charAt(s), isCaseSensitive))) {
+					p++;
+					s++;
+				} else if (star > -1) {
+					p = star + 1;
+					s = ++mark;
+				} else {
+					return false;
+				}
+			}
+			while (p < pLength && pattern.charAt(p) == '*') {
+				p++;
+			}
+			return p == pLength;
+		}
+
+		private static boolean same(char a, char b, boolean isCaseSensitive) {
+			if (a == b) {
+				return true;
+			}
+			return !isCaseSensitive && Character.toUpperCase(a) == Character.toUpperCase(b);
+		}
+	}
+
+	private static final class Builder {
+
+		private final boolean isCaseSensitive;
+
+		private final List<Node> nodes = new ArrayList<Node>();
+
+		private final Node root;
+
+		Builder(boolean isCaseSensitive) {
+			this.isCaseSensitive = isCaseSensitive;
+			root = newNode(false);
+		}
+
+		private Node newNode(boolean deep) {
+			Node node = new Node(nodes.size(), deep);
+			nodes.add(node);
+			return node;
+		}
+
+		void add(String[] patterns, int flag) {
+			if (patterns == null) {
+				return;
+			}
+			for (String pattern : patterns) {
+				if (pattern != null) {
+					addTokens(tokenize(pattern), flag);
+				}
+			}
+		}
+
+		private void addTokens(String[] tokens, int flag) {
+			Node node = root;
+			for (String token : tokens) {
+				if (DEEP_TREE_MATCH.equals(token)) {
+					if (node.deepChild == null) {
+						node.deepChild = newNode(true);
+					}
+					node = node.deepChild;
+				} else if (hasWildcards(token)) {
+					node = wildcardChild(node, token);
+				} else {
+					if (node.literals == null) {
+						node.literals = new HashMap<String, Node>();
+					}
+					String key = isCaseSensitive ? token : token.toUpperCase(Locale.ENGLISH);
+					Node child = node.literals.get(key);
+					if (child == null) {
+						child = newNode(false);
+						node.literals.put(key, child);
+					}
+					node = child;
+				}
+			}
+			node.accept |= flag;
+		}
+
+		private Node wildcardChild(Node node, String token) {
+			for (int i = 0; i < node.wildcards.length; i++) {
+				if (node.wildcards[i].pattern.equals(token)) {
+					return node.wildcardTargets[i];
+				}
+			}
+			int length = node.wildcards.length;
+			SegmentPattern[] wildcards = new SegmentPattern[length + 1];
+			Node[] targets = new Node[length + 1];
+			System.arraycopy(node.wildcards, 0, wildcards, 0, length);
+			System.arraycopy(node.wildcardTargets, 0, targets, 0, length);
+			Node child = newNode(false);
+			wildcards[length] = new SegmentPattern(token);
+			targets[length] = child;
+			node.wildcards = wildcards;
+			node.wildcardTargets = targets;
+			return child;
+		}
+
+		PathPatternMatcher build() {
+			computeReachable(root);
+			return new PathPatternMatcher(root, nodes.size(), isCaseSensitive);
+		}
+
+		private int computeReachable(Node node) {
+			int reachable = node.accept;
+			if (node.literals != null) {
+				for (Node child : node.literals.values()) {
+					reachable |= computeReachable(child);
+				}
+			}
+			for (Node child : node.wildcardTargets) {
+				reachable |= computeReachable(child);
+			}
+			if (node.deepChild != null) {
+				reachable |= computeReachable(node.deepChild);
+			}
+			node.reachable = reachable;
+			return reachable;
+		}
+	}
+}
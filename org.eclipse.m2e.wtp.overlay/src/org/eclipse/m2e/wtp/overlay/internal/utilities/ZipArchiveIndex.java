@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.m2e.wtp.overlay.internal.utilities;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Directory tree of a zip archive, read from its central directory, without extracting it.
+ * <br/>
+ * Indexes are shared : {@link #get(File)} returns the same index until the archive is modified. The underlying
+ * {@link ZipFile} is kept open to {@link #materialize(String, File) materialize} entries on demand, for the
+ * {@link #MAX_OPEN_ARCHIVES} most recently used archives only.
+ */
+public class ZipArchiveIndex {
+
+	static final int MAX_OPEN_ARCHIVES = 16;
+
+	/** File systems may only keep timestamps to the second */
+	private static final long TIME_TOLERANCE = 1000;
+
+	private static final Map<String, ZipArchiveIndex> INDEXES = new LinkedHashMap<String, ZipArchiveIndex>(MAX_OPEN_ARCHIVES, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ZipArchiveIndex> eldest) {
+			if (size() > MAX_OPEN_ARCHIVES) {
+				//Still usable by its current holders, the archive will be reopened if needed
+				eldest.getValue().close();
+				return true;
+			}
+			return false;
+		}
+	};
+
+	private final File archive;
+
+	private final long length;
+
+	private final long lastModified;
+
+	/**
+	 * Directories, by path relative to the archive root, using '/' separators. The root directory path is "".
+	 */
+	private final Map<String, Directory> directories;
+
+	private ZipFile zipFile;
+
+	/**
+	 * @return the index of the archive, read again if the archive was modified since last indexed.
+	 */
+	public static ZipArchiveIndex get(File archive) throws IOException {
+		String key = archive.getAbsolutePath();
+		synchronized (INDEXES) {
+			ZipArchiveIndex index = INDEXES.get(key);
+			if (index != null && !index.isStale()) {
+				return index;
+			}
+			if (index != null) {
+				index.close();
+			}
+			index = new ZipArchiveIndex(archive);
+			INDEXES.put(key, index);
+			return index;
+		}
+	}
+
+	/**
+	 * Closes all the open archives.
+	 */
+	public static void closeAll() {
+		synchronized (INDEXES) {
+			for (Iterator<ZipArchiveIndex> it = INDEXES.values().iterator(); it.hasNext();) {
+				it.next().close();
+				it.remove();
+			}
+		}
+	}
+
+	private ZipArchiveIndex(File archive) throws IOException {
+		this.archive = archive;
+		this.length = archive.length();
+		this.lastModified = archive.lastModified();
+		this.zipFile = new ZipFile(archive);
+		this.directories = readDirectories(zipFile);
+	}
+
+	private static Map<String, Directory> readDirectories(ZipFile zipFile) {
+		Map<String, Directory> directories = new HashMap<String, Directory>();
+		directories.put("", new Directory()); //$NON-NLS-1$
+		Enumeration<? extends ZipEntry> entries = zipFile.entries();
+		while (entries.hasMoreElements()) {
+			ZipEntry entry = entries.nextElement();
+			String name = ZipExtractor.normalize(entry.getName());
+			if (name == null) {
+				continue;
+			}
+			if (entry.isDirectory()) {
+				getDirectory(directories, name);
+			} else {
+				int lastSlash = name.lastIndexOf('/');
+				Directory parent = lastSlash < 0 ? directories.get("") : getDirectory(directories, name.substring(0, lastSlash)); //$NON-NLS-1$
+				String fileName = name.substring(lastSlash + 1);
+				//First entry wins, as when extracting
+				if (!parent.files.containsKey(fileName)) {
+					parent.files.put(fileName, entry);
+				}
+			}
+		}
+		return directories;
+	}
+
+	/**
+	 * Gets a directory, creating it and its missing parents : archives don't necessarily have directory entries.
+	 */
+	private static Directory getDirectory(Map<String, Directory> directories, String path) {
+		Directory directory = directories.get(path);
+		if (directory == null) {
+			directory = new Directory();
+			directories.put(path, directory);
+			int lastSlash = path.lastIndexOf('/');
+			String parentPath = lastSlash < 0 ? "" : path.substring(0, lastSlash); //$NON-NLS-1$
+			getDirectory(directories, parentPath).directories.add(path.substring(lastSlash + 1));
+		}
+		return directory;
+	}
+
+	public File getArchive() {
+		return archive;
+	}
+
+	/**
+	 * @return <code>true</code> if the archive was modified or deleted since it was indexed
+	 */
+	public boolean isStale() {
+		return archive.lastModified() != lastModified || archive.length() != length;
+	}
+
+	/**
+	 * @return the directory at the given path, using '/' separators, or <code>null</code> if it doesn't exist.
+	 */
+	public Directory getDirectory(String path) {
+		return directories.get(path);
+	}
+
+	/**
+	 * @return all the directories, by path
+	 */
+	public Map<String, Directory> getDirectories() {
+		return Collections.unmodifiableMap(directories);
+	}
+
+	/**
+	 * Extracts an entry, unless it was already extracted.
+	 *
+	 * @param path the entry path, using '/' separators
+	 * @param outputDirectory the directory to extract the entry to
+	 * @return the extracted file
+	 * @throws IOException if the entry doesn't exist or can't be extracted
+	 */
+	public synchronized File materialize(String path, File outputDirectory) throws IOException {
+		int lastSlash = path.lastIndexOf('/');
+		Directory parent = directories.get(lastSlash < 0 ? "" : path.substring(0, lastSlash)); //$NON-NLS-1$
+		ZipEntry entry = parent == null ? null : parent.files.get(path.substring(lastSlash + 1));
+		if (entry == null) {
+			throw new IOException(path + " not found in " + archive); //$NON-NLS-1$
+		}
+		File file = new File(outputDirectory, path);
+		if (isUpToDate(entry, file)) {
+			return file;
+		}
+		File parentFile = file.getParentFile();
+		if (!parentFile.isDirectory() && !parentFile.mkdirs()) {
+			throw new IOException("Unable to create " + parentFile); //$NON-NLS-1$
+		}
+		if (zipFile == null) {
+			zipFile = new ZipFile(archive);
+		}
+		//Written aside then renamed, so readers never see a partial file
+		File tmp = new File(parentFile, file.getName() + ".tmp"); //$NON-NLS-1$
+		InputStream is = zipFile.getInputStream(entry);
+		try {
+			OutputStream os = new FileOutputStream(tmp);
+			try {
+				byte[] buffer = new byte[64 * 1024];
+				int len;
+				while ((len = is.read(buffer)) > -1) {
+					os.write(buffer, 0, len);
+				}
+			} finally {
+				os.close();
+			}
+		} finally {
+			is.close();
+		}
+		if (entry.getTime() != -1) {
+			tmp.setLastModified(entry.getTime());
+		}
+		if (!tmp.renameTo(file)) {
+			file.delete();
+			if (!tmp.renameTo(file)) {
+				tmp.delete();
+				throw new IOException("Unable to write " + file); //$NON-NLS-1$
+			}
+		}
+		return file;
+	}
+
+	private static boolean isUpToDate(ZipEntry entry, File file) {
+		if (!file.isFile()) {
+			return false;
+		}
+		long size = entry.getSize();
+		long time = entry.getTime();
+		return size >= 0 && file.length() == size && time != -1 && Math.abs(file.lastModified() - time) < TIME_TOLERANCE;
+	}
+
+	/**
+	 * Closes the underlying archive. It will be opened again if an entry needs to be materialized.
+	 */
+	public synchronized void close() {
+		if (zipFile != null) {
+			try {
+				zipFile.close();
+			} catch (IOException ignore) {
+			}
+			zipFile = null;
+		}
+	}
+
+	/**
+	 * Content of an archive directory.
+	 */
+	public static class Directory {
+
+		/**
+		 * Names of the sub directories
+		 */
+		public final Set<String> directories = new LinkedHashSet<String>();
+
+		/**
+		 * File entries, by name
+		 */
+		public final Map<String, ZipEntry> files = new LinkedHashMap<String, ZipEntry>();
+	}
+}
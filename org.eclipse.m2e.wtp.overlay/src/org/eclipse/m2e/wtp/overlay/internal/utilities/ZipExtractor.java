@@ -0,0 +1,363 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.m2e.wtp.overlay.internal.utilities;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.m2e.wtp.overlay.internal.Messages;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Incrementally synchronizes a directory with the content of a zip archive.
+ * <br/>
+ * Files already matching their archive entry (same size and time, or same CRC) are left untouched,
+ * new or modified entries are extracted in parallel and files not belonging to the archive anymore are deleted.
+ * Re-extracting an archive in which a single entry changed only rewrites that entry.
+ */
+public class ZipExtractor {
+
+	/**
+	 * Decides which archive entries are extracted.
+	 */
+	public interface EntryFilter {
+		boolean accept(ZipEntry entry);
+	}
+
+	private static final int BUFFER = 64 * 1024;
+
+	/** Below this number of entries to write, extraction is done in the calling thread */
+	private static final int PARALLEL_THRESHOLD = 16;
+
+	/** File systems may only keep timestamps to the second */
+	private static final long TIME_TOLERANCE = 1000;
+
+	private static final int MAX_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	private static final ThreadPoolExecutor EXECUTOR;
+
+	static {
+		EXECUTOR = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "m2e-wtp archive extractor " + count.incrementAndGet()); //$NON-NLS-1$
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		EXECUTOR.allowCoreThreadTimeOut(true);
+	}
+
+	private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<byte[]>() {
+		@Override
+		protected byte[] initialValue() {
+			return new byte[BUFFER];
+		}
+	};
+
+	private final File archive;
+
+	private final File outputDirectory;
+
+	private final EntryFilter filter;
+
+	/**
+	 * @param archive the zip archive to extract
+	 * @param outputDirectory the directory to synchronize with the archive content
+	 * @param filter the filter selecting the entries to extract, <code>null</code> to extract all entries
+	 */
+	public ZipExtractor(File archive, File outputDirectory, EntryFilter filter) {
+		this.archive = archive;
+		this.outputDirectory = outputDirectory;
+		this.filter = filter;
+	}
+
+	/**
+	 * Synchronizes the output directory with the archive.
+	 *
+	 * @return the number of files written or deleted
+	 */
+	public int extract(IProgressMonitor monitor) throws IOException, InterruptedException {
+		if (monitor == null) {
+			monitor = new NullProgressMonitor();
+		}
+		ZipFile zipFile = new ZipFile(archive);
+		try {
+			monitor.beginTask(Messages.CompressionUtil_Extracting_Task, zipFile.size() + 1);
+			Set<String> expectedFiles = new HashSet<String>(zipFile.size());
+			Set<String> expectedDirectories = new HashSet<String>();
+			List<ZipEntry> modifiedEntries = new ArrayList<ZipEntry>();
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				String name = normalize(entry.getName());
+				if (name == null || (filter != null && !filter.accept(entry))) {
+					monitor.worked(1);
+					continue;
+				}
+				File file = new File(outputDirectory, name);
+				if (entry.isDirectory()) {
+					addDirectory(name, expectedDirectories);
+					if (!file.isDirectory()) {
+						file.mkdirs();
+					}
+					monitor.worked(1);
+					continue;
+				}
+				expectedFiles.add(name);
+				int lastSlash = name.lastIndexOf('/');
+				if (lastSlash > 0) {
+					addDirectory(name.substring(0, lastSlash), expectedDirectories);
+				}
+				if (isUpToDate(zipFile, entry, file)) {
+					monitor.worked(1);
+				} else {
+					File parent = file.getParentFile();
+					if (parent != null && !parent.isDirectory()) {
+						parent.mkdirs();
+					}
+					modifiedEntries.add(entry);
+				}
+				checkCanceled(monitor);
+			}
+
+			write(zipFile, modifiedEntries, monitor);
+
+			monitor.subTask(""); //$NON-NLS-1$
+			int deleted = deleteStaleFiles(outputDirectory, "", expectedFiles, expectedDirectories); //$NON-NLS-1$
+			monitor.worked(1);
+			return modifiedEntries.size() + deleted;
+		} finally {
+			try {
+				zipFile.close();
+			} catch (IOException ioe) {
+				//ignore
+			}
+			monitor.done();
+		}
+	}
+
+	private void write(final ZipFile zipFile, List<ZipEntry> modifiedEntries, IProgressMonitor monitor) throws IOException, InterruptedException {
+		if (modifiedEntries.size() < PARALLEL_THRESHOLD) {
+			for (ZipEntry entry : modifiedEntries) {
+				monitor.subTask(entry.getName());
+				writeEntry(zipFile, entry);
+				monitor.worked(1);
+				checkCanceled(monitor);
+			}
+			return;
+		}
+		CompletionService<ZipEntry> completionService = new ExecutorCompletionService<ZipEntry>(EXECUTOR);
+		List<Future<ZipEntry>> futures = new ArrayList<Future<ZipEntry>>(modifiedEntries.size());
+		for (final ZipEntry entry : modifiedEntries) {
+			futures.add(completionService.submit(new Callable<ZipEntry>() {
+				public ZipEntry call() throws IOException {
+					writeEntry(zipFile, entry);
+					return entry;
+				}
+			}));
+		}
+		try {
+			//Progress is reported from the calling thread only, as monitors are not thread-safe
+			for (int i = 0; i < futures.size(); i++) {
+				ZipEntry entry = completionService.take().get();
+				monitor.subTask(entry.getName());
+				monitor.worked(1);
+				checkCanceled(monitor);
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause == null ? e.getMessage() : cause.getMessage());
+		} finally {
+			for (Future<ZipEntry> future : futures) {
+				future.cancel(false);
+			}
+			//Don't let the archive be closed while entries are still being written
+			for (Future<ZipEntry> future : futures) {
+				if (!future.isCancelled()) {
+					try {
+						future.get();
+					} catch (Exception ignore) {
+					}
+				}
+			}
+		}
+	}
+
+	private void checkCanceled(IProgressMonitor monitor) throws InterruptedException {
+		if (monitor.isCanceled()) {
+			throw new InterruptedException(NLS.bind(Messages.CompressionUtil_Unzipping_Interrupted, archive.getAbsolutePath(), outputDirectory.getAbsolutePath()));
+		}
+	}
+
+	private void writeEntry(ZipFile zipFile, ZipEntry entry) throws IOException {
+		File file = new File(outputDirectory, normalize(entry.getName()));
+		byte[] buffer = BUFFERS.get();
+		InputStream is = null;
+		OutputStream os = null;
+		try {
+			is = zipFile.getInputStream(entry);
+			os = new FileOutputStream(file);
+			int len;
+			while ((len = is.read(buffer)) > -1) {
+				os.write(buffer, 0, len);
+			}
+		} finally {
+			if (is != null) {
+				try {
+					is.close();
+				} catch (IOException ignore) {
+				}
+			}
+			if (os != null) {
+				os.close();
+			}
+		}
+		if (entry.getTime() != -1) {
+			file.setLastModified(entry.getTime());
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the file has the same content as the archive entry
+	 */
+	private static boolean isUpToDate(ZipFile zipFile, ZipEntry entry, File file) throws IOException {
+		if (!file.isFile()) {
+			return false;
+		}
+		long size = entry.getSize();
+		if (size < 0 || file.length() != size) {
+			return false;
+		}
+		long time = entry.getTime();
+		if (time != -1 && Math.abs(file.lastModified() - time) < TIME_TOLERANCE) {
+			return true;
+		}
+		long crc = entry.getCrc();
+		if (crc == -1 || crc != checksum(file)) {
+			return false;
+		}
+		//Same content, align the timestamp so the next check is faster
+		if (time != -1) {
+			file.setLastModified(time);
+		}
+		return true;
+	}
+
+	private static long checksum(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = BUFFERS.get();
+		InputStream is = new FileInputStream(file);
+		try {
+			int len;
+			while ((len = is.read(buffer)) > -1) {
+				crc.update(buffer, 0, len);
+			}
+		} finally {
+			is.close();
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Deletes files and directories under dir not belonging to the archive.
+	 *
+	 * @return the number of deleted files
+	 */
+	private static int deleteStaleFiles(File dir, String relativePath, Set<String> expectedFiles, Set<String> expectedDirectories) {
+		File[] children = dir.listFiles();
+		if (children == null) {
+			return 0;
+		}
+		int deleted = 0;
+		for (File child : children) {
+			String path = relativePath + child.getName();
+			if (isSymbolicLink(child)) {
+				//Never follow links, only the link itself is deleted when it's stale
+				if (!expectedFiles.contains(path) && !expectedDirectories.contains(path) && child.delete()) {
+					deleted++;
+				}
+			} else if (child.isDirectory()) {
+				deleted += deleteStaleFiles(child, path + "/", expectedFiles, expectedDirectories); //$NON-NLS-1$
+				if (!expectedDirectories.contains(path)) {
+					child.delete();
+				}
+			} else if (!expectedFiles.contains(path) && child.delete()) {
+				deleted++;
+			}
+		}
+		return deleted;
+	}
+
+	/**
+	 * @return true if the file is a symbolic link, i.e. its name, in its canonical parent directory, doesn't
+	 * resolve to itself.
+	 */
+	private static boolean isSymbolicLink(File file) {
+		try {
+			File fileInCanonicalDir = new File(file.getParentFile().getCanonicalFile(), file.getName());
+			return !fileInCanonicalDir.getCanonicalFile().equals(fileInCanonicalDir.getAbsoluteFile());
+		} catch (IOException e) {
+			//Don't risk following it
+			return true;
+		}
+	}
+
+	private static void addDirectory(String path, Set<String> directories) {
+		while (path.length() > 0 && directories.add(path)) {
+			int lastSlash = path.lastIndexOf('/');
+			path = lastSlash > 0 ? path.substring(0, lastSlash) : ""; //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * @return the entry name using '/' separators, without leading or trailing separators,
+	 * or <code>null</code> if the entry would be extracted outside of the output directory.
+	 */
+	static String normalize(String entryName) {
+		String name = entryName.replace('\\', '/');
+		while (name.startsWith("/")) { //$NON-NLS-1$
+			name = name.substring(1);
+		}
+		while (name.endsWith("/")) { //$NON-NLS-1$
+			name = name.substring(0, name.length() - 1);
+		}
+		if (name.length() == 0 || name.equals("..") || name.startsWith("../") || name.contains("/../") || name.endsWith("/..")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			return null;
+		}
+		return name;
+	}
+}
@@ -161,7 +161,7 @@ public void configureProject(IProject project, MavenProject mavenProject, IProgr
       ResourceCleaner fileCleaner = new ResourceCleaner(project);
       try {
         addFoldersToClean(fileCleaner, facade);
-        facetedProject.modify(actions, monitor);      
+        WTPProjectsUtil.installFacets(facetedProject, actions, monitor);      
       } finally {
         //Remove any unwanted MANIFEST.MF the Facet installation has created
         fileCleaner.cleanUp();
@@ -309,12 +309,29 @@ public void configureProject(IProject project, MavenProject mavenProject, IProgr
    * @throws CoreException
    */
   protected void linkFileFirst(IProject project, String sourceFile, String targetRuntimePath, IProgressMonitor monitor) throws CoreException {
+      ComponentLinksTransaction links = ComponentLinksTransaction.open(project);
+      try {
+        linkFileFirst(links, sourceFile, targetRuntimePath);
+        links.commit(monitor);
+      } finally {
+        links.dispose();
+      }
+  }
+
+  /**
+   * Link a project's file to a specific deployment destination, as part of a pending {@link ComponentLinksTransaction}.
+   * Existing links will be deleted beforehand.
+   * @param links the transaction to apply the changes to
+   * @param sourceFile the existing file to deploy
+   * @param targetRuntimePath the target runtime/deployment location of the file
+   */
+  protected void linkFileFirst(ComponentLinksTransaction links, String sourceFile, String targetRuntimePath) {
       IPath runtimePath = new Path(targetRuntimePath);
       //We first delete any existing links
-      WTPProjectsUtil.deleteLinks(project, runtimePath, monitor);
+      links.deleteLinks(runtimePath, null);
       if (sourceFile != null) {
         //Create the new link
-        WTPProjectsUtil.insertLinkFirst(project, new Path(sourceFile), new Path(targetRuntimePath), monitor);
+        links.insertLinkFirst(new Path(sourceFile), runtimePath);
       }
   }
 
@@ -72,7 +72,7 @@ protected void configure(IProject project, MavenProject mavenProject, IProgressM
       try {
         addFoldersToClean(fileCleaner, facade);
         
-        facetedProject.modify(actions, monitor);
+        WTPProjectsUtil.installFacets(facetedProject, actions, monitor);
       } finally {
         //Remove any unwanted MANIFEST.MF the Facet installation has created
         fileCleaner.cleanUp();
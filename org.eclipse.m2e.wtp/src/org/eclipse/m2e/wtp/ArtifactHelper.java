@@ -107,6 +107,9 @@ public class ArtifactHelper {
 	  }
   }
   
+  /**
+   * Looks up an artifact by key. For repeated lookups in the same set of artifacts, use an {@link ArtifactIndex}.
+   */
   public static Artifact getArtifact(Collection<Artifact> artifacts, ArtifactKey key) {
     if (artifacts == null || key == null || artifacts.isEmpty()) {
       return null;
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.m2e.core.MavenPlugin;
+import org.eclipse.m2e.core.embedder.ArtifactKey;
+import org.eclipse.m2e.core.project.IMavenProjectFacade;
+
+/**
+ * Hashed index of a project's resolved artifacts, by groupId:artifactId:baseVersion:classifier.
+ * <br/>
+ * Indexes are cached as session properties of the project facade, so all the configurators working on the same
+ * project during a configuration cycle share the same index. A cached index is only reused as long as the
+ * {@link MavenProject} artifacts it was built from are.
+ *
+ * @provisional This class has been added as part of a work in progress.
+ * It is not guaranteed to work or remain the same in future releases.
+ * For more information contact <a href="mailto:m2e-wtp-dev@eclipse.org">m2e-wtp-dev@eclipse.org</a>.
+ */
+public class ArtifactIndex {
+
+  private static final String SESSION_PROPERTY = ArtifactIndex.class.getName();
+
+  private final Collection<Artifact> artifacts;
+
+  private final Map<ArtifactKey, Artifact> artifactsByKey;
+
+  private ArtifactIndex(Collection<Artifact> artifacts) {
+    this.artifacts = artifacts;
+    int size = artifacts == null ? 0 : artifacts.size();
+    artifactsByKey = new HashMap<ArtifactKey, Artifact>(size * 4 / 3 + 1);
+    if (artifacts == null) {
+      return;
+    }
+    for (Artifact a : artifacts) {
+      ArtifactKey key = ArtifactHelper.toArtifactKey(a);
+      //First artifact wins, as with a linear lookup
+      if (!artifactsByKey.containsKey(key)) {
+        artifactsByKey.put(key, a);
+      }
+    }
+  }
+
+  /**
+   * Creates a new, uncached, index.
+   */
+  public static ArtifactIndex create(Collection<Artifact> artifacts) {
+    return new ArtifactIndex(artifacts);
+  }
+
+  /**
+   * Returns the index of the resolved artifacts of a Maven project, shared via the session of the project's facade.
+   *
+   * @param project the workspace project
+   * @param mavenProject the Maven project of the workspace project
+   */
+  public static ArtifactIndex getArtifactIndex(IProject project, MavenProject mavenProject) {
+    IMavenProjectFacade facade = project == null ? null : MavenPlugin.getMavenProjectRegistry().getProject(project);
+    return getArtifactIndex(facade, mavenProject);
+  }
+
+  /**
+   * Returns the index of the resolved artifacts of a Maven project, shared via the session of the project's facade.
+   *
+   * @param facade the project facade, used as cache. Can be <code>null</code>.
+   * @param mavenProject the Maven project of the facade
+   */
+  public static ArtifactIndex getArtifactIndex(IMavenProjectFacade facade, MavenProject mavenProject) {
+    Collection<Artifact> artifacts = mavenProject.getArtifacts();
+    if (facade == null) {
+      return create(artifacts);
+    }
+    Object cached = facade.getSessionProperty(SESSION_PROPERTY);
+    if (cached instanceof ArtifactIndex && ((ArtifactIndex)cached).artifacts == artifacts) {
+      return (ArtifactIndex)cached;
+    }
+    ArtifactIndex index = create(artifacts);
+    facade.setSessionProperty(SESSION_PROPERTY, index);
+    return index;
+  }
+
+  /**
+   * @return the artifact matching the key, or <code>null</code>
+   * @see ArtifactHelper#getArtifact(Collection, ArtifactKey)
+   */
+  public Artifact getArtifact(ArtifactKey key) {
+    return key == null ? null : artifactsByKey.get(key);
+  }
+}
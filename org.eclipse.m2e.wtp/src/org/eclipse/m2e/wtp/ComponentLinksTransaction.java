@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.m2e.wtp.overlay.LinkedOverlaysConstants;
+import org.eclipse.wst.common.componentcore.internal.ComponentResource;
+import org.eclipse.wst.common.componentcore.internal.StructureEdit;
+import org.eclipse.wst.common.componentcore.internal.WorkbenchComponent;
+
+/**
+ * Batches link operations on a project's <code>.settings/org.eclipse.wst.common.component</code> file.
+ * <br/>
+ * The component model is opened once, all operations are applied to the in-memory model and
+ * {@link #commit(IProgressMonitor)} saves it only if the resulting links differ from the original ones.
+ * Other means of modifying the component (virtual component API, references...) should not be used
+ * while a transaction is open on the same project.
+ *
+ * <pre>
+ * ComponentLinksTransaction links = ComponentLinksTransaction.open(project);
+ * try {
+ *   ...
+ *   links.commit(monitor);
+ * } finally {
+ *   links.dispose();
+ * }
+ * </pre>
+ *
+ * @provisional This class has been added as part of a work in progress.
+ * It is not guaranteed to work or remain the same in future releases.
+ * For more information contact <a href="mailto:m2e-wtp-dev@eclipse.org">m2e-wtp-dev@eclipse.org</a>.
+ */
+@SuppressWarnings("restriction")
+public class ComponentLinksTransaction {
+
+  private final IProject project;
+
+  private StructureEdit moduleCore;
+
+  private final WorkbenchComponent component;
+
+  private final List<String> initialState;
+
+  private ComponentLinksTransaction(IProject project, StructureEdit moduleCore) {
+    this.project = project;
+    this.moduleCore = moduleCore;
+    this.component = moduleCore == null ? null : moduleCore.getComponent();
+    this.initialState = snapshot();
+  }
+
+  /**
+   * Opens the component model of a project for write.
+   *
+   * @param project - the project to modify
+   * @return a new transaction, to be {@link #dispose() disposed} after use.
+   */
+  public static ComponentLinksTransaction open(IProject project) {
+    return new ComponentLinksTransaction(project, StructureEdit.getStructureEditForWrite(project));
+  }
+
+  /**
+   * @return the underlying component, or <code>null</code> if the project has no component.
+   * Direct changes to its resources are taken into account when committing.
+   */
+  public WorkbenchComponent getComponent() {
+    return component;
+  }
+
+  /**
+   * Creates a new, unattached, component resource for the given project relative folder.
+   */
+  public ComponentResource createResource(IPath source, IPath runtimePath) {
+    IResource folder = project.getFolder(source);
+    ComponentResource componentResource = moduleCore.createWorkbenchModuleResource(folder);
+    componentResource.setRuntimePath(runtimePath);
+    return componentResource;
+  }
+
+  /**
+   * @see WTPProjectsUtil#hasLink(IProject, IPath, IPath, IProgressMonitor)
+   */
+  public boolean hasLink(IPath runtimePath, IPath aProjectRelativeLocation) {
+    return indexOf(aProjectRelativeLocation.makeAbsolute(), runtimePath) > -1;
+  }
+
+  /**
+   * Appends a link, unless it already exists.
+   */
+  public void addLink(IPath source, IPath runtimePath) {
+    if (component == null || hasLink(runtimePath, source)) {
+      return;
+    }
+    getResources().add(createResource(source, runtimePath));
+  }
+
+  /**
+   * Removes the links between a source folder and a runtime path.
+   */
+  public void deleteLink(IPath source, IPath runtimePath) {
+    if (component == null) {
+      return;
+    }
+    IPath sourcePath = source.makeAbsolute();
+    for (Iterator<ComponentResource> ite = getResources().iterator(); ite.hasNext();) {
+      ComponentResource link = ite.next();
+      if (runtimePath.equals(link.getRuntimePath()) && sourcePath.equals(link.getSourcePath())) {
+        ite.remove();
+      }
+    }
+  }
+
+  /**
+   * @see WTPProjectsUtil#deleteLinks(IProject, IPath, List, IProgressMonitor)
+   */
+  public void deleteLinks(IPath runtimePath, List<IPath> sourcePathToKeep) {
+    if (component == null) {
+      return;
+    }
+    for (Iterator<ComponentResource> ite = getResources().iterator(); ite.hasNext();) {
+      ComponentResource link = ite.next();
+      if (runtimePath.equals(link.getRuntimePath()) &&
+         (sourcePathToKeep == null || !sourcePathToKeep.contains(link.getSourcePath()))) {
+        //don't remove overlays folder
+        if (!LinkedOverlaysConstants.OVERLAYS_FOLDER.equals(link.getSourcePath().segment(0))) {
+          ite.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * @see WTPProjectsUtil#insertLinkBefore(IProject, IPath, IPath, IPath, IProgressMonitor)
+   */
+  public void insertLinkBefore(IPath newSource, IPath referenceSource, IPath runtimePath) {
+    if (component == null) {
+      return;
+    }
+    int i = 0;
+    int refPosition = -1;
+    int newSourcePosition = -1;
+    List<ComponentResource> resources = getResources();
+
+    for (ComponentResource resource : resources) {
+      IPath sourcePath = resource.getSourcePath();
+      if (referenceSource.equals(sourcePath)) {
+        refPosition = i;
+      } else if (newSource.equals(sourcePath)) {
+        newSourcePosition = i;
+      }
+      if (refPosition > -1 &&  newSourcePosition > -1) {
+        break;
+      }
+      i++;
+    }
+    if (refPosition < 0) {
+      refPosition = i;
+    }
+    if (newSourcePosition > refPosition) {
+      component.getResources().move(newSourcePosition, refPosition);
+    } else if (newSourcePosition < 0) {
+      resources.add(refPosition, createResource(newSource, runtimePath));
+    }
+  }
+
+  /**
+   * @see WTPProjectsUtil#insertLinkFirst(IProject, IPath, IPath, IProgressMonitor)
+   */
+  public void insertLinkFirst(IPath newSource, IPath runtimePath) {
+    if (component == null) {
+      return;
+    }
+    int position = indexOf(newSource.makeAbsolute(), runtimePath);
+    if (position == 0) {
+      return;
+    }
+    if (position > 0) {
+      component.getResources().move(0, position);
+    } else {
+      getResources().add(0, createResource(newSource, runtimePath));
+    }
+  }
+
+  /**
+   * Saves the component model if its links were modified.
+   *
+   * @return <code>true</code> if the component was saved.
+   */
+  public boolean commit(IProgressMonitor monitor) {
+    if (moduleCore == null || initialState.equals(snapshot())) {
+      return false;
+    }
+    moduleCore.saveIfNecessary(monitor);
+    return true;
+  }
+
+  /**
+   * Releases the component model. Uncommitted changes are not saved.
+   */
+  public void dispose() {
+    if (moduleCore != null) {
+      moduleCore.dispose();
+      moduleCore = null;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<ComponentResource> getResources() {
+    return component.getResources();
+  }
+
+  private int indexOf(IPath sourcePath, IPath runtimePath) {
+    if (component == null) {
+      return -1;
+    }
+    int i = 0;
+    for (ComponentResource link : getResources()) {
+      if (runtimePath.equals(link.getRuntimePath()) && sourcePath.equals(link.getSourcePath())) {
+        return i;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  /**
+   * @return a comparable representation of the component resources, in order.
+   */
+  private List<String> snapshot() {
+    if (component == null) {
+      return Collections.emptyList();
+    }
+    List<ComponentResource> resources = getResources();
+    List<String> state = new ArrayList<String>(resources.size());
+    for (ComponentResource link : resources) {
+      StringBuilder sb = new StringBuilder();
+      sb.append(link.getSourcePath()).append('|').append(link.getRuntimePath()).append('|').append(link.getTag());
+      for (Object exclusion : link.getExclusions()) {
+        sb.append('|').append(exclusion);
+      }
+      state.add(sb.toString());
+    }
+    return state;
+  }
+}
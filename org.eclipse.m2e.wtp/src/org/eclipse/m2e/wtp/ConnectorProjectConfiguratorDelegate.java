@@ -107,7 +107,7 @@ protected void configure(IProject project, MavenProject mavenProject, IProgressM
           fileCleaner.addFiles(contentFolder.getFile("META-INF/ra.xml").getProjectRelativePath()); //$NON-NLS-1$
         }
         
-        facetedProject.modify(actions, monitor);
+        WTPProjectsUtil.installFacets(facetedProject, actions, monitor);
       } finally {
         //Remove any unwanted MANIFEST.MF the Facet installation has created
         fileCleaner.cleanUp();
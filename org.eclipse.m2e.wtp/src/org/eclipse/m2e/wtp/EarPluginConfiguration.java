@@ -9,13 +9,10 @@
 package org.eclipse.m2e.wtp;
 
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 import org.apache.maven.artifact.Artifact;
-import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.StringUtils;
@@ -76,6 +73,15 @@ public class EarPluginConfiguration extends AbstractFilteringSupportMavenPlugin
   private ArtifactTypeMappingService typeMappingService;
 
   private Set<EarModule>  earModules;
+
+  private Set<EarModule> allEarModules;
+
+  /**
+   * The artifacts and configuration the modules were collected from
+   */
+  private Set<Artifact> modulesArtifacts;
+
+  private Xpp3Dom modulesConfiguration;
   
   public EarPluginConfiguration(MavenProject mavenProject) {
     if(JEEPackaging.EAR != JEEPackaging.getValue(mavenProject.getPackaging())) {
@@ -183,66 +189,57 @@ public class EarPluginConfiguration extends AbstractFilteringSupportMavenPlugin
    * @return an unmodifiable set of EarModule
    */
   public Set<EarModule> getEarModules() throws EarPluginException {
+    Set<EarModule> modules = getAllEarModules();
     if (earModules == null) {
-      //Lazy load modules
-      earModules = collectEarModules();
-      
       //Remove excluded artifacts 
-      Iterator<EarModule> modulesIterator = earModules.iterator();
-      while (modulesIterator.hasNext())
-      {
-        EarModule module = modulesIterator.next();
-        if (module.isExcluded())
-        {
-          modulesIterator.remove();  
+      Set<EarModule> includedModules = new LinkedHashSet<EarModule>(modules.size());
+      for (EarModule module : modules) {
+        if (!module.isExcluded()) {
+          includedModules.add(module);
         }
       }
-
-      earModules = Collections.unmodifiableSet(earModules);
+      earModules = Collections.unmodifiableSet(includedModules);
     }
     return earModules;
   }
 
+  /**
+   * Reads maven-ear-plugin configuration to build a set of EarModule, including the excluded ones.
+   * <br/>
+   * Modules are collected once, then shared, until the artifacts of the Maven project or the plugin configuration
+   * change.
+   * 
+   * @return an unmodifiable set of EarModule
+   */
   public Set<EarModule> getAllEarModules() throws EarPluginException {
-     return Collections.unmodifiableSet(collectEarModules());
+    Set<Artifact> artifacts = mavenProject.getArtifacts();
+    Xpp3Dom configuration = getConfiguration();
+    if (allEarModules == null || modulesArtifacts != artifacts || modulesConfiguration != configuration) {
+      allEarModules = Collections.unmodifiableSet(collectEarModules(artifacts));
+      earModules = null;
+      modulesArtifacts = artifacts;
+      modulesConfiguration = configuration;
+    }
+    return allEarModules;
   }
 
-  private Set<EarModule> collectEarModules() throws EarPluginException {
-    Set<Artifact> artifacts = mavenProject.getArtifacts();
+  private Set<EarModule> collectEarModules(Set<Artifact> artifacts) throws EarPluginException {
     if(artifacts == null || artifacts.isEmpty()) {
       return Collections.<EarModule> emptySet();
     }
 
     Set<EarModule> earModules = new LinkedHashSet<EarModule>(artifacts.size());
     String defaultBundleDir = getDefaultBundleDirectory();
-    IProjectFacetVersion javaEEVersion = getEarFacetVersion();
+    boolean libBundleDirForEjbClients = EarModuleFactory.isLibBundleDirForEjbClients(getEarFacetVersion());
     EarModuleFactory earModuleFactory = EarModuleFactory.createEarModuleFactory(getArtifactTypeMappingService(),
         getFileNameMapping(), getMainArtifactId(), artifacts);
 
     //Resolve Ear modules from plugin config
-    earModules.addAll(getEarModulesFromConfig(earModuleFactory, defaultBundleDir, javaEEVersion)); 
-
-    ScopeArtifactFilter filter = new ScopeArtifactFilter(Artifact.SCOPE_RUNTIME);
+    earModules.addAll(getEarModulesFromConfig(earModuleFactory, defaultBundleDir, libBundleDirForEjbClients)); 
 
     //next, add remaining modules from maven project dependencies
-    for(Artifact artifact : artifacts) {
-
-      // If the artifact's type is POM, ignore and continue
-      // since it's used for transitive deps only.
-      if("pom".equals(artifact.getType())) { //$NON-NLS-1$
-        continue;
-      }
-
-      boolean isIncludedInApplicationXml = isIncludeLibInApplicationXml();
-      // Artifact is not yet registered and it has neither test, nor a
-      // provided scope, nor is it optional
-      if(!isArtifactRegistered(artifact, earModules) && filter.include(artifact) && !artifact.isOptional()) {
-        EarModule module = earModuleFactory.newEarModule(artifact, defaultBundleDir, javaEEVersion, isIncludedInApplicationXml);
-        if(module != null) {
-          earModules.add(module);
-        }
-      }
-    }
+    earModuleFactory.addDependencyModules(earModules, artifacts, defaultBundleDir, libBundleDirForEjbClients,
+        isIncludeLibInApplicationXml());
     return earModules;
   }
 
@@ -258,7 +255,7 @@ public class EarPluginConfiguration extends AbstractFilteringSupportMavenPlugin
       if (config != null) {
         artifactTypeMappingConfig = config.getChild("artifactTypeMappings"); //$NON-NLS-1$
       }
-      typeMappingService = new ArtifactTypeMappingService(artifactTypeMappingConfig);
+      typeMappingService = ArtifactTypeMappingService.getInstance(artifactTypeMappingConfig);
     }
     return typeMappingService;
   }
@@ -290,7 +287,7 @@ public class EarPluginConfiguration extends AbstractFilteringSupportMavenPlugin
    * 
    * @param earModuleFactory
    */
-  private Set<EarModule> getEarModulesFromConfig(EarModuleFactory earModuleFactory, String defaultBundleDir, IProjectFacetVersion javaEEVersion) throws EarPluginException {
+  private Set<EarModule> getEarModulesFromConfig(EarModuleFactory earModuleFactory, String defaultBundleDir, boolean libBundleDirForEjbClients) throws EarPluginException {
     Set<EarModule> earModules = new LinkedHashSet<EarModule>();
     Xpp3Dom configuration = getConfiguration();
     if(configuration == null) {
@@ -309,7 +306,7 @@ public class EarPluginConfiguration extends AbstractFilteringSupportMavenPlugin
     
     boolean isIncludedInApplicationXml = isIncludeLibInApplicationXml();
     for(Xpp3Dom domModule : domModules) {
-      EarModule earModule = earModuleFactory.newEarModule(domModule, defaultBundleDir, javaEEVersion, isIncludedInApplicationXml);
+      EarModule earModule = earModuleFactory.newEarModule(domModule, defaultBundleDir, libBundleDirForEjbClients, isIncludedInApplicationXml);
       if(earModule != null) {
         earModules.add(earModule);
       }
@@ -318,15 +315,6 @@ public class EarPluginConfiguration extends AbstractFilteringSupportMavenPlugin
     return earModules;
   }
 
-  private static boolean isArtifactRegistered(Artifact a, Set<EarModule> modules) {
-    for(EarModule module : modules) {
-      if(module.getArtifact().equals(a)) {
-        return true;
-      }
-    }
-    return false;
-  }
-
   public boolean isGenerateApplicationXml()  {
     Xpp3Dom configuration = getConfiguration();
     if(configuration == null) {
@@ -337,7 +325,7 @@ public class EarPluginConfiguration extends AbstractFilteringSupportMavenPlugin
   }
   
   public Set<SecurityRoleKey>  getSecurityRoleKeys() {
-    Set<SecurityRoleKey> securityRoles = new HashSet<SecurityRoleKey>();
+    Set<SecurityRoleKey> securityRoles = new LinkedHashSet<SecurityRoleKey>();
     Xpp3Dom configuration = getConfiguration();
     if(configuration == null) {
       return securityRoles;
@@ -38,6 +38,8 @@ import org.eclipse.m2e.core.internal.IMavenConstants;
 import org.eclipse.m2e.core.project.IMavenProjectFacade;
 import org.eclipse.m2e.wtp.earmodules.EarModule;
 import org.eclipse.m2e.wtp.internal.Messages;
+import org.eclipse.m2e.wtp.internal.metrics.ConfiguratorMetrics;
+import org.eclipse.m2e.wtp.internal.metrics.ConfiguratorMetrics.Phase;
 import org.eclipse.m2e.wtp.internal.utilities.PathUtil;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.common.componentcore.ComponentCore;
@@ -100,7 +102,7 @@ protected void configure(IProject project, MavenProject mavenProject, IProgressM
     
     try {
       if(!actions.isEmpty()) {
-        facetedProject.modify(actions, monitor);
+        WTPProjectsUtil.installFacets(facetedProject, actions, monitor);
       }
     }
     finally {
@@ -223,7 +225,12 @@ public void setModuleDependencies(IProject project, MavenProject mavenProject, I
     }
 
     boolean useBuildDirectory = MavenWtpPlugin.getDefault().getMavenWtpPreferencesManager().getPreferences(project).isApplicationXmGeneratedInBuildDirectory();
-    DeploymentDescriptorManagement.INSTANCE.updateConfiguration(project, mavenProject, config, useBuildDirectory, monitor);
+    Phase phase = ConfiguratorMetrics.INSTANCE.start(project, "EarProjectConfiguratorDelegate.updateDeploymentDescriptor"); //$NON-NLS-1$
+    try {
+      DeploymentDescriptorManagement.INSTANCE.updateConfiguration(project, mavenProject, config, useBuildDirectory, monitor);
+    } finally {
+      phase.stop();
+    }
   }
 
 
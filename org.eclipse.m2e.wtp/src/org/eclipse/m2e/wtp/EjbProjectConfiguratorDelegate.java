@@ -70,7 +70,7 @@ protected void configure(IProject project, MavenProject mavenProject, IProgressM
       ResourceCleaner fileCleaner = new ResourceCleaner(project);
       try {
         addFoldersToClean(fileCleaner, facade);
-        facetedProject.modify(actions, monitor);
+        WTPProjectsUtil.installFacets(facetedProject, actions, monitor);
       } finally {
         //Remove any unwanted MANIFEST.MF the Facet installation has created
         fileCleaner.cleanUp();
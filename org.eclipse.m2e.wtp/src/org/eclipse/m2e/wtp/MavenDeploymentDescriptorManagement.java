@@ -8,12 +8,20 @@
 
 package org.eclipse.m2e.wtp;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
@@ -22,17 +30,25 @@ import org.apache.maven.artifact.versioning.VersionRange;
 import org.apache.maven.execution.MavenExecutionRequest;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.lifecycle.MavenExecutionPlan;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.m2e.core.MavenPlugin;
 import org.eclipse.m2e.core.embedder.IMaven;
@@ -41,9 +57,10 @@ import org.eclipse.m2e.core.internal.MavenPluginActivator;
 import org.eclipse.m2e.core.internal.markers.IMavenMarkerManager;
 import org.eclipse.m2e.core.project.IMavenProjectFacade;
 import org.eclipse.m2e.core.project.IMavenProjectRegistry;
+import org.eclipse.m2e.wtp.earmodules.ApplicationXmlWriter;
 import org.eclipse.m2e.wtp.earmodules.EarModule;
-import org.eclipse.m2e.wtp.internal.Messages;
-import org.eclipse.osgi.util.NLS;
+import org.eclipse.m2e.wtp.earmodules.WebModule;
+import org.eclipse.m2e.wtp.internal.ScratchDirectory;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IPageLayout;
 import org.eclipse.ui.IViewPart;
@@ -52,7 +69,8 @@ import org.eclipse.ui.navigator.CommonNavigator;
 
 
 /**
- * Deployment Descriptor Management based on maven-ear-plugin invocation
+ * Deployment Descriptor Management generating application.xml natively, or based on maven-ear-plugin invocation
+ * when the plugin configuration requires it (JBoss support...)
  * 
  * @provisional This class has been added as part of a work in progress. 
  * It is not guaranteed to work or remain the same in future releases. 
@@ -75,8 +93,26 @@ public class MavenDeploymentDescriptorManagement implements DeploymentDescriptor
   }
 
   /**
-   * Executes ear:generate-application-xml goal to generate application.xml (and jboss-app.xml if needed). Existing
-   * files will be overwritten.
+   * Maven ear plugin parameters the native application.xml generation doesn't support. 
+   * ear:generate-application-xml is executed when one of them is configured.
+   */
+  private static final String[] MOJO_ONLY_PARAMETERS = {"jboss", "envEntries", "ejbRefs", "resourceRefs", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+      "applicationId", "libraryDirectoryMode", "outputFileNameMapping"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+  private static final String GENERATE_APPLICATION_XML_GOAL = "generate-application-xml"; //$NON-NLS-1$
+
+  private static final String APPLICATION_XML = "application.xml"; //$NON-NLS-1$
+
+  /**
+   * Fingerprint of the last successful generation : a digest of its inputs, followed by the modification stamps
+   * of the generated descriptors.
+   */
+  private static final QualifiedName DESCRIPTORS_FINGERPRINT = new QualifiedName(MavenWtpPlugin.ID, "ear-descriptors-fingerprint"); //$NON-NLS-1$
+
+  /**
+   * Generates application.xml (and jboss-app.xml if needed). Existing files are only overwritten 
+   * if their content changed. Nothing is generated if neither the ear modules nor the plugin configuration
+   * changed since the last generation, and the generated descriptors are unchanged.
    * 
    * @throws CoreException
    */
@@ -85,39 +121,203 @@ public class MavenDeploymentDescriptorManagement implements DeploymentDescriptor
 public void updateConfiguration(IProject project, MavenProject mavenProject, EarPluginConfiguration plugin,
      boolean useBuildDirectory, IProgressMonitor monitor) throws CoreException {
 
-    IMavenProjectRegistry projectManager = MavenPlugin.getMavenProjectRegistry();
-    IMavenProjectFacade mavenFacade = projectManager.getProject(project);
+    //MECLIPSEWTP-56 : application.xml should not be generated in the source directory
+    
+    IFolder targetFolder;
+    if (useBuildDirectory) {
+      targetFolder = project.getFolder(getEarResourcesPath(project, mavenProject));
+    } else {
+      targetFolder = project.getFolder(plugin.getEarContentDirectory(project));
+    }
+    boolean nativeGeneration = canGenerateApplicationXml(plugin);
+
+    //No maven session is needed to check the inputs, it's only created when the mojo must be executed
+    String inputsDigest = computeInputsDigest(mavenProject, plugin, targetFolder, nativeGeneration);
+    if (inputsDigest != null && isUpToDate(project, inputsDigest)) {
+      return;
+    }
+    project.setPersistentProperty(DESCRIPTORS_FINGERPRINT, null);
+
     IMavenMarkerManager markerManager  = MavenPluginActivator.getDefault().getMavenMarkerManager();
     
     IFile pomResource = project.getFile(IMavenConstants.POM_FILE_NAME);
     markerManager.deleteMarkers(pomResource, MavenWtpConstants.WTP_MARKER_GENERATE_APPLICATIONXML_ERROR);
 
-    //Create a maven request + session
-    IMaven maven = MavenPlugin.getMaven();
-    MavenExecutionRequest request = projectManager.createExecutionRequest(pomResource, mavenFacade.getResolverConfiguration(), monitor);
-    MavenSession session = maven.createSession(request, mavenProject);
+    IFolder earResourcesFolder = getEarResourcesDir(project, mavenProject, monitor); 
+    if (!useBuildDirectory) {
+      if (earResourcesFolder.exists() && earResourcesFolder.isAccessible()) {
+        earResourcesFolder.delete(true, monitor);
+      }
+    }
+    
+    IFolder metaInfFolder = targetFolder.getFolder("/META-INF/"); //$NON-NLS-1$
 
-    MavenExecutionPlan executionPlan = maven.calculateExecutionPlan(session, mavenProject, Collections.singletonList("ear:generate-application-xml"), true, monitor); //$NON-NLS-1$
-    MojoExecution genConfigMojo = getExecution(executionPlan, "maven-ear-plugin", "generate-application-xml"); //$NON-NLS-1$ //$NON-NLS-2$
+    List<IFile> descriptors = new ArrayList<IFile>();
+    boolean changed;
+    if (nativeGeneration) {
+      changed = generateApplicationXml(mavenProject, plugin, metaInfFolder, descriptors, monitor);
+    } else {
+      changed = executeGenerateApplicationXmlMojo(project, mavenProject, plugin, metaInfFolder, descriptors, monitor);
+    }
+
+    if (inputsDigest != null && !descriptors.isEmpty()
+        && pomResource.findMarkers(MavenWtpConstants.WTP_MARKER_GENERATE_APPLICATIONXML_ERROR, false, IResource.DEPTH_ZERO).length == 0) {
+      project.setPersistentProperty(DESCRIPTORS_FINGERPRINT, toFingerprint(inputsDigest, descriptors));
+    }
+    
+    if (!changed) {
+      return;
+    }
+    Display.getDefault().asyncExec(new Runnable() {
+		@Override
+		public void run() {
+			if (PlatformUI.isWorkbenchRunning()) {
+				IViewPart view = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage().findView(IPageLayout.ID_PROJECT_EXPLORER);
+				if (view instanceof CommonNavigator) {
+					CommonNavigator navigator = (CommonNavigator) view;
+					navigator.getCommonViewer().refresh();
+				}
+			}
+		}
+	});
+  }
+
+  /**
+   * @return true if application.xml can be generated without executing the maven-ear-plugin
+   */
+  private boolean canGenerateApplicationXml(EarPluginConfiguration plugin) {
+    if (hasGenerateApplicationXmlConfiguration(plugin.getPlugin())) {
+      return false;
+    }
+    Xpp3Dom configuration = plugin.getConfiguration();
+    if (configuration == null) {
+      return !isDefaultVersionSeven(plugin);
+    }
+    for (String parameter : MOJO_ONLY_PARAMETERS) {
+      if (configuration.getChild(parameter) != null) {
+        return false;
+      }
+    }
+    if (DomUtils.getBooleanChildValue(configuration, "generateModuleId")) { //$NON-NLS-1$
+      return false;
+    }
+    String version = DomUtils.getChildValue(configuration, "version"); //$NON-NLS-1$
+    if (version == null) {
+      return !isDefaultVersionSeven(plugin);
+    }
+    return ApplicationXmlWriter.isSupportedVersion(version);
+  }
+
+  /**
+   * @return true if an execution of ear:generate-application-xml has its own configuration,
+   * which is only taken into account by the mojo
+   */
+  private boolean hasGenerateApplicationXmlConfiguration(Plugin plugin) {
+    if (plugin == null) {
+      return false;
+    }
+    for (PluginExecution execution : plugin.getExecutions()) {
+      if (execution.getConfiguration() != null && execution.getGoals().contains(GENERATE_APPLICATION_XML_GOAL)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * maven-ear-plugin 3.0 changed the default Java EE version from 1.3 to 7
+   */
+  private boolean isDefaultVersionSeven(EarPluginConfiguration plugin) {
+    String pluginVersion = plugin.getPlugin() == null ? null : plugin.getPlugin().getVersion();
+    return pluginVersion != null && new DefaultArtifactVersion(pluginVersion).getMajorVersion() >= 3;
+  }
+
+  /**
+   * Generates application.xml from the ear modules of the project.
+   * 
+   * @return true if application.xml was written
+   */
+  private boolean generateApplicationXml(MavenProject mavenProject, EarPluginConfiguration plugin, IFolder metaInfFolder, 
+      List<IFile> descriptors, IProgressMonitor monitor) throws CoreException {
+    Xpp3Dom configuration = plugin.getConfiguration();
+    String encoding = DomUtils.getChildValue(configuration, "encoding", "UTF-8"); //$NON-NLS-1$ //$NON-NLS-2$
+    ApplicationXmlWriter writer = new ApplicationXmlWriter(DomUtils.getChildValue(configuration, "version", "1.3"), encoding); //$NON-NLS-1$ //$NON-NLS-2$
+    writer.setApplicationName(DomUtils.getChildValue(configuration, "applicationName", mavenProject.getArtifactId())); //$NON-NLS-1$
+    writer.setDisplayName(DomUtils.getChildValue(configuration, "displayName", mavenProject.getArtifactId())); //$NON-NLS-1$
+    writer.setDescription(DomUtils.getChildValue(configuration, "description")); //$NON-NLS-1$
+    writer.setInitializeInOrder(DomUtils.getChildValue(configuration, "initializeInOrder")); //$NON-NLS-1$
+    writer.setLibraryDirectory(DomUtils.getChildValue(configuration, "defaultLibBundleDir")); //$NON-NLS-1$
+    byte[] content;
+    try {
+      content = writer.write(plugin.getEarModules(), plugin.getSecurityRoleKeys());
+    } catch(IOException ex) {
+      IStatus status = new Status(IStatus.ERROR, MavenWtpPlugin.ID, ex.getLocalizedMessage(), ex);
+      throw new CoreException(status);
+    }
+    return publish(metaInfFolder.getProject(), Collections.singletonMap(metaInfFolder.getFile(APPLICATION_XML), content),
+        descriptors, monitor);
+  }
+
+  /**
+   * Executes ear:generate-application-xml goal to generate application.xml (and jboss-app.xml if needed).
+   * 
+   * @return true if at least one descriptor was written
+   */
+  private boolean executeGenerateApplicationXmlMojo(IProject project, MavenProject mavenProject,
+      EarPluginConfiguration plugin, IFolder metaInfFolder, List<IFile> descriptors, IProgressMonitor monitor) throws CoreException {
+    MavenSession session = createSession(project, mavenProject, monitor);
+    MojoExecution genConfigMojo = getGenerateApplicationXmlExecution(session, mavenProject, monitor);
     if(genConfigMojo == null) {
       //TODO Better error management
-      return;
+      return false;
     }
+    IMavenProjectFacade mavenFacade = MavenPlugin.getMavenProjectRegistry().getProject(project);
     
     //Let's force the generated config files location
-    Xpp3Dom configuration = genConfigMojo.getConfiguration();
-    if(configuration == null) {
-      configuration = new Xpp3Dom("configuration"); //$NON-NLS-1$
-      genConfigMojo.setConfiguration(configuration);
+    if(genConfigMojo.getConfiguration() == null) {
+      genConfigMojo.setConfiguration(new Xpp3Dom("configuration")); //$NON-NLS-1$
     }
     
-    File tempDirectory;
+    //Each invocation gets its own scratch directory, so ear projects can be generated concurrently
+    ScratchDirectory scratchDirectory;
     try {
-      tempDirectory = getTempDirectory();
+      scratchDirectory = ScratchDirectory.create("generateApplicationXml"); //$NON-NLS-1$
     } catch(IOException ex) {
       IStatus status = new Status(IStatus.ERROR, MavenWtpPlugin.ID, ex.getLocalizedMessage(), ex);
       throw new CoreException(status);
     }
+    try {
+      return executeInScratchDirectory(session, genConfigMojo, mavenFacade, plugin, scratchDirectory.getDirectory(),
+          metaInfFolder, descriptors, monitor);
+    } finally {
+      scratchDirectory.dispose();
+    }
+  }
+
+  private MavenSession createSession(IProject project, MavenProject mavenProject, IProgressMonitor monitor) throws CoreException {
+    IMavenProjectRegistry projectManager = MavenPlugin.getMavenProjectRegistry();
+    IMavenProjectFacade mavenFacade = projectManager.getProject(project);
+    IFile pomResource = project.getFile(IMavenConstants.POM_FILE_NAME);
+
+    //Create a maven request + session
+    MavenExecutionRequest request = projectManager.createExecutionRequest(pomResource, mavenFacade.getResolverConfiguration(), monitor);
+    return MavenPlugin.getMaven().createSession(request, mavenProject);
+  }
+
+  /**
+   * @return the ear:generate-application-xml execution, with its effective configuration, or null if it can't be found
+   */
+  private MojoExecution getGenerateApplicationXmlExecution(MavenSession session, MavenProject mavenProject,
+      IProgressMonitor monitor) throws CoreException {
+    IMaven maven = MavenPlugin.getMaven();
+    MavenExecutionPlan executionPlan = maven.calculateExecutionPlan(session, mavenProject, Collections.singletonList("ear:generate-application-xml"), true, monitor); //$NON-NLS-1$
+    return getExecution(executionPlan, "maven-ear-plugin", GENERATE_APPLICATION_XML_GOAL); //$NON-NLS-1$
+  }
+
+  private boolean executeInScratchDirectory(MavenSession session, MojoExecution genConfigMojo,
+      IMavenProjectFacade mavenFacade, EarPluginConfiguration plugin, File tempDirectory, IFolder metaInfFolder,
+      List<IFile> descriptors, IProgressMonitor monitor) throws CoreException {
+    Xpp3Dom configuration = genConfigMojo.getConfiguration();
 
     // Some old maven-ear-plugin have a dependency on an old plexus-util version that prevents
     // using workdirectory == generatedDescriptorLocation, so we keep them separated 
@@ -145,81 +345,174 @@ public void updateConfiguration(IProject project, MavenProject mavenProject, Ear
       overrideModules(configuration, plugin.getAllEarModules());
     }
 
-    //Execute our modified mojo
-    maven.execute(session, genConfigMojo, monitor);
+    //Execute our modified mojo, it only writes to the scratch directory
+    MavenPlugin.getMaven().execute(session, genConfigMojo, monitor);
     
     if (session.getResult().hasExceptions()){
+      IMavenMarkerManager markerManager  = MavenPluginActivator.getDefault().getMavenMarkerManager();
       markerManager.addMarkers(mavenFacade.getPom(), MavenWtpConstants.WTP_MARKER_GENERATE_APPLICATIONXML_ERROR, session.getResult());
     }
     
     //Copy generated files to their final location
     File[] files = generatedDescriptorLocation.listFiles();
 
-    //MECLIPSEWTP-56 : application.xml should not be generated in the source directory
-    
-    IFolder targetFolder;
-    IFolder earResourcesFolder = getEarResourcesDir(project, mavenProject, monitor); 
-    if (useBuildDirectory) {
-      targetFolder = earResourcesFolder;
-    } else {
-      targetFolder = project.getFolder(plugin.getEarContentDirectory(project));
-
-      if (earResourcesFolder.exists() && earResourcesFolder.isAccessible()) {
-        earResourcesFolder.delete(true, monitor);
-      }
-    }
-    
-    IFolder metaInfFolder = targetFolder.getFolder("/META-INF/"); //$NON-NLS-1$
-
+    Map<IFile, byte[]> contents = new LinkedHashMap<IFile, byte[]>();
     if (files != null && files.length > 0) {
+    	Arrays.sort(files);
     	for (File file:files) {
-    		if (!metaInfFolder.exists()) {
-    			ProjectUtils.createFolder(metaInfFolder, monitor);
-    		}
     		InputStream is = null;
     		try {
     			is = new FileInputStream(file);
-    			IFile targetResource = metaInfFolder.getFile(file.getName());
-    			if (targetResource.exists()) {
-    				targetResource.setContents(is, IResource.FORCE, monitor);
-    			} else {
-    				targetResource.create(is, true, monitor);
-    			}
-    		} catch (FileNotFoundException ex) {
+    			contents.put(metaInfFolder.getFile(file.getName()), IOUtil.toByteArray(is));
+    		} catch (IOException ex) {
     			IStatus status = new Status(IStatus.ERROR, MavenWtpPlugin.ID, IStatus.ERROR, ex.getMessage(), ex);
     	        throw new CoreException(status);
 			} finally {
-    			if (is != null) {
-    				try {
-						is.close();
-					} catch (IOException ex) {
-						// ignore
-					}
-    			}
+    			IOUtil.close(is);
     		}
     	}
     }
     
-    deleteDirectory(generatedDescriptorLocation);
-    
-    Display.getDefault().asyncExec(new Runnable() {
-		@Override
-		public void run() {
-			if (PlatformUI.isWorkbenchRunning()) {
-				IViewPart view = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage().findView(IPageLayout.ID_PROJECT_EXPLORER);
-				if (view instanceof CommonNavigator) {
-					CommonNavigator navigator = (CommonNavigator) view;
-					navigator.getCommonViewer().refresh();
-				}
-			}
-		}
-	});
+    return publish(metaInfFolder.getProject(), contents, descriptors, monitor);
+  }
+
+  /**
+   * Compares and writes the descriptors in a single workspace operation, only locking their project : 
+   * concurrent updates of other projects aren't blocked, and no other change of the project can interleave.
+   * 
+   * @return true if at least one descriptor was written
+   */
+  private static boolean publish(IProject project, final Map<IFile, byte[]> contents, List<IFile> descriptors,
+      IProgressMonitor monitor) throws CoreException {
+    final boolean[] changed = new boolean[1];
+    ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+      @Override
+      public void run(IProgressMonitor monitor) throws CoreException {
+        for (Map.Entry<IFile, byte[]> content : contents.entrySet()) {
+          changed[0] |= writeIfChanged(content.getKey(), content.getValue(), monitor);
+        }
+      }
+    }, project, IWorkspace.AVOID_UPDATE, monitor);
+    descriptors.addAll(contents.keySet());
+    return changed[0];
+  }
+
+  /**
+   * Writes content to a file, unless the file already has the exact same content.
+   * 
+   * @return true if the file was written
+   */
+  private static boolean writeIfChanged(IFile file, byte[] content, IProgressMonitor monitor) throws CoreException {
+    if (file.exists()) {
+      InputStream is = null;
+      try {
+        is = file.getContents(true);
+        if (Arrays.equals(content, IOUtil.toByteArray(is))) {
+          return false;
+        }
+      } catch (IOException ex) {
+        //Overwrite it
+      } finally {
+        IOUtil.close(is);
+      }
+      file.setContents(new ByteArrayInputStream(content), IResource.FORCE, monitor);
+    } else {
+      IContainer parent = file.getParent();
+      if (parent instanceof IFolder && !parent.exists()) {
+        ProjectUtils.createFolder((IFolder) parent, monitor);
+      }
+      file.create(new ByteArrayInputStream(content), true, monitor);
+    }
+    return true;
+  }
+
+  /**
+   * Computed from the project model only, so the descriptors can be checked without creating a maven session.
+   * 
+   * @return a digest of everything the generated descriptors depend on, or null if it can't be computed
+   */
+  private String computeInputsDigest(MavenProject mavenProject, EarPluginConfiguration plugin, IFolder targetFolder,
+      boolean nativeGeneration) throws CoreException {
+    StringBuilder inputs = new StringBuilder();
+    inputs.append(nativeGeneration).append('\n');
+    inputs.append(targetFolder.getFullPath()).append('\n');
+    inputs.append(mavenProject.getArtifactId()).append('\n');
+    inputs.append(plugin.getPlugin() == null ? null : plugin.getPlugin().getVersion()).append('\n');
+    inputs.append(plugin.getConfiguration()).append('\n');
+    if (!nativeGeneration && plugin.getPlugin() != null) {
+      //The mojo configuration merges the plugin's with the execution's, and the defaults of the plugin version
+      for (PluginExecution execution : plugin.getPlugin().getExecutions()) {
+        inputs.append(execution.getId()).append('|');
+        inputs.append(execution.getGoals()).append('|');
+        inputs.append(execution.getConfiguration()).append('\n');
+      }
+    }
+    for (EarModule earModule : plugin.getAllEarModules()) {
+      inputs.append(earModule.getArtifact() == null ? null : earModule.getArtifact().getId()).append('|');
+      inputs.append(earModule.getType()).append('|');
+      inputs.append(earModule.getBundleDir()).append('|');
+      inputs.append(earModule.getBundleFileName()).append('|');
+      inputs.append(earModule.getUri()).append('|');
+      inputs.append(earModule instanceof WebModule ? ((WebModule) earModule).getContextRoot() : null).append('|');
+      inputs.append(earModule.isExcluded()).append('|');
+      inputs.append(earModule.shouldUnpack()).append('|');
+      inputs.append(earModule.getAltDeploymentDescriptor()).append('\n');
+    }
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(inputs.toString().getBytes("UTF-8")); //$NON-NLS-1$ //$NON-NLS-2$
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for(byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch(NoSuchAlgorithmException ex) {
+      return null;
+    } catch(UnsupportedEncodingException ex) {
+      return null;
+    }
+  }
+
+  private static String toFingerprint(String inputsDigest, List<IFile> descriptors) {
+    StringBuilder fingerprint = new StringBuilder(inputsDigest);
+    for (IFile descriptor : descriptors) {
+      fingerprint.append('\n').append(descriptor.getProjectRelativePath().toPortableString())
+          .append('=').append(descriptor.getModificationStamp());
+    }
+    return fingerprint.toString();
+  }
+
+  /**
+   * @return true if the last generation had the same inputs, and its descriptors haven't been modified or deleted since
+   */
+  private static boolean isUpToDate(IProject project, String inputsDigest) throws CoreException {
+    String fingerprint = project.getPersistentProperty(DESCRIPTORS_FINGERPRINT);
+    if (fingerprint == null) {
+      return false;
+    }
+    String[] entries = fingerprint.split("\n"); //$NON-NLS-1$
+    if (entries.length < 2 || !inputsDigest.equals(entries[0])) {
+      return false;
+    }
+    for (int i = 1; i < entries.length; i++) {
+      int separator = entries[i].lastIndexOf('=');
+      if (separator < 0) {
+        return false;
+      }
+      IFile descriptor = project.getFile(entries[i].substring(0, separator));
+      if (!descriptor.exists() || !entries[i].substring(separator + 1).equals(Long.toString(descriptor.getModificationStamp()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private IPath getEarResourcesPath(IProject project, MavenProject mavenProject) {
+    return ProjectUtils.getM2eclipseWtpFolder(mavenProject, project).append(MavenWtpConstants.EAR_RESOURCES_FOLDER);
   }
 
   private IFolder getEarResourcesDir(IProject project, MavenProject mavenProject, IProgressMonitor monitor)
       throws CoreException {
-    String appResourcesDir = ProjectUtils.getM2eclipseWtpFolder(mavenProject, project).toPortableString()+Path.SEPARATOR+MavenWtpConstants.EAR_RESOURCES_FOLDER;
-    IFolder appResourcesFolder = project.getFolder(appResourcesDir);
+    IFolder appResourcesFolder = project.getFolder(getEarResourcesPath(project, mavenProject));
  
     if (!appResourcesFolder.exists()) {
       ProjectUtils.createFolder(appResourcesFolder, monitor);
@@ -247,38 +540,6 @@ public void updateConfiguration(IProject project, MavenProject mavenProject, Ear
     }
   }
 
-  private File getTempDirectory() throws IOException {
-    File tempDir = new File(System.getProperty("java.io.tmpdir")); //$NON-NLS-1$
-    File dir = new File(tempDir, ".mavenDeploymentDescriptorManagement"); //$NON-NLS-1$
-    if(dir.exists()) {
-      if(dir.isFile()) {
-        if(!dir.delete()) {
-          throw new IOException(NLS.bind(Messages.MavenDeploymentDescriptorManagement_Error_Deleting_Temp_Folder, dir.getAbsolutePath()));
-        } else {
-          if(!deleteDirectory(dir)) {
-            throw new IOException(NLS.bind(Messages.MavenDeploymentDescriptorManagement_Error_Deleting_Temp_Folder, dir.getAbsolutePath())); 
-          }
-        }
-      }
-    }
-    dir.mkdir();
-    return dir;
-  }
-
-  private static boolean deleteDirectory(File path) {
-    if(path.exists()) {
-      File[] files = path.listFiles();
-      for(int i = 0; i < files.length; i++ ) {
-        if(files[i].isDirectory()) {
-          deleteDirectory(files[i]);
-        } else {
-          files[i].delete();
-        }
-      }
-    }
-    return (path.delete());
-  }
-
   private MojoExecution getExecution(MavenExecutionPlan executionPlan, String artifactId, String goal) throws CoreException {
     for(MojoExecution execution : executionPlan.getMojoExecutions()) {
       if(artifactId.equals(execution.getArtifactId()) && goal.equals(execution.getGoal())) {
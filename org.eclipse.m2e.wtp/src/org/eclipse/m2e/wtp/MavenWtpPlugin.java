@@ -8,14 +8,20 @@
 
 package org.eclipse.m2e.wtp;
 
+import java.io.File;
+import java.io.IOException;
+
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.m2e.wtp.internal.metrics.ConfiguratorMetrics;
 import org.eclipse.m2e.wtp.internal.preferences.MavenWtpPreferencesManagerImpl;
 import org.eclipse.m2e.wtp.overlay.WebXmlChangeListener;
 import org.eclipse.m2e.wtp.preferences.IMavenWtpPreferencesManager;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * m2e-wtp plugin
@@ -25,6 +31,13 @@ import org.osgi.framework.BundleContext;
 public class MavenWtpPlugin extends AbstractUIPlugin {
 
   public static final String ID = "org.eclipse.m2e.wtp"; //$NON-NLS-1$
+
+  private static final Logger LOG = LoggerFactory.getLogger(MavenWtpPlugin.class);
+
+  /**
+   * Name of the configurator metrics snapshot, written to the plugin state location on shutdown.
+   */
+  private static final String METRICS_SNAPSHOT = "configurator-metrics.json"; //$NON-NLS-1$
   
   private static MavenWtpPlugin instance;
 
@@ -58,6 +71,7 @@ public class MavenWtpPlugin extends AbstractUIPlugin {
 
   @Override
   public void stop(BundleContext context) throws Exception {
+    writeMetricsSnapshot();
     super.stop(context);
     if(webXmlChangeListener != null) {
       ResourcesPlugin.getWorkspace().removeResourceChangeListener(webXmlChangeListener);
@@ -65,6 +79,19 @@ public class MavenWtpPlugin extends AbstractUIPlugin {
     }
   }
   
+  private void writeMetricsSnapshot() {
+    if(ConfiguratorMetrics.INSTANCE.isEmpty()) {
+      return;
+    }
+    File snapshot = getStateLocation().append(METRICS_SNAPSHOT).toFile();
+    try {
+      ConfiguratorMetrics.INSTANCE.writeSnapshot(snapshot);
+      LOG.info("Configurator metrics written to " + snapshot); //$NON-NLS-1$
+    } catch(IOException ex) {
+      LOG.error("Unable to write configurator metrics to " + snapshot, ex); //$NON-NLS-1$
+    }
+  }
+
   public static MavenWtpPlugin getDefault() {
     return instance;
   }
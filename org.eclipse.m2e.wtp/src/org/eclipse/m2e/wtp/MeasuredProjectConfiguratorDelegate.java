@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.m2e.jdt.IClasspathDescriptor;
+import org.eclipse.m2e.wtp.internal.metrics.ConfiguratorMetrics;
+import org.eclipse.m2e.wtp.internal.metrics.ConfiguratorMetrics.Phase;
+
+/**
+ * Records the {@link ConfiguratorMetrics} of each method of an {@link IProjectConfiguratorDelegate}.
+ */
+class MeasuredProjectConfiguratorDelegate implements IProjectConfiguratorDelegate {
+
+  private final IProjectConfiguratorDelegate delegate;
+
+  private final String configureProjectPhase;
+
+  private final String setModuleDependenciesPhase;
+
+  private final String configureClasspathPhase;
+
+  MeasuredProjectConfiguratorDelegate(IProjectConfiguratorDelegate delegate) {
+    this.delegate = delegate;
+    String name = delegate.getClass().getSimpleName();
+    configureProjectPhase = name + ".configureProject"; //$NON-NLS-1$
+    setModuleDependenciesPhase = name + ".setModuleDependencies"; //$NON-NLS-1$
+    configureClasspathPhase = name + ".configureClasspath"; //$NON-NLS-1$
+  }
+
+  @Override
+  public void configureProject(IProject project, MavenProject mavenProject, IProgressMonitor monitor)
+      throws MarkedException {
+    Phase phase = ConfiguratorMetrics.INSTANCE.start(project, configureProjectPhase);
+    try {
+      delegate.configureProject(project, mavenProject, monitor);
+    } finally {
+      phase.stop();
+    }
+  }
+
+  @Override
+  public void setModuleDependencies(IProject project, MavenProject mavenProject, IProgressMonitor monitor)
+      throws CoreException {
+    Phase phase = ConfiguratorMetrics.INSTANCE.start(project, setModuleDependenciesPhase);
+    try {
+      delegate.setModuleDependencies(project, mavenProject, monitor);
+    } finally {
+      phase.stop();
+    }
+  }
+
+  @Override
+  public void configureClasspath(IProject project, MavenProject mavenProject, IClasspathDescriptor classpath,
+      IProgressMonitor monitor) throws CoreException {
+    Phase phase = ConfiguratorMetrics.INSTANCE.start(project, configureClasspathPhase);
+    try {
+      delegate.configureClasspath(project, mavenProject, classpath, monitor);
+    } finally {
+      phase.stop();
+    }
+  }
+}
@@ -31,14 +31,18 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.jst.j2ee.web.project.facet.WebFacetUtils;
 import org.eclipse.m2e.core.MavenPlugin;
@@ -52,14 +56,16 @@ import org.eclipse.m2e.core.project.configurator.ProjectConfigurationRequest;
 import org.eclipse.m2e.jdt.IClasspathDescriptor;
 import org.eclipse.m2e.wtp.internal.StringUtils;
 import org.eclipse.m2e.wtp.internal.filtering.WebResourceFilteringConfiguration;
+import org.eclipse.m2e.wtp.internal.metrics.ConfiguratorMetrics;
+import org.eclipse.m2e.wtp.internal.metrics.ConfiguratorMetrics.Phase;
 import org.eclipse.m2e.wtp.overlay.ExplodedWarCleaner;
+import org.eclipse.m2e.wtp.overlay.ExplodedWarStore;
 import org.eclipse.m2e.wtp.overlay.LinkedOverlaysConstants;
 import org.eclipse.m2e.wtp.overlay.UnpackArchiveToStateLocationJob;
 import org.eclipse.m2e.wtp.overlay.modulecore.IOverlayVirtualComponent;
 import org.eclipse.m2e.wtp.overlay.modulecore.OverlayComponentCore;
 import org.eclipse.wst.common.componentcore.ComponentCore;
 import org.eclipse.wst.common.componentcore.internal.ComponentResource;
-import org.eclipse.wst.common.componentcore.internal.StructureEdit;
 import org.eclipse.wst.common.componentcore.internal.WorkbenchComponent;
 import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
 import org.eclipse.wst.common.componentcore.resources.IVirtualReference;
@@ -119,10 +125,15 @@ public class OverlayConfigurator extends WTPProjectConfigurator {
    */
   private void setModuleDependencies(IProject project, MavenProject mavenProject, IProgressMonitor monitor) throws CoreException {
 
-    if(MavenWtpPlugin.getDefault().getMavenWtpPreferencesManager().getPreferences(project).isWarOverlaysUsesLinkedFolders()) {
-      setModuleDependenciesWithLinkedFolders(project, mavenProject, monitor);
-    } else {
-      setModuleDependenciesWithOverlayModules(project, mavenProject, monitor);
+    Phase phase = ConfiguratorMetrics.INSTANCE.start(project, "OverlayConfigurator.setModuleDependencies"); //$NON-NLS-1$
+    try {
+      if(MavenWtpPlugin.getDefault().getMavenWtpPreferencesManager().getPreferences(project).isWarOverlaysUsesLinkedFolders()) {
+        setModuleDependenciesWithLinkedFolders(project, mavenProject, monitor);
+      } else {
+        setModuleDependenciesWithOverlayModules(project, mavenProject, monitor);
+      }
+    } finally {
+      phase.stop();
     }
   }
   
@@ -220,7 +231,8 @@ public class OverlayConfigurator extends WTPProjectConfigurator {
     //remove overlays virtual folder:
     IFolder overlaysFolder = project.getFolder(LinkedOverlaysConstants.OVERLAYS_FOLDER);
     if(overlaysFolder.exists()) {
-      //schedule an exploded war cleaner
+      //release the exploded wars and schedule an exploded war cleaner
+      ExplodedWarStore.getInstance().removeReferences(project.getName());
       ExplodedWarCleaner.scheduleClean();
 
       overlaysFolder.delete(true, null);
@@ -300,6 +312,9 @@ public class OverlayConfigurator extends WTPProjectConfigurator {
 
       final List<String> linkedOverlays = new ArrayList<String>();
       final Map<IFolder, Artifact> explodedArtifacts = new HashMap<IFolder, Artifact>();
+      final Map<IFolder, Artifact> newArchives = new HashMap<IFolder, Artifact>();
+      final ExplodedWarStore explodedWarStore = ExplodedWarStore.getInstance();
+      final Set<String> explodedDigests = new HashSet<String>();
       final Set<String> overlayFolders = new HashSet<String>();
 
       final IFolder overlaysFolder = project.getFolder(LinkedOverlaysConstants.OVERLAYS_FOLDER);
@@ -409,28 +424,38 @@ public class OverlayConfigurator extends WTPProjectConfigurator {
           } else {
             overlayFolders.add(foldername);
 
-            //add it to the linked folders, extract it to plugin's state location
-            final IPath stateLocation = MavenWtpPlugin.getDefault().getStateLocation();
-            final IPath relativePath = stateLocation.makeRelativeTo(project.getWorkspace().getRoot().getLocation());
+            //add it to the linked folders, extract it to plugin's state location,
+            //in a folder shared by all the projects using the same archive content
             final IFolder explodedLink = overlaysFolder.getFolder(foldername);
             if(explodedLink.isVirtual()) {
               //virtual folder for workspace overlay, remove it
               explodedLink.delete(true, null);
             }
-            explodedLink.createLink(new Path("WORKSPACE_LOC/" + relativePath + "/exploded-wars/" + foldername), //$NON-NLS-1$ //$NON-NLS-2$
-                IResource.ALLOW_MISSING_LOCAL | IResource.REPLACE, null);
+            final String digest = explodedWarStore.getKnownDigest(artifact.getFile());
+            if(digest != null) {
+              explodedDigests.add(digest);
+              linkExplodedWar(explodedLink, digest);
+
+              //add it to the exploded war list
+              explodedArtifacts.put(explodedLink, overlay.getArtifact());
+            } else {
+              //the archive content is only read in the background
+              newArchives.put(explodedLink, overlay.getArtifact());
+            }
 
             //add it to the linked folders
             linkedOverlays.add(explodedLink.getProjectRelativePath().toString());
-
-            //add it to the exploded war list
-            explodedArtifacts.put(explodedLink, overlay.getArtifact());
           }
         }
       }
 
+      //referenced before being unpacked, so they can't be evicted meanwhile
+      explodedWarStore.setReferences(project.getName(), explodedDigests);
       for(final Entry<IFolder, Artifact> entry : explodedArtifacts.entrySet()) {
-        explodeArtifact(entry.getKey(), entry.getValue(), monitor);
+        explodeArtifact(explodedWarStore, entry.getKey(), entry.getValue(), monitor);
+      }
+      for(final Entry<IFolder, Artifact> entry : newArchives.entrySet()) {
+        linkNewArchive(explodedWarStore, entry.getKey(), entry.getValue());
       }
 
       if(linksHasChanged(linkedOverlays, warComponent.getRootFolder().getUnderlyingFolders())) {
@@ -468,21 +493,73 @@ public class OverlayConfigurator extends WTPProjectConfigurator {
   }
 
   /**
-   * Explode a war artifact to the plugins state location
+   * Links a folder to the exploded content of the archive having the given digest
+   */
+  private static void linkExplodedWar(final IFolder explodedLink, final String digest) throws CoreException {
+    final IPath stateLocation = MavenWtpPlugin.getDefault().getStateLocation();
+    final IPath relativePath = stateLocation.makeRelativeTo(explodedLink.getWorkspace().getRoot().getLocation());
+    explodedLink.createLink(new Path("WORKSPACE_LOC/" + relativePath + "/" + LinkedOverlaysConstants.EXPLODED_WAR_FOLDER + "/" + digest), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        IResource.ALLOW_MISSING_LOCAL | IResource.REPLACE, null);
+  }
+
+  /**
+   * Computes the digest of an archive not known to the store in a job, then links and explodes it
    * 
+   * @param store
+   * @param explodedLink
+   * @param overlayArtifact
+   */
+  private void linkNewArchive(final ExplodedWarStore store, final IFolder explodedLink, final Artifact overlayArtifact) {
+    final File sourceFile = overlayArtifact.getFile();
+    new Job("Reading " + sourceFile.getName()) { //$NON-NLS-1$
+      @Override
+      protected IStatus run(final IProgressMonitor monitor) {
+        final String digest;
+        try {
+          digest = store.getDigest(sourceFile);
+        } catch(IOException ex) {
+          return new Status(IStatus.ERROR, MavenWtpPlugin.ID, "Cannot read overlay archive " + sourceFile, ex); //$NON-NLS-1$
+        }
+        final IProject project = explodedLink.getProject();
+        try {
+          ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+            @Override
+            public void run(final IProgressMonitor monitor) throws CoreException {
+              if(!explodedLink.getParent().exists()) {
+                //the project has no overlays anymore
+                return;
+              }
+              //referenced before being unpacked, so it can't be evicted meanwhile
+              store.addReference(project.getName(), digest);
+              linkExplodedWar(explodedLink, digest);
+              explodeArtifact(store, explodedLink, overlayArtifact, monitor);
+            }
+          }, project, IWorkspace.AVOID_UPDATE, monitor);
+        } catch(CoreException ex) {
+          return ex.getStatus();
+        }
+        return Status.OK_STATUS;
+      }
+    }.schedule();
+  }
+
+  /**
+   * Explode a war artifact to the plugins state location, unless its content was already exploded
+   * 
+   * @param store
    * @param explodedLink
    * @param overlayArtifact
    * @param monitor
    */
-  private void explodeArtifact(final IFolder explodedLink, final Artifact overlayArtifact,
+  private void explodeArtifact(final ExplodedWarStore store, final IFolder explodedLink, final Artifact overlayArtifact,
       final IProgressMonitor monitor) {
     final File sourceFile = overlayArtifact.getFile();
 
-    final IPath explodedLocation = explodedLink.getLocation();
-    final File targetDir = explodedLocation.toFile();
+    //the link is named after the archive digest
+    final String digest = explodedLink.getRawLocation().lastSegment();
 
-    if(!targetDir.exists() || targetDir.lastModified() != sourceFile.lastModified()) {
-      new UnpackArchiveToStateLocationJob("Unpacking " + explodedLink.getName(), sourceFile, targetDir, explodedLink).schedule(); //$NON-NLS-1$
+    if(!store.isUnpacked(digest)) {
+      new UnpackArchiveToStateLocationJob("Unpacking " + explodedLink.getName(), sourceFile, store, digest, explodedLink).schedule(); //$NON-NLS-1$
     }
   }
 
@@ -495,10 +572,10 @@ public class OverlayConfigurator extends WTPProjectConfigurator {
   @SuppressWarnings({ "unchecked", "restriction" })
   private void setUpLinkedFolders(final List<String> linkedOverlays, final IVirtualComponent warComponent,
       final boolean removeTag) {
-    StructureEdit moduleCore = null;
+    //The .component file is only written if the links actually changed
+    final ComponentLinksTransaction links = ComponentLinksTransaction.open(warComponent.getProject());
     try {
-      moduleCore = StructureEdit.getStructureEditForWrite(warComponent.getProject());
-      final WorkbenchComponent component = moduleCore.getComponent();
+      final WorkbenchComponent component = links.getComponent();
       if(null != component) {
         final EList<ComponentResource> resourcesList = component.getResources();
         final Map<String, ComponentResource> resourceMap = new HashMap<String, ComponentResource>();
@@ -522,22 +599,18 @@ public class OverlayConfigurator extends WTPProjectConfigurator {
           if(resourceMap.containsKey("/" + overlayPath)) { //$NON-NLS-1$
             resourcesList.add(resourceMap.get("/" + overlayPath)); //$NON-NLS-1$
           } else {
-            final ComponentResource componentResource = moduleCore.createWorkbenchModuleResource(warComponent
-                .getProject().getFolder(overlayPath));
-            componentResource.setRuntimePath(IVirtualComponent.ROOT);
+            final ComponentResource componentResource = links.createResource(new Path(overlayPath), IVirtualComponent.ROOT);
             componentResource.getExclusions();
             resourcesList.add(componentResource);
           }
         }
 
         resourcesList.addAll(otherResources);
+        links.commit(new NullProgressMonitor());
       }
 
     } finally {
-      if(moduleCore != null) {
-        moduleCore.saveIfNecessary(new NullProgressMonitor());
-        moduleCore.dispose();
-      }
+      links.dispose();
     }
   }
 
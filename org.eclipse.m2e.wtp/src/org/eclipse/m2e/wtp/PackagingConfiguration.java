@@ -8,11 +8,24 @@
 
 package org.eclipse.m2e.wtp;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.eclipse.m2e.wtp.internal.AntPathMatcher;
+import org.eclipse.m2e.wtp.internal.AntPathMatcher.CompiledPattern;
+import org.eclipse.m2e.wtp.internal.AntPathMatcher.TokenizedPath;
 
 
 /**
  * Packaging configuration based on ANT patterns.
+ * <br/>
+ * Patterns are classified once : exact paths, <code>prefix/*</code> and <code>*.ext</code> patterns are checked
+ * with hash lookups, only the other patterns are matched one by one, as compiled patterns against the path
+ * tokenized once. Decisions are cached per path.
  * 
  * @provisional This class has been added as part of a work in progress. 
  * It is not guaranteed to work or remain the same in future releases. 
@@ -23,16 +36,26 @@ import org.eclipse.m2e.wtp.internal.AntPathMatcher;
  */
 public class PackagingConfiguration implements IPackagingConfiguration {
 
+  private static final int MAX_CACHED_DECISIONS = 1000;
+
   String[] packagingIncludes;
 
   String[] packagingExcludes;
 
   private AntPathMatcher matcher;
 
+  private final PatternSet includes;
+
+  private final PatternSet excludes;
+
+  private final ConcurrentMap<String, Boolean> decisions = new ConcurrentHashMap<String, Boolean>();
+
   public PackagingConfiguration(String[] packagingIncludes, String[] packagingExcludes) {
     this.packagingIncludes = toPortablePathArray(packagingIncludes);
     this.packagingExcludes = toPortablePathArray(packagingExcludes);
     matcher = new AntPathMatcher();
+    includes = new PatternSet(this.packagingIncludes);
+    excludes = new PatternSet(this.packagingExcludes);
   }
 
   @Override
@@ -41,12 +64,23 @@ public boolean isPackaged(String virtualPath) {
       return false;
     }
     virtualPath = toPortablePath(virtualPath);
+    Boolean packaged = decisions.get(virtualPath);
+    if (packaged == null) {
+      packaged = Boolean.valueOf(computePackaged(virtualPath));
+      if (decisions.size() >= MAX_CACHED_DECISIONS) {
+        decisions.clear();
+      }
+      decisions.put(virtualPath, packaged);
+    }
+    return packaged.booleanValue();
+  }
+
+  private boolean computePackaged(String virtualPath) {
+    Candidate candidate = new Candidate(virtualPath);
     if (packagingIncludes != null) {
-      for(String excl : packagingExcludes) {
-        if(matcher.match(excl, virtualPath)) {
-          //stop here already, since exclusions have precedence over inclusions
-          return false;
-        }
+      if(excludes.matches(candidate)) {
+        //stop here already, since exclusions have precedence over inclusions
+        return false;
       }
     }
 
@@ -54,14 +88,7 @@ public boolean isPackaged(String virtualPath) {
     if (packagingIncludes == null || packagingIncludes.length == 0) {
       return true;
     }
-    for(String incl : packagingIncludes) {
-      if(matcher.match(incl, virtualPath)) {
-        return true;
-      }
-    }
-
-    //Definitely not included
-    return false;
+    return includes.matches(candidate);
   }
 
   private String[] toPortablePathArray(String[] patterns) {
@@ -74,9 +101,180 @@ public boolean isPackaged(String virtualPath) {
     }
     return newPatterns;
   }
-  
+
   private String toPortablePath(String path) {
     return (path==null)?null:path.replace("\\", "/"); //$NON-NLS-1$ //$NON-NLS-2$
   }
   
+  /**
+   * A path is canonical if {@link AntPathMatcher} would match it as is : it has no empty segment, no trailing
+   * separator, and no segment starting or ending with whitespaces.
+   */
+  private static boolean isCanonical(String path) {
+    int length = path.length();
+    if (length == 0 || path.charAt(length - 1) == '/') {
+      return false;
+    }
+    int segmentStart = path.charAt(0) == '/' ? 1 : 0;
+    while (segmentStart < length) {
+      int segmentEnd = path.indexOf('/', segmentStart);
+      if (segmentEnd < 0) {
+        segmentEnd = length;
+      }
+      if (segmentEnd == segmentStart || path.charAt(segmentStart) <= ' ' || path.charAt(segmentEnd - 1) <= ' ') {
+        return false;
+      }
+      segmentStart = segmentEnd + 1;
+    }
+    return true;
+  }
+
+  private static boolean isLiteral(String path) {
+    return path.indexOf('*') < 0 && path.indexOf('?') < 0 && isCanonical(path);
+  }
+
+  /**
+   * Patterns, classified by the way they can be matched against canonical paths.
+   */
+  private class PatternSet {
+
+    /** Patterns without wildcards */
+    private final Set<String> exactPaths = new HashSet<String>();
+
+    /** Folders of the <code>folder/*</code> patterns */
+    private final Set<String> folders = new HashSet<String>();
+
+    /** Extensions, including the dot, of the <code>*.ext</code> patterns */
+    private final Set<String> extensions = new HashSet<String>();
+
+    /** Extensions, including the dot, of the <code>&#42;&#42;/*.ext</code> patterns */
+    private final Set<String> recursiveExtensions = new HashSet<String>();
+
+    /** Patterns matched by {@link AntPathMatcher} */
+    private final CompiledPattern[] genericPatterns;
+
+    /** All the patterns, to match non canonical paths */
+    private final CompiledPattern[] allPatterns;
+
+    PatternSet(String[] patterns) {
+      List<CompiledPattern> all = new ArrayList<CompiledPattern>();
+      List<CompiledPattern> generic = new ArrayList<CompiledPattern>();
+      if (patterns != null) {
+        for (String pattern : patterns) {
+          CompiledPattern compiledPattern = matcher.compile(pattern);
+          all.add(compiledPattern);
+          if (!classify(pattern)) {
+            generic.add(compiledPattern);
+          }
+        }
+      }
+      allPatterns = all.toArray(new CompiledPattern[all.size()]);
+      genericPatterns = generic.toArray(new CompiledPattern[generic.size()]);
+    }
+
+    private boolean classify(String pattern) {
+      if (isLiteral(pattern)) {
+        exactPaths.add(pattern);
+        return true;
+      }
+      if (pattern.endsWith("/*")) { //$NON-NLS-1$
+        String folder = pattern.substring(0, pattern.length() - 2);
+        if (isLiteral(folder)) {
+          folders.add(folder);
+          return true;
+        }
+        return false;
+      }
+      if (pattern.startsWith("**/")) { //$NON-NLS-1$
+        String extension = getExtension(pattern.substring(3));
+        if (extension != null) {
+          recursiveExtensions.add(extension);
+          return true;
+        }
+        return false;
+      }
+      String extension = getExtension(pattern);
+      if (extension != null) {
+        extensions.add(extension);
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * @return the extension of a <code>*.ext</code> pattern, <code>null</code> if it's another kind of pattern.
+     */
+    private String getExtension(String pattern) {
+      if (pattern.length() < 3 || pattern.charAt(0) != '*' || pattern.charAt(1) != '.') {
+        return null;
+      }
+      String extension = pattern.substring(1);
+      if (extension.lastIndexOf('.') != 0 || extension.indexOf('/') > -1 || !isLiteral(extension)) {
+        return null;
+      }
+      return extension;
+    }
+
+    boolean matches(Candidate candidate) {
+      if (!candidate.canonical) {
+        return matchesAny(allPatterns, candidate);
+      }
+      String path = candidate.path;
+      if (exactPaths.contains(path)) {
+        return true;
+      }
+      int lastSlash = path.lastIndexOf('/');
+      if (lastSlash > -1 && !folders.isEmpty() && folders.contains(path.substring(0, lastSlash))) {
+        return true;
+      }
+      int lastDot = path.lastIndexOf('.');
+      if (lastDot > lastSlash) {
+        String extension = path.substring(lastDot);
+        if (lastSlash < 0 && extensions.contains(extension)) {
+          return true;
+        }
+        if (path.charAt(0) != '/' && recursiveExtensions.contains(extension)) {
+          return true;
+        }
+      }
+      return matchesAny(genericPatterns, candidate);
+    }
+
+    private boolean matchesAny(CompiledPattern[] patterns, Candidate candidate) {
+      if (patterns.length == 0) {
+        return false;
+      }
+      TokenizedPath tokenizedPath = candidate.getTokenizedPath();
+      for (CompiledPattern pattern : patterns) {
+        if (pattern.matches(tokenizedPath)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * A path being matched, only tokenized if some patterns need to be matched by {@link AntPathMatcher}.
+   */
+  private class Candidate {
+
+    final String path;
+
+    final boolean canonical;
+
+    private TokenizedPath tokenizedPath;
+
+    Candidate(String path) {
+      this.path = path;
+      this.canonical = isCanonical(path);
+    }
+
+    TokenizedPath getTokenizedPath() {
+      if (tokenizedPath == null) {
+        tokenizedPath = matcher.tokenize(path);
+      }
+      return tokenizedPath;
+    }
+  }
 }
@@ -28,6 +28,12 @@ class ProjectConfiguratorDelegateFactory {
    * @return a new instance of IProjectConfiguratorDelegate or null if packaging is not supported.
    */
   static IProjectConfiguratorDelegate getProjectConfiguratorDelegate(String packaging){
+    IProjectConfiguratorDelegate delegate = createProjectConfiguratorDelegate(packaging);
+    //Delegate methods are measured when configurator metrics are enabled
+    return delegate == null ? null : new MeasuredProjectConfiguratorDelegate(delegate);
+  }
+
+  private static IProjectConfiguratorDelegate createProjectConfiguratorDelegate(String packaging){
     JEEPackaging mvnPackaging = JEEPackaging.getValue(packaging);
     
     switch(mvnPackaging) {
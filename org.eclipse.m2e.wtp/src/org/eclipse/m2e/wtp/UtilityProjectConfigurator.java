@@ -62,7 +62,7 @@ public class UtilityProjectConfigurator extends AbstractProjectConfigurator {
       Set<Action> actions = new LinkedHashSet<Action>();
       installJavaFacet(actions, project, facetedProject);
       if(!actions.isEmpty()) {
-        facetedProject.modify(actions, monitor);
+        WTPProjectsUtil.installFacets(facetedProject, actions, monitor);
       }
 
       removeWTPClasspathContainer(project);
@@ -27,6 +27,8 @@ import org.eclipse.m2e.jdt.IClasspathDescriptor;
 import org.eclipse.m2e.jdt.IJavaProjectConfigurator;
 import org.eclipse.m2e.wtp.internal.filtering.EarResourceBuildParticipant;
 import org.eclipse.m2e.wtp.internal.filtering.ResourceFilteringBuildParticipant;
+import org.eclipse.m2e.wtp.internal.metrics.ConfiguratorMetrics;
+import org.eclipse.m2e.wtp.internal.metrics.ConfiguratorMetrics.Phase;
 import org.eclipse.wst.common.componentcore.ModuleCoreNature;
 import org.eclipse.wst.validation.ValidationFramework;
 import org.slf4j.Logger;
@@ -66,14 +68,19 @@ public class WTPProjectConfigurator extends AbstractProjectConfigurator implemen
         return;
       }
 
+      Phase phase = ConfiguratorMetrics.INSTANCE.start(project, "WTPProjectConfigurator.configure"); //$NON-NLS-1$
       try {
-        configuratorDelegate.configureProject(project, mavenProject, monitor);
-      } catch(MarkedException ex) {
-        LOG.error(ex.getMessage(), ex);
+        try {
+          configuratorDelegate.configureProject(project, mavenProject, monitor);
+        } catch(MarkedException ex) {
+          LOG.error(ex.getMessage(), ex);
+        }
+
+        IFolder buildFolder = project.getFolder(ProjectUtils.getBuildFolder(mavenProject, project));
+        ValidationFramework.getDefault().disableValidation(buildFolder);
+      } finally {
+        phase.stop();
       }
-
-      IFolder buildFolder = project.getFolder(ProjectUtils.getBuildFolder(mavenProject, project));
-      ValidationFramework.getDefault().disableValidation(buildFolder);
     }
   }
 
@@ -92,7 +99,12 @@ public class WTPProjectConfigurator extends AbstractProjectConfigurator implemen
       IProjectConfiguratorDelegate configuratorDelegate = ProjectConfiguratorDelegateFactory
           .getProjectConfiguratorDelegate(mavenProject.getPackaging());
       if(configuratorDelegate != null) {
-        configuratorDelegate.setModuleDependencies(project, mavenProject, monitor);
+        Phase phase = ConfiguratorMetrics.INSTANCE.start(project, "WTPProjectConfigurator.mavenProjectChanged"); //$NON-NLS-1$
+        try {
+          configuratorDelegate.setModuleDependencies(project, mavenProject, monitor);
+        } finally {
+          phase.stop();
+        }
       }
     }
   }
@@ -114,10 +126,13 @@ public class WTPProjectConfigurator extends AbstractProjectConfigurator implemen
     IProjectConfiguratorDelegate configuratorDelegate = ProjectConfiguratorDelegateFactory
         .getProjectConfiguratorDelegate(mavenProject.getPackaging());
     if(configuratorDelegate != null) {
+      Phase phase = ConfiguratorMetrics.INSTANCE.start(project, "WTPProjectConfigurator.configureClasspath"); //$NON-NLS-1$
       try {
         configuratorDelegate.configureClasspath(project, mavenProject, classpath, monitor);
       } catch(CoreException ex) {
         LOG.error(ex.getMessage(), ex);
+      } finally {
+        phase.stop();
       }
     }
   }
@@ -21,7 +21,6 @@ import org.apache.maven.project.MavenProject;
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
@@ -47,7 +46,8 @@ import org.eclipse.m2e.core.project.IMavenProjectFacade;
 import org.eclipse.m2e.core.project.MavenProjectUtils;
 import org.eclipse.m2e.jdt.internal.MavenClasspathHelpers;
 import org.eclipse.m2e.wtp.internal.Messages;
-import org.eclipse.m2e.wtp.overlay.LinkedOverlaysConstants;
+import org.eclipse.m2e.wtp.internal.metrics.ConfiguratorMetrics;
+import org.eclipse.m2e.wtp.internal.metrics.ConfiguratorMetrics.Phase;
 import org.eclipse.m2e.wtp.overlay.modulecore.IOverlayVirtualComponent;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.common.componentcore.ComponentCore;
@@ -181,110 +181,34 @@ public class WTPProjectsUtil {
    */
   public static void deleteLinks(IProject project, IPath runtimePath, List<IPath> sourcePathToKeep, IProgressMonitor monitor) throws CoreException {
     //Looks like WTP'APIS doesn't have such feature, hence this implementation.
-    StructureEdit moduleCore = null;
+    ComponentLinksTransaction links = ComponentLinksTransaction.open(project);
     try {
-      moduleCore = StructureEdit.getStructureEditForWrite(project);
-      if (moduleCore == null) {
-        return;
-      }
-      WorkbenchComponent component = moduleCore.getComponent();
-      if (component == null)  {
-        return;
-      }
-      ResourceTreeRoot root = ResourceTreeRoot.getDeployResourceTreeRoot(component);
-      ComponentResource[] resources = root.findModuleResources(runtimePath, 0);
-      for (ComponentResource link : resources) {
-        if (runtimePath.equals(link.getRuntimePath()) && 
-           (sourcePathToKeep == null || !sourcePathToKeep.contains(link.getSourcePath()))) {
-					//don't remove overlays folder
-					if (!link.getSourcePath().segment(0).equals(LinkedOverlaysConstants.OVERLAYS_FOLDER))
-					{
-						component.getResources().remove(link);
-					}
-        }
-      }
-   }
-   finally {
-     if (moduleCore != null) {
-       moduleCore.saveIfNecessary(monitor);
-       moduleCore.dispose();
-     }
+      links.deleteLinks(runtimePath, sourcePathToKeep);
+      links.commit(monitor);
+    } finally {
+      links.dispose();
     }
   }
   
   public static void insertLinkBefore(IProject project, IPath newSource, IPath referenceSource, IPath runtimePath, IProgressMonitor monitor) throws CoreException {
     //Looks like WTP'APIS doesn't have such feature, hence this implementation.
-    StructureEdit moduleCore = null;
+    ComponentLinksTransaction links = ComponentLinksTransaction.open(project);
     try {
-      moduleCore = StructureEdit.getStructureEditForWrite(project);
-      if (moduleCore == null) {
-        return;
-      }
-      WorkbenchComponent component = moduleCore.getComponent();
-      if (component == null)  {
-        return;
-      }
-      
-      int i = 0;
-      int refPosition = -1;
-      int newSourcePosition = -1;
-      List<ComponentResource> resources = component.getResources();
-      
-      for (ComponentResource resource : resources) {
-        IPath sourcePath = resource.getSourcePath();
-        if (referenceSource.equals(sourcePath)) {
-          refPosition = i;
-        } else if (newSource.equals(sourcePath)) {
-          newSourcePosition = i;
-        }
-        if (refPosition > -1 &&  newSourcePosition > -1) {
-          break;
-        }
-        i++;
-      }
-      if (refPosition < 0) {
-        refPosition = i;
-      }
-      IResource folder = project.getFolder(newSource);
-      if (newSourcePosition > refPosition) {
-        component.getResources().move(newSourcePosition, refPosition);
-      } else if (newSourcePosition < 0) {
-        ComponentResource componentResource = moduleCore.createWorkbenchModuleResource(folder);
-        componentResource.setRuntimePath(runtimePath);
-        component.getResources().add(refPosition,componentResource);
-      }
-   }
-   finally {
-     if (moduleCore != null) {
-       moduleCore.saveIfNecessary(monitor);
-       moduleCore.dispose();
-     }
+      links.insertLinkBefore(newSource, referenceSource, runtimePath);
+      links.commit(monitor);
+    } finally {
+      links.dispose();
     }
   }
 
   public static void insertLinkFirst(IProject project, IPath newSource, IPath runtimePath, IProgressMonitor monitor) throws CoreException {
     //Looks like WTP'APIS doesn't have such feature, hence this implementation.
-    StructureEdit moduleCore = null;
+    ComponentLinksTransaction links = ComponentLinksTransaction.open(project);
     try {
-      moduleCore = StructureEdit.getStructureEditForWrite(project);
-      if (moduleCore == null) {
-        return;
-      }
-      WorkbenchComponent component = moduleCore.getComponent();
-      if (component == null)  {
-        return;
-      }
-      
-      IResource folder = project.getFolder(newSource);
-      ComponentResource componentResource = moduleCore.createWorkbenchModuleResource(folder);
-      componentResource.setRuntimePath(runtimePath);
-      component.getResources().add(0,componentResource);
-   }
-   finally {
-     if (moduleCore != null) {
-       moduleCore.saveIfNecessary(monitor);
-       moduleCore.dispose();
-     }
+      links.insertLinkFirst(newSource, runtimePath);
+      links.commit(monitor);
+    } finally {
+      links.dispose();
     }
   }
   
@@ -331,6 +255,18 @@ public class WTPProjectsUtil {
     }
     return directory.removeFirstSegments(projectLocation.segmentCount()).makeRelative().setDevice(null);
   }
+
+  /**
+   * Applies facet actions to a faceted project, measuring the installation in the {@link ConfiguratorMetrics}.
+   */
+  public static void installFacets(IFacetedProject facetedProject, Set<Action> actions, IProgressMonitor monitor) throws CoreException {
+    Phase phase = ConfiguratorMetrics.INSTANCE.start(facetedProject.getProject(), "installFacets"); //$NON-NLS-1$
+    try {
+      facetedProject.modify(actions, monitor);
+    } finally {
+      phase.stop();
+    }
+  }
   
   
   public static boolean hasChanged(IVirtualReference[] existingRefs, IVirtualReference[] refArray) {
@@ -512,28 +448,47 @@ public class WTPProjectsUtil {
       return;
     }
     IVirtualFolder jsrc = component.getRootFolder().getFolder(folder);
-    for(IPath location : MavenProjectUtils.getSourceLocations(project, mavenProject.getTestCompileSourceRoots())) {
-      if (location == null) {
-		continue;
-	}
+    for(IPath location : getTestFolderLocations(project, mavenProject)) {
       jsrc.removeLink(location, 0, monitor);
     }
+  }
+
+  /**
+   * Removes the links between the test source/resource folders and a runtime folder, as part of a pending
+   * {@link ComponentLinksTransaction}.
+   *
+   * @see #removeTestFolderLinks(IProject, MavenProject, IProgressMonitor, String)
+   */
+  public static void removeTestFolderLinks(ComponentLinksTransaction links, IProject project, MavenProject mavenProject,
+      String folder) throws CoreException {
+    IPath runtimePath = new Path(folder);
+    for(IPath location : getTestFolderLocations(project, mavenProject)) {
+      links.deleteLink(location, runtimePath);
+    }
+  }
+
+  private static List<IPath> getTestFolderLocations(IProject project, MavenProject mavenProject) throws CoreException {
+    List<IPath> locations = new ArrayList<IPath>();
+    for(IPath location : MavenProjectUtils.getSourceLocations(project, mavenProject.getTestCompileSourceRoots())) {
+      if (location != null) {
+        locations.add(location);
+      }
+    }
     for(IPath location : MavenProjectUtils.getResourceLocations(project, mavenProject.getTestResources())) {
-      if (location == null) {
-		continue;
-	}
-      jsrc.removeLink(location, 0, monitor);
+      if (location != null) {
+        locations.add(location);
+      }
     }
 
     //MECLIPSEWTP-217 : exclude other test source folders, added by build-helper for instance
     if (project.hasNature(JavaCore.NATURE_ID)) {
       IJavaProject javaProject = JavaCore.create(project);
       if (javaProject == null) {
-        return;
+        return locations;
       }
       IPath testOutputDirPath = MavenProjectUtils.getProjectRelativePath(project, mavenProject.getBuild().getTestOutputDirectory());
       if (testOutputDirPath == null) {
-        return;
+        return locations;
       }
       IPath testPath = project.getFullPath().append(testOutputDirPath);
       IClasspathEntry[] cpes = javaProject.getRawClasspath();
@@ -544,12 +499,13 @@ public class WTPProjectsUtil {
           if (testPath.equals(outputLocation)) {
             IPath sourcePath = root.getFolder(cpe.getPath()).getProjectRelativePath();
             if (sourcePath != null) {
-              jsrc.removeLink(sourcePath, 0, monitor);
+              locations.add(sourcePath);
             }
           }
         }
       }
     }
+    return locations;
   }
 
 
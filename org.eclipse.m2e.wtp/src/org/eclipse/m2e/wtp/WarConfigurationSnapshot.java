@@ -0,0 +1,490 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.war.Overlay;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.m2e.core.MavenPlugin;
+import org.eclipse.m2e.core.project.IMavenProjectFacade;
+import org.eclipse.m2e.wtp.internal.StringUtils;
+
+/**
+ * Immutable values of a maven-war-plugin configuration, parsed once from its {@link Xpp3Dom}.
+ * <br/>
+ * Snapshots are cached as session properties of the project facade, so all the configurators working on the same
+ * project during a configuration cycle share the same snapshot. A cached snapshot is only reused as long as the
+ * {@link MavenProject} and the plugin configuration it was parsed from are. These are only weakly referenced, so a
+ * cached snapshot doesn't keep a stale Maven project in memory. Snapshots of identical configurations
+ * are equal, whatever the {@link MavenProject} they were parsed from.
+ *
+ * @provisional This class has been added as part of a work in progress.
+ * It is not guaranteed to work or remain the same in future releases.
+ * For more information contact <a href="mailto:m2e-wtp-dev@eclipse.org">m2e-wtp-dev@eclipse.org</a>.
+ */
+public final class WarConfigurationSnapshot {
+
+  private static final String SESSION_PROPERTY = WarConfigurationSnapshot.class.getName();
+
+  private final WeakReference<MavenProject> mavenProject;
+
+  private final WeakReference<Xpp3Dom> configuration;
+
+  private final String warSourceDirectory;
+
+  private final Xpp3Dom[] webResources;
+
+  private final String[] packagingIncludes;
+
+  private final String[] packagingExcludes;
+
+  private final String[] warSourceIncludes;
+
+  private final String[] warSourceExcludes;
+
+  private final boolean addManifestClasspath;
+
+  private final String manifestClasspathPrefix;
+
+  private final String webXml;
+
+  private final String dependentWarIncludes;
+
+  private final String dependentWarExcludes;
+
+  private final List<OverlayConfiguration> overlays;
+
+  private final String outputFileNameMapping;
+
+  private final String warName;
+
+  private final String escapeString;
+
+  private final List<String> filters;
+
+  private final int hashCode;
+
+  private WarConfigurationSnapshot(MavenProject mavenProject, Xpp3Dom config) {
+    this.mavenProject = new WeakReference<MavenProject>(mavenProject);
+    this.configuration = config == null ? null : new WeakReference<Xpp3Dom>(config);
+    warSourceDirectory = parseWarSourceDirectory(config);
+    webResources = parseWebResources(config);
+    packagingIncludes = DomUtils.getPatternsAsArray(config, "packagingIncludes"); //$NON-NLS-1$
+    packagingExcludes = DomUtils.getPatternsAsArray(config, "packagingExcludes"); //$NON-NLS-1$
+    warSourceIncludes = DomUtils.getPatternsAsArray(config, "warSourceIncludes"); //$NON-NLS-1$
+    warSourceExcludes = DomUtils.getPatternsAsArray(config, "warSourceExcludes"); //$NON-NLS-1$
+    Xpp3Dom manifest = getManifest(config);
+    Xpp3Dom addToClp = manifest == null ? null : manifest.getChild("addClasspath"); //$NON-NLS-1$
+    addManifestClasspath = addToClp != null && Boolean.valueOf(addToClp.getValue()).booleanValue();
+    manifestClasspathPrefix = parseManifestClasspathPrefix(manifest);
+    webXml = DomUtils.getChildValue(config, "webXml"); //$NON-NLS-1$
+    dependentWarIncludes = DomUtils.getChildValue(config, "dependentWarIncludes", "**/**"); //$NON-NLS-1$ //$NON-NLS-2$
+    dependentWarExcludes = DomUtils.getChildValue(config, "dependentWarExcludes", "META-INF/MANIFEST.MF"); //$NON-NLS-1$ //$NON-NLS-2$
+    overlays = parseOverlays(config);
+    outputFileNameMapping = DomUtils.getChildValue(config, "outputFileNameMapping"); //$NON-NLS-1$
+    String name = DomUtils.getChildValue(config, "warName"); //$NON-NLS-1$
+    if (StringUtils.nullOrEmpty(name)) {
+      name = mavenProject.getBuild().getFinalName();
+    }
+    warName = name;
+    escapeString = DomUtils.getChildValue(config, "escapeString"); //$NON-NLS-1$
+    filters = parseFilters(config);
+    hashCode = computeHashCode();
+  }
+
+  /**
+   * Creates a new, uncached, snapshot.
+   *
+   * @param mavenProject the Maven project
+   * @param configuration the maven-war-plugin configuration of the Maven project, can be <code>null</code>
+   */
+  public static WarConfigurationSnapshot create(MavenProject mavenProject, Xpp3Dom configuration) {
+    return new WarConfigurationSnapshot(mavenProject, configuration);
+  }
+
+  /**
+   * Returns the snapshot of a maven-war-plugin configuration, shared via the session of the project's facade.
+   *
+   * @param project the workspace project, can be <code>null</code>
+   * @param mavenProject the Maven project of the workspace project
+   * @param configuration the maven-war-plugin configuration of the Maven project, can be <code>null</code>
+   */
+  public static WarConfigurationSnapshot getSnapshot(IProject project, MavenProject mavenProject, Xpp3Dom configuration) {
+    IMavenProjectFacade facade = project == null ? null : MavenPlugin.getMavenProjectRegistry().getProject(project);
+    if (facade == null) {
+      return create(mavenProject, configuration);
+    }
+    Object cached = facade.getSessionProperty(SESSION_PROPERTY);
+    if (cached instanceof WarConfigurationSnapshot && ((WarConfigurationSnapshot)cached).isParsedFrom(mavenProject, configuration)) {
+      return (WarConfigurationSnapshot)cached;
+    }
+    WarConfigurationSnapshot snapshot = create(mavenProject, configuration);
+    facade.setSessionProperty(SESSION_PROPERTY, snapshot);
+    return snapshot;
+  }
+
+  /**
+   * @return <code>true</code> if this snapshot was parsed from these very Maven project and configuration instances.
+   */
+  boolean isParsedFrom(MavenProject mavenProject, Xpp3Dom configuration) {
+    if (this.mavenProject.get() != mavenProject) {
+      return false;
+    }
+    if (this.configuration == null) {
+      return configuration == null;
+    }
+    return configuration != null && this.configuration.get() == configuration;
+  }
+
+  private static String parseWarSourceDirectory(Xpp3Dom config) {
+    if (config == null) {
+      return null;
+    }
+    Xpp3Dom[] warSourceDirectory = config.getChildren("warSourceDirectory"); //$NON-NLS-1$
+    if(warSourceDirectory != null && warSourceDirectory.length > 0) {
+      // first one wins
+      return warSourceDirectory[0].getValue();
+    }
+    return null;
+  }
+
+  private static Xpp3Dom[] parseWebResources(Xpp3Dom config) {
+    if(config != null) {
+      Xpp3Dom webResources = config.getChild("webResources"); //$NON-NLS-1$
+      if (webResources != null && webResources.getChildCount() > 0) {
+        int count = webResources.getChildCount();
+        Xpp3Dom[] resources = new Xpp3Dom[count];
+        for (int i= 0; i< count ; i++) {
+          //MECLIPSEWTP-97 support old maven-war-plugin configurations which used <webResource>
+          // instead of <resource>
+          Xpp3Dom webResource = new Xpp3Dom(webResources.getChild(i),"resource"); //$NON-NLS-1$
+
+          //MECLIPSEWTP-152 : Web resource processing fails when targetPath has a leading /
+          Xpp3Dom targetPath = webResource.getChild("targetPath"); //$NON-NLS-1$
+          if(targetPath != null && targetPath.getValue() != null && targetPath.getValue().startsWith("/")) { //$NON-NLS-1$
+            targetPath.setValue(targetPath.getValue().substring(1));
+          }
+
+          resources[i] = webResource;
+        }
+        return resources;
+      }
+    }
+    return new Xpp3Dom[0];
+  }
+
+  private static Xpp3Dom getManifest(Xpp3Dom config) {
+    if(config != null) {
+      Xpp3Dom arch = config.getChild("archive"); //$NON-NLS-1$
+      if(arch != null) {
+        return arch.getChild("manifest"); //$NON-NLS-1$
+      }
+    }
+    return null;
+  }
+
+  private static String parseManifestClasspathPrefix(Xpp3Dom manifest) {
+    if(manifest != null) {
+      Xpp3Dom prefix = manifest.getChild("classpathPrefix"); //$NON-NLS-1$
+      if(prefix != null && !StringUtils.nullOrEmpty(prefix.getValue())) {
+        String rawPrefix = prefix.getValue().trim();
+        if (!rawPrefix.endsWith("/")){ //$NON-NLS-1$
+          rawPrefix += "/"; //$NON-NLS-1$
+        }
+        return rawPrefix;
+      }
+    }
+    return null;
+  }
+
+  private static List<OverlayConfiguration> parseOverlays(Xpp3Dom config) {
+    if(config != null) {
+      Xpp3Dom overlaysNode = config.getChild("overlays"); //$NON-NLS-1$
+      if (overlaysNode != null && overlaysNode.getChildCount() > 0) {
+        List<OverlayConfiguration> overlays = new ArrayList<OverlayConfiguration>(overlaysNode.getChildCount());
+        for (Xpp3Dom overlayNode : overlaysNode.getChildren("overlay")) { //$NON-NLS-1$
+          overlays.add(new OverlayConfiguration(overlayNode));
+        }
+        return Collections.unmodifiableList(overlays);
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  private static List<String> parseFilters(Xpp3Dom config) {
+    if(config != null) {
+      Xpp3Dom filtersNode = config.getChild("filters"); //$NON-NLS-1$
+      if (filtersNode != null && filtersNode.getChildCount() > 0) {
+        List<String> filters = new ArrayList<String>(filtersNode.getChildCount());
+        for (Xpp3Dom filterNode : filtersNode.getChildren("filter")) { //$NON-NLS-1$
+          String  filter = filterNode.getValue();
+          if (!StringUtils.nullOrEmpty(filter)) {
+            filters.add(filter);
+          }
+        }
+        return Collections.unmodifiableList(filters);
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * @return the configured warSourceDirectory, as is, or <code>null</code> if it's not set.
+   */
+  public String getWarSourceDirectory() {
+    return warSourceDirectory;
+  }
+
+  /**
+   * @return copies of the web resources, as &lt;resource&gt; nodes
+   */
+  public Xpp3Dom[] getWebResources() {
+    Xpp3Dom[] resources = new Xpp3Dom[webResources.length];
+    for (int i = 0; i < webResources.length; i++) {
+      resources[i] = new Xpp3Dom(webResources[i]);
+    }
+    return resources;
+  }
+
+  public boolean hasWebResources() {
+    return webResources.length > 0;
+  }
+
+  public String[] getPackagingIncludes() {
+    return copy(packagingIncludes);
+  }
+
+  public String[] getPackagingExcludes() {
+    return copy(packagingExcludes);
+  }
+
+  public String[] getWarSourceIncludes() {
+    return copy(warSourceIncludes);
+  }
+
+  public String[] getWarSourceExcludes() {
+    return copy(warSourceExcludes);
+  }
+
+  public boolean isAddManifestClasspath() {
+    return addManifestClasspath;
+  }
+
+  public String getManifestClasspathPrefix() {
+    return manifestClasspathPrefix;
+  }
+
+  /**
+   * @return the configured webXml, as is, or <code>null</code> if it's not set.
+   */
+  public String getWebXml() {
+    return webXml;
+  }
+
+  public String getDependentWarIncludes() {
+    return dependentWarIncludes;
+  }
+
+  public String getDependentWarExcludes() {
+    return dependentWarExcludes;
+  }
+
+  /**
+   * @return new instances of the configured overlays
+   */
+  public List<Overlay> getOverlays() {
+    if (overlays.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<Overlay> result = new ArrayList<Overlay>(overlays.size());
+    for (OverlayConfiguration overlay : overlays) {
+      result.add(overlay.toOverlay(dependentWarIncludes, dependentWarExcludes));
+    }
+    return result;
+  }
+
+  public String getOutputFileNameMapping() {
+    return outputFileNameMapping;
+  }
+
+  /**
+   * @return the warName, defaulting to the final name of the build
+   */
+  public String getWarName() {
+    return warName;
+  }
+
+  public String getEscapeString() {
+    return escapeString;
+  }
+
+  public List<String> getFilters() {
+    return filters;
+  }
+
+  private static String[] copy(String[] array) {
+    return array == null ? null : array.clone();
+  }
+
+  private int computeHashCode() {
+    int hash = hashCode(warSourceDirectory);
+    hash = 31 * hash + Arrays.hashCode(webResources);
+    hash = 31 * hash + Arrays.hashCode(packagingIncludes);
+    hash = 31 * hash + Arrays.hashCode(packagingExcludes);
+    hash = 31 * hash + Arrays.hashCode(warSourceIncludes);
+    hash = 31 * hash + Arrays.hashCode(warSourceExcludes);
+    hash = 31 * hash + (addManifestClasspath ? 1 : 0);
+    hash = 31 * hash + hashCode(manifestClasspathPrefix);
+    hash = 31 * hash + hashCode(webXml);
+    hash = 31 * hash + dependentWarIncludes.hashCode();
+    hash = 31 * hash + dependentWarExcludes.hashCode();
+    hash = 31 * hash + overlays.hashCode();
+    hash = 31 * hash + hashCode(outputFileNameMapping);
+    hash = 31 * hash + hashCode(warName);
+    hash = 31 * hash + hashCode(escapeString);
+    return 31 * hash + filters.hashCode();
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof WarConfigurationSnapshot)) {
+      return false;
+    }
+    WarConfigurationSnapshot other = (WarConfigurationSnapshot)obj;
+    return hashCode == other.hashCode
+        && addManifestClasspath == other.addManifestClasspath
+        && equals(warSourceDirectory, other.warSourceDirectory)
+        && equals(warName, other.warName)
+        && equals(webXml, other.webXml)
+        && equals(manifestClasspathPrefix, other.manifestClasspathPrefix)
+        && equals(outputFileNameMapping, other.outputFileNameMapping)
+        && equals(escapeString, other.escapeString)
+        && dependentWarIncludes.equals(other.dependentWarIncludes)
+        && dependentWarExcludes.equals(other.dependentWarExcludes)
+        && Arrays.equals(packagingIncludes, other.packagingIncludes)
+        && Arrays.equals(packagingExcludes, other.packagingExcludes)
+        && Arrays.equals(warSourceIncludes, other.warSourceIncludes)
+        && Arrays.equals(warSourceExcludes, other.warSourceExcludes)
+        && overlays.equals(other.overlays)
+        && filters.equals(other.filters)
+        && Arrays.equals(webResources, other.webResources);
+  }
+
+  private static int hashCode(Object o) {
+    return o == null ? 0 : o.hashCode();
+  }
+
+  private static boolean equals(Object o1, Object o2) {
+    return o1 == null ? o2 == null : o1.equals(o2);
+  }
+
+  /**
+   * Immutable &lt;overlay&gt; configuration. {@link Overlay}s are mutable, and get their artifact resolved, so
+   * a new instance is created for each caller.
+   */
+  private static final class OverlayConfiguration {
+
+    private final String artifactId;
+
+    private final String groupId;
+
+    private final String[] excludes;
+
+    private final String[] includes;
+
+    private final String classifier;
+
+    private final boolean filtered;
+
+    private final boolean skip;
+
+    private final String type;
+
+    private final String targetPath;
+
+    OverlayConfiguration(Xpp3Dom overlayNode) {
+      artifactId = DomUtils.getChildValue(overlayNode, "artifactId"); //$NON-NLS-1$
+      groupId = DomUtils.getChildValue(overlayNode, "groupId"); //$NON-NLS-1$
+      excludes = DomUtils.getChildrenAsStringArray(overlayNode.getChild("excludes"), "exclude"); //$NON-NLS-1$ //$NON-NLS-2$
+      includes = DomUtils.getChildrenAsStringArray(overlayNode.getChild("includes"), "include"); //$NON-NLS-1$ //$NON-NLS-2$
+      classifier = DomUtils.getChildValue(overlayNode, "classifier"); //$NON-NLS-1$
+      filtered = DomUtils.getBooleanChildValue(overlayNode, "filtered"); //$NON-NLS-1$
+      skip = DomUtils.getBooleanChildValue(overlayNode, "skip"); //$NON-NLS-1$
+      type = DomUtils.getChildValue(overlayNode, "type", "war"); //$NON-NLS-1$ //$NON-NLS-2$
+      targetPath = DomUtils.getChildValue(overlayNode, "targetPath", "/"); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    Overlay toOverlay(String defaultIncludes, String defaultExcludes) {
+      Overlay overlay = new Overlay();
+      overlay.setArtifactId(artifactId);
+      overlay.setGroupId(groupId);
+      overlay.setClassifier(classifier);
+      if (excludes== null || excludes.length ==0) {
+        overlay.setExcludes(defaultExcludes);
+      } else {
+        overlay.setExcludes(excludes.clone());
+      }
+      if (includes== null || includes.length ==0) {
+        overlay.setIncludes(defaultIncludes);
+      } else {
+        overlay.setIncludes(includes.clone());
+      }
+      overlay.setFiltered(filtered);
+      overlay.setSkip(skip);
+      overlay.setTargetPath(targetPath);
+      overlay.setType(type);
+      return overlay;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = WarConfigurationSnapshot.hashCode(artifactId);
+      hash = 31 * hash + WarConfigurationSnapshot.hashCode(groupId);
+      hash = 31 * hash + WarConfigurationSnapshot.hashCode(classifier);
+      hash = 31 * hash + Arrays.hashCode(excludes);
+      hash = 31 * hash + Arrays.hashCode(includes);
+      hash = 31 * hash + (filtered ? 1 : 0);
+      hash = 31 * hash + (skip ? 1 : 0);
+      hash = 31 * hash + type.hashCode();
+      return 31 * hash + targetPath.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof OverlayConfiguration)) {
+        return false;
+      }
+      OverlayConfiguration other = (OverlayConfiguration)obj;
+      return filtered == other.filtered && skip == other.skip
+          && WarConfigurationSnapshot.equals(artifactId, other.artifactId)
+          && WarConfigurationSnapshot.equals(groupId, other.groupId)
+          && WarConfigurationSnapshot.equals(classifier, other.classifier)
+          && type.equals(other.type) && targetPath.equals(other.targetPath)
+          && Arrays.equals(excludes, other.excludes) && Arrays.equals(includes, other.includes);
+    }
+  }
+}
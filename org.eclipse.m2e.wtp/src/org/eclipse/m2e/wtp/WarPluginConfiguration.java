@@ -10,8 +10,7 @@ package org.eclipse.m2e.wtp;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.maven.model.Plugin;
@@ -32,7 +31,6 @@ import org.eclipse.m2e.core.internal.IMavenConstants;
 import org.eclipse.m2e.core.internal.markers.SourceLocation;
 import org.eclipse.m2e.core.internal.markers.SourceLocationHelper;
 import org.eclipse.m2e.wtp.internal.Messages;
-import org.eclipse.m2e.wtp.internal.StringUtils;
 import org.eclipse.m2e.wtp.namemapping.FileNameMapping;
 import org.eclipse.m2e.wtp.namemapping.PatternBasedFileNameMapping;
 import org.eclipse.osgi.util.NLS;
@@ -45,6 +43,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  *  maven-war-plugin configuration model.
+ *  <br/>
+ *  The configuration is parsed once, into a {@link WarConfigurationSnapshot} shared by all the configurations of
+ *  the same project and Maven project.
  *  
  * @see <a href="http://maven.apache.org/plugins/maven-war-plugin/war-mojo.html">http://maven.apache.org/plugins/maven-war-plugin/war-mojo.html</a>
  *  
@@ -79,6 +80,8 @@ public class WarPluginConfiguration extends AbstractFilteringSupportMavenPlugin
   
   private MavenProject mavenProject;
 
+  private WarConfigurationSnapshot snapshot;
+
   public WarPluginConfiguration(MavenProject mavenProject, IProject project) {
     this.project = project;
     this.mavenProject = mavenProject;
@@ -96,109 +99,59 @@ public class WarPluginConfiguration extends AbstractFilteringSupportMavenPlugin
     return WAR_PACKAGING.equals(mavenProject.getPackaging());
   }
 
-  public Xpp3Dom[] getWebResources() {
+  /**
+   * @return the parsed configuration, shared via the session of the project's facade.
+   */
+  public WarConfigurationSnapshot getSnapshot() {
     Xpp3Dom config = getConfiguration();
-    if(config != null) {
-      Xpp3Dom webResources = config.getChild("webResources"); //$NON-NLS-1$
-      if (webResources != null && webResources.getChildCount() > 0)
-      {
-        int count = webResources.getChildCount();  
-        Xpp3Dom[] resources = new Xpp3Dom[count];
-        for (int i= 0; i< count ; i++) {
-          //MECLIPSEWTP-97 support old maven-war-plugin configurations which used <webResource> 
-          // instead of <resource>
-          Xpp3Dom webResource = new Xpp3Dom(webResources.getChild(i),"resource");  //$NON-NLS-1$
-          
-          //MECLIPSEWTP-152 : Web resource processing fails when targetPath has a leading /
-          Xpp3Dom targetPath = webResource.getChild("targetPath"); //$NON-NLS-1$
-          if(targetPath != null && targetPath.getValue() != null && targetPath.getValue().startsWith("/")) { //$NON-NLS-1$
-            targetPath.setValue(targetPath.getValue().substring(1));
-          }
-
-          resources[i] = webResource;
-        }
-        return resources;
-      }
+    if (snapshot == null || !snapshot.isParsedFrom(mavenProject, config)) {
+      snapshot = WarConfigurationSnapshot.getSnapshot(project, mavenProject, config);
     }
-    return new Xpp3Dom[0];
+    return snapshot;
+  }
+
+  public Xpp3Dom[] getWebResources() {
+    return getSnapshot().getWebResources();
   }
 
   public String getWarSourceDirectory() {
-    Xpp3Dom dom = getConfiguration();
-    if(dom == null) {
+    String dir = getSnapshot().getWarSourceDirectory();
+    if(dir == null) {
       return WAR_SOURCE_FOLDER;
     }
-
-    Xpp3Dom[] warSourceDirectory = dom.getChildren("warSourceDirectory"); //$NON-NLS-1$
-    if(warSourceDirectory != null && warSourceDirectory.length > 0) {
-      // first one wins
-      String dir = warSourceDirectory[0].getValue();
-      //MNGECLIPSE-1600 fixed absolute warSourceDirectory thanks to Snjezana Peco's patch
-      if(project != null) {
-        return WTPProjectsUtil.tryProjectRelativePath(project, dir).toOSString();
-      }
-      return dir;
+    //MNGECLIPSE-1600 fixed absolute warSourceDirectory thanks to Snjezana Peco's patch
+    if(project != null) {
+      return WTPProjectsUtil.tryProjectRelativePath(project, dir).toOSString();
     }
-
-    return WAR_SOURCE_FOLDER;
+    return dir;
   }
 
   @Override
 public String[] getPackagingExcludes() {
-    return DomUtils.getPatternsAsArray(getConfiguration(),"packagingExcludes"); //$NON-NLS-1$
+    return getSnapshot().getPackagingExcludes();
   }
 
   @Override
 public String[] getPackagingIncludes() {
-    return DomUtils.getPatternsAsArray(getConfiguration(),"packagingIncludes"); //$NON-NLS-1$
+    return getSnapshot().getPackagingIncludes();
   }
 
   @Override
 public String[] getSourceExcludes() {
-    return DomUtils.getPatternsAsArray(getConfiguration(),"warSourceExcludes"); //$NON-NLS-1$
+    return getSnapshot().getWarSourceExcludes();
   }
 
   @Override
 public String[] getSourceIncludes() {
-    return DomUtils.getPatternsAsArray(getConfiguration(),"warSourceIncludes"); //$NON-NLS-1$
+    return getSnapshot().getWarSourceIncludes();
   }
 
   public boolean isAddManifestClasspath() {
-    Xpp3Dom config = getConfiguration();
-    if(config != null) {
-      Xpp3Dom arch = config.getChild("archive"); //$NON-NLS-1$
-      if(arch != null) {
-        Xpp3Dom manifest = arch.getChild("manifest"); //$NON-NLS-1$
-        if(manifest != null) {
-          Xpp3Dom addToClp = manifest.getChild("addClasspath"); //$NON-NLS-1$
-          if(addToClp != null) {
-            return Boolean.valueOf(addToClp.getValue());
-          }
-        }
-      }
-  }
-    return false;
+    return getSnapshot().isAddManifestClasspath();
   }
 
   public String getManifestClasspathPrefix() {
-    Xpp3Dom config = getConfiguration();
-    if(config != null) {
-      Xpp3Dom arch = config.getChild("archive"); //$NON-NLS-1$
-      if(arch != null) {
-        Xpp3Dom manifest = arch.getChild("manifest"); //$NON-NLS-1$
-        if(manifest != null) {
-          Xpp3Dom prefix = manifest.getChild("classpathPrefix"); //$NON-NLS-1$
-          if(prefix != null && !StringUtils.nullOrEmpty(prefix.getValue())) {
-            String rawPrefix = prefix.getValue().trim();
-            if (!rawPrefix.endsWith("/")){ //$NON-NLS-1$
-              rawPrefix += "/"; //$NON-NLS-1$
-            }
-            return rawPrefix;
-          }
-        }
-      }
-    }
-    return null;
+    return getSnapshot().getManifestClasspathPrefix();
   }
 
   public IProjectFacetVersion getWebFacetVersion(IProject project) {
@@ -269,14 +222,9 @@ public String[] getSourceIncludes() {
    * @return the custom location of web.xml or null if &lt;webXml&gt; is not set
    */
   public String getCustomWebXml(IProject project) {
-    Xpp3Dom config = getConfiguration();
-    if(config != null) {
-      Xpp3Dom webXmlDom = config.getChild("webXml"); //$NON-NLS-1$
-      if(webXmlDom != null && webXmlDom.getValue() != null) {
-        String webXmlFile = webXmlDom.getValue().trim();
-        webXmlFile = ProjectUtils.getRelativePath(project, webXmlFile);
-        return webXmlFile;
-      }
+    String webXmlFile = getSnapshot().getWebXml();
+    if(webXmlFile != null) {
+      return ProjectUtils.getRelativePath(project, webXmlFile);
     }
     return null;
   }
@@ -305,72 +253,19 @@ public String[] getSourceIncludes() {
   }
   
   public String getDependentWarIncludes() {
-    return DomUtils.getChildValue(getConfiguration(), "dependentWarIncludes", "**/**"); //$NON-NLS-1$ //$NON-NLS-2$
+    return getSnapshot().getDependentWarIncludes();
   }
 
   public String getDependentWarExcludes() {
-    return DomUtils.getChildValue(getConfiguration(), "dependentWarExcludes", "META-INF/MANIFEST.MF"); //$NON-NLS-1$ //$NON-NLS-2$
+    return getSnapshot().getDependentWarExcludes();
   }
 
   public List<Overlay> getConfiguredOverlays() {
-    Xpp3Dom config = getConfiguration();
-    if(config != null) {
-      Xpp3Dom overlaysNode = config.getChild("overlays"); //$NON-NLS-1$
-      if (overlaysNode != null && overlaysNode.getChildCount() > 0) {
-        List<Overlay> overlays = new ArrayList<Overlay>(overlaysNode.getChildCount());
-        for (Xpp3Dom overlayNode : overlaysNode.getChildren("overlay")) { //$NON-NLS-1$
-          overlays.add(parseOverlay(overlayNode));
-        }
-        return overlays;
-      }
-    }
-    return Collections.emptyList();
-  }
-  
-  /**
-   * @param overlayNode
-   * @return
-   */
-  private Overlay parseOverlay(Xpp3Dom overlayNode) {
-    String artifactId = DomUtils.getChildValue(overlayNode, "artifactId"); //$NON-NLS-1$
-    String groupId = DomUtils.getChildValue(overlayNode, "groupId"); //$NON-NLS-1$
-    String[] exclusions = DomUtils.getChildrenAsStringArray(overlayNode.getChild("excludes"), "exclude"); //$NON-NLS-1$ //$NON-NLS-2$
-    String[] inclusions = DomUtils.getChildrenAsStringArray(overlayNode.getChild("includes"), "include"); //$NON-NLS-1$ //$NON-NLS-2$
-    String classifier = DomUtils.getChildValue(overlayNode, "classifier"); //$NON-NLS-1$
-    boolean filtered = DomUtils.getBooleanChildValue(overlayNode, "filtered"); //$NON-NLS-1$
-    boolean skip = DomUtils.getBooleanChildValue(overlayNode, "skip"); //$NON-NLS-1$
-    String type = DomUtils.getChildValue(overlayNode, "type", "war"); //$NON-NLS-1$ //$NON-NLS-2$
-    String targetPath = DomUtils.getChildValue(overlayNode, "targetPath", "/"); //$NON-NLS-1$ //$NON-NLS-2$
-
-    Overlay overlay = new Overlay();
-    overlay.setArtifactId(artifactId);
-    overlay.setGroupId(groupId);
-    overlay.setClassifier(classifier);
-    if (exclusions== null || exclusions.length ==0) {
-      overlay.setExcludes(getDependentWarExcludes());
-    } else {
-      overlay.setExcludes(exclusions);
-    }
-    if (inclusions== null || inclusions.length ==0) {
-      overlay.setIncludes(getDependentWarIncludes());
-    } else {
-      overlay.setIncludes(inclusions);
-    }
-    overlay.setFiltered(filtered);
-    overlay.setSkip(skip);
-    overlay.setTargetPath(targetPath);
-    overlay.setType(type);
-    
-    return overlay;
+    return getSnapshot().getOverlays();
   }
 
   public FileNameMapping getFileNameMapping() {
-    Xpp3Dom config = getConfiguration();
-    String expression = null;
-    if(config != null) {
-      expression = DomUtils.getChildValue(config, "outputFileNameMapping"); //$NON-NLS-1$
-    }
-    return new PatternBasedFileNameMapping(expression);
+    return new PatternBasedFileNameMapping(getSnapshot().getOutputFileNameMapping());
   }
   
   @Override
@@ -379,15 +274,17 @@ protected String getFilteringAttribute() {
   }
   
   public String getWarName() {
-    Xpp3Dom config = getConfiguration();
-    String warName = null;
-    if (config != null) {
-      warName = DomUtils.getChildValue(config, "warName"); //$NON-NLS-1$
-    }
-    if (StringUtils.nullOrEmpty(warName)) {
-      warName = mavenProject.getBuild().getFinalName();
-    }
-    return warName;
+    return getSnapshot().getWarName();
+  }
+
+  @Override
+  public String getEscapeString() {
+    return getSnapshot().getEscapeString();
+  }
+
+  @Override
+  public Collection<String> getFilters() {
+    return getSnapshot().getFilters();
   }
 
   @Override
@@ -103,7 +103,7 @@ public class WebFragmentProjectConfigurator extends AbstractProjectConfigurator
                             WTPProjectsUtil.WEB_FRAGMENT_3_0, cfg));
       }
 
-      facetedProject.modify(actions, monitor);
+      WTPProjectsUtil.installFacets(facetedProject, actions, monitor);
       
       //remove test folder links
       WTPProjectsUtil.removeTestFolderLinks(project, facade.getMavenProject(), monitor, "/"); //$NON-NLS-1$
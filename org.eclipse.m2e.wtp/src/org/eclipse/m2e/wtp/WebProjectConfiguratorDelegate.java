@@ -51,12 +51,12 @@ import org.eclipse.m2e.wtp.internal.ExtensionReader;
 import org.eclipse.m2e.wtp.internal.Messages;
 import org.eclipse.m2e.wtp.internal.filtering.WebResourceFilteringConfiguration;
 import org.eclipse.m2e.wtp.internal.utilities.DebugUtilities;
+import org.eclipse.m2e.wtp.internal.utilities.ReferenceDelta;
 import org.eclipse.m2e.wtp.namemapping.FileNameMapping;
 import org.eclipse.wst.common.componentcore.ComponentCore;
 import org.eclipse.wst.common.componentcore.ModuleCoreNature;
 import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
 import org.eclipse.wst.common.componentcore.resources.IVirtualReference;
-import org.eclipse.wst.common.componentcore.resources.IVirtualResource;
 import org.eclipse.wst.common.frameworks.datamodel.DataModelFactory;
 import org.eclipse.wst.common.frameworks.datamodel.IDataModel;
 import org.eclipse.wst.common.project.facet.core.IFacetedProject;
@@ -147,7 +147,7 @@ protected void configure(IProject project, MavenProject mavenProject, IProgressM
           fileCleaner.addFiles(contentFolder.getFile("WEB-INF/web.xml").getProjectRelativePath()); //$NON-NLS-1$
         }
         
-        facetedProject.modify(actions, monitor);
+        WTPProjectsUtil.installFacets(facetedProject, actions, monitor);
       } finally {
         //Remove any unwanted MANIFEST.MF the Facet installation has created
         fileCleaner.cleanUp();
@@ -157,9 +157,6 @@ protected void configure(IProject project, MavenProject mavenProject, IProgressM
     //MECLIPSEWTP-41 Fix the missing moduleCoreNature
     fixMissingModuleCoreNature(project, monitor);
     
-    // MNGECLIPSE-632 remove test sources/resources from WEB-INF/classes
-    removeTestFolderLinks(project, mavenProject, monitor, "/WEB-INF/classes"); //$NON-NLS-1$
-
     addContainerAttribute(project, DEPENDENCY_ATTRIBUTE, monitor);
 
     //MNGECLIPSE-2279 change the context root if needed
@@ -167,41 +164,49 @@ protected void configure(IProject project, MavenProject mavenProject, IProgressM
       J2EEProjectUtilities.setServerContextRoot(project, contextRoot);
     }
     
-    if (customWebXml != null) {
-      linkFileFirst(project, customWebXml, "/WEB-INF/web.xml", monitor); //$NON-NLS-1$
-    }
-
-    
     component = ComponentCore.createComponent(project, true);
     if(component != null) {      
       IPath warPath = new Path("/").append(contentFolder.getProjectRelativePath()); //$NON-NLS-1$
       List<IPath> sourcePaths = new ArrayList<IPath>();
       sourcePaths.add(warPath);
-      if (!WTPProjectsUtil.hasLink(project, ROOT_PATH, warPath, monitor)) {
-        component.getRootFolder().createLink(warPath, IVirtualResource.NONE, monitor); 
-      }
-      //MECLIPSEWTP-22 support web filtered resources. Filtered resources directory must be declared BEFORE
-      //the regular web source directory. First resources discovered take precedence on deployment
-      IPath filteredFolder = new Path("/").append(WebResourceFilteringConfiguration.getTargetFolder(mavenProject, project)); //$NON-NLS-1$
-      
-      boolean useBuildDir = MavenWtpPlugin.getDefault().getMavenWtpPreferencesManager().getPreferences(project).isWebMavenArchiverUsesBuildDirectory();
-      boolean useWebresourcefiltering = config.getWebResources() != null 
-                                        && config.getWebResources().length > 0 
-                                        || config.isFilteringDeploymentDescriptorsEnabled();
+      //Like IVirtualFolder.createLink(), make sure the linked warSourceDirectory exists
+      ProjectUtils.createFolder(contentFolder, monitor);
+      //Apply all the link changes at once, the .component file is written only if they actually changed 
+      ComponentLinksTransaction links = ComponentLinksTransaction.open(project);
+      try {
+        // MNGECLIPSE-632 remove test sources/resources from WEB-INF/classes
+        WTPProjectsUtil.removeTestFolderLinks(links, project, mavenProject, "/WEB-INF/classes"); //$NON-NLS-1$
 
-      if (useBuildDir || useWebresourcefiltering) {
+        if (customWebXml != null) {
+          linkFileFirst(links, customWebXml, "/WEB-INF/web.xml"); //$NON-NLS-1$
+        }
+
+        links.addLink(warPath, ROOT_PATH);
+        //MECLIPSEWTP-22 support web filtered resources. Filtered resources directory must be declared BEFORE
+        //the regular web source directory. First resources discovered take precedence on deployment
+        IPath filteredFolder = new Path("/").append(WebResourceFilteringConfiguration.getTargetFolder(mavenProject, project)); //$NON-NLS-1$
         
-        if (!useBuildDir && useWebresourcefiltering) {
-          mavenMarkerManager.addMarker(project, MavenWtpConstants.WTP_MARKER_CONFIGURATION_ERROR_ID, 
-                                      Messages.markers_mavenarchiver_output_settings_ignored_warning, -1, IMarker.SEVERITY_WARNING);
+        boolean useBuildDir = MavenWtpPlugin.getDefault().getMavenWtpPreferencesManager().getPreferences(project).isWebMavenArchiverUsesBuildDirectory();
+        boolean useWebresourcefiltering = config.getSnapshot().hasWebResources()
+                                          || config.isFilteringDeploymentDescriptorsEnabled();
+
+        if (useBuildDir || useWebresourcefiltering) {
+          
+          if (!useBuildDir && useWebresourcefiltering) {
+            mavenMarkerManager.addMarker(project, MavenWtpConstants.WTP_MARKER_CONFIGURATION_ERROR_ID, 
+                                        Messages.markers_mavenarchiver_output_settings_ignored_warning, -1, IMarker.SEVERITY_WARNING);
+          }
+          sourcePaths.add(filteredFolder);
+          links.insertLinkBefore(filteredFolder, warPath, ROOT_PATH);
+        } else {
+          links.deleteLink(filteredFolder, ROOT_PATH);
         }
-        sourcePaths.add(filteredFolder);
-        WTPProjectsUtil.insertLinkBefore(project, filteredFolder, warPath, new Path("/"), monitor); //$NON-NLS-1$
-      } else {
-        component.getRootFolder().removeLink(filteredFolder,IVirtualResource.NONE, monitor);
-      }
 
-      WTPProjectsUtil.deleteLinks(project, ROOT_PATH, sourcePaths, monitor);
+        links.deleteLinks(ROOT_PATH, sourcePaths);
+        links.commit(monitor);
+      } finally {
+        links.dispose();
+      }
       
       WTPProjectsUtil.setDefaultDeploymentDescriptorFolder(component.getRootFolder(), warPath, monitor);
 
@@ -243,6 +248,7 @@ public void setModuleDependencies(IProject project, MavenProject mavenProject, I
     
     Set<IVirtualReference> references = new LinkedHashSet<IVirtualReference>();
     List<IMavenProjectFacade> exportedDependencies = getWorkspaceDependencies(project, mavenProject);
+    ArtifactIndex artifactIndex = ArtifactIndex.getArtifactIndex(project, mavenProject);
     
     Set<String> dups = new HashSet<String>();
     Set<String> names = new HashSet<String>();
@@ -268,7 +274,7 @@ public void setModuleDependencies(IProject project, MavenProject mavenProject, I
   		      
         ArtifactKey artifactKey = ArtifactHelper.toArtifactKey(depMavenProject.getArtifact());
         //Get artifact using the proper classifier
-        Artifact artifact = ArtifactHelper.getArtifact(mavenProject.getArtifacts(), artifactKey);
+        Artifact artifact = artifactIndex.getArtifact(artifactKey);
         if (artifact == null) {
           //could not map key to artifact
           artifact = depMavenProject.getArtifact();
@@ -311,13 +317,20 @@ public void setModuleDependencies(IProject project, MavenProject mavenProject, I
     
     IVirtualReference[] newRefs = references.toArray(new IVirtualReference[references.size()]);
     
-    if (WTPProjectsUtil.hasChanged(oldRefs, newRefs)){
-      //Only write in the .component file if necessary 
+    //Only write in the .component file if necessary, reordered references are not a change
+    ReferenceDelta delta = ReferenceDelta.compute(oldRefs, newRefs);
+    if (!delta.isEmpty()) {
       IVirtualReference[] overlayRefs = WTPProjectsUtil.extractHardReferences(component, true);
-      IVirtualReference[] allRefs = new IVirtualReference[overlayRefs.length + newRefs.length];
-      System.arraycopy(newRefs, 0, allRefs, 0, newRefs.length);
-      System.arraycopy(overlayRefs, 0, allRefs, newRefs.length, overlayRefs.length);
-      component.setReferences(allRefs);
+      if (delta.isAdditionOnly() && overlayRefs.length == 0) {
+        //Appending is only safe without overlays, their references must stay last
+        component.addReferences(delta.getAdded());
+      } else {
+        DebugUtilities.debug("Updating "+project.getName()+" references, "+delta); //$NON-NLS-1$ //$NON-NLS-2$
+        IVirtualReference[] allRefs = new IVirtualReference[overlayRefs.length + newRefs.length];
+        System.arraycopy(newRefs, 0, allRefs, 0, newRefs.length);
+        System.arraycopy(overlayRefs, 0, allRefs, newRefs.length, overlayRefs.length);
+        component.setReferences(allRefs);
+      }
     }
     
     //TODO why a 2nd loop???
@@ -393,12 +406,14 @@ public void configureClasspath(IProject project, MavenProject mavenProject, ICla
     FileNameMapping fileNameMapping = config.getFileNameMapping();
     String targetDir = mavenProject.getBuild().getDirectory();
 
+    ArtifactIndex artifactIndex = ArtifactIndex.getArtifactIndex(project, mavenProject);
+
     // first pass removes projects, adds non-dependency attribute and collects colliding filenames
     Iterator<IClasspathEntryDescriptor> iter = classpath.getEntryDescriptors().iterator();
     while (iter.hasNext()) {
       IClasspathEntryDescriptor descriptor = iter.next();
       String scope = descriptor.getScope();
-      Artifact artifact = ArtifactHelper.getArtifact(mavenProject.getArtifacts(), descriptor.getArtifactKey());
+      Artifact artifact = artifactIndex.getArtifact(descriptor.getArtifactKey());
 
       ArtifactHelper.fixArtifactHandler(artifact.getArtifactHandler());
 
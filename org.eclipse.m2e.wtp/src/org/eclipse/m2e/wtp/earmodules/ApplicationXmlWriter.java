@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.earmodules;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+
+import org.codehaus.plexus.util.StringUtils;
+import org.codehaus.plexus.util.xml.PrettyPrintXMLWriter;
+import org.codehaus.plexus.util.xml.XMLWriter;
+
+/**
+ * Generates an application.xml deployment descriptor from {@link EarModule}s, without invoking the maven-ear-plugin.
+ * <br/>
+ * The generated content follows maven-ear-plugin's generate-application-xml goal : same elements, in the same order,
+ * depending on the Java EE version.
+ *
+ * @provisional This class has been added as part of a work in progress.
+ * It is not guaranteed to work or remain the same in future releases.
+ * For more information contact <a href="mailto:m2e-wtp-dev@eclipse.org">m2e-wtp-dev@eclipse.org</a>.
+ */
+public class ApplicationXmlWriter {
+
+  private static final String INDENT = "  "; //$NON-NLS-1$
+
+  private static final String DOCTYPE_1_3 = "application PUBLIC\n" //$NON-NLS-1$
+      + "\t\"-//Sun Microsystems, Inc.//DTD J2EE Application 1.3//EN\"\n" //$NON-NLS-1$
+      + "\t\"http://java.sun.com/dtd/application_1_3.dtd\""; //$NON-NLS-1$
+
+  private final String version;
+
+  private final String encoding;
+
+  private String applicationName;
+
+  private String displayName;
+
+  private String description;
+
+  private String initializeInOrder;
+
+  private String libraryDirectory;
+
+  /**
+   * @param version the Java EE version, i.e. 1.3, 1.4, 5, 6 or 7
+   * @param encoding the encoding of the generated file
+   */
+  public ApplicationXmlWriter(String version, String encoding) {
+    this.version = normalizeVersion(version);
+    this.encoding = encoding;
+  }
+
+  /**
+   * @return <code>true</code> if the given Java EE version is supported
+   */
+  public static boolean isSupportedVersion(String version) {
+    return normalizeVersion(version) != null;
+  }
+
+  public void setApplicationName(String applicationName) {
+    this.applicationName = applicationName;
+  }
+
+  public void setDisplayName(String displayName) {
+    this.displayName = displayName;
+  }
+
+  public void setDescription(String description) {
+    this.description = description;
+  }
+
+  public void setInitializeInOrder(String initializeInOrder) {
+    this.initializeInOrder = initializeInOrder;
+  }
+
+  public void setLibraryDirectory(String libraryDirectory) {
+    this.libraryDirectory = libraryDirectory;
+  }
+
+  /**
+   * @return the content of the application.xml file, encoded in the configured encoding.
+   */
+  public byte[] write(Collection<EarModule> modules, Collection<SecurityRoleKey> securityRoles) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+    Writer out = new OutputStreamWriter(bytes, encoding);
+    XMLWriter writer;
+    if ("1.3".equals(version)) { //$NON-NLS-1$
+      writer = new PrettyPrintXMLWriter(out, INDENT, encoding, DOCTYPE_1_3);
+      writer.startElement("application"); //$NON-NLS-1$
+    } else {
+      writer = new PrettyPrintXMLWriter(out, INDENT, encoding, null);
+      writeApplicationElement(writer);
+    }
+
+    if (isAtLeast(6)) {
+      writeElement(writer, "application-name", applicationName); //$NON-NLS-1$
+    }
+    // the order of the description and display-name elements was reversed in J2EE 1.4
+    if ("1.3".equals(version)) { //$NON-NLS-1$
+      writeElement(writer, "display-name", displayName); //$NON-NLS-1$
+      writeElement(writer, "description", description); //$NON-NLS-1$
+    } else {
+      writeElement(writer, "description", description); //$NON-NLS-1$
+      writeElement(writer, "display-name", displayName); //$NON-NLS-1$
+    }
+    if (isAtLeast(6)) {
+      writeElement(writer, "initialize-in-order", initializeInOrder); //$NON-NLS-1$
+    }
+
+    for (EarModule module : modules) {
+      writeModule(writer, module);
+    }
+
+    for (SecurityRoleKey securityRole : securityRoles) {
+      writer.startElement("security-role"); //$NON-NLS-1$
+      if (securityRole.getId() != null) {
+        writer.addAttribute("id", securityRole.getId()); //$NON-NLS-1$
+      }
+      writeElement(writer, "description", securityRole.getDescription()); //$NON-NLS-1$
+      writeElement(writer, "role-name", securityRole.getRoleName()); //$NON-NLS-1$
+      writer.endElement();
+    }
+
+    if (isAtLeast(5)) {
+      writeElement(writer, "library-directory", libraryDirectory); //$NON-NLS-1$
+    }
+
+    writer.endElement();
+    out.close();
+    return bytes.toByteArray();
+  }
+
+  private void writeApplicationElement(XMLWriter writer) {
+    String namespace;
+    String schema;
+    if ("1.4".equals(version)) { //$NON-NLS-1$
+      namespace = "http://java.sun.com/xml/ns/j2ee"; //$NON-NLS-1$
+      schema = "application_1_4.xsd"; //$NON-NLS-1$
+    } else if ("7".equals(version)) { //$NON-NLS-1$
+      namespace = "http://xmlns.jcp.org/xml/ns/javaee"; //$NON-NLS-1$
+      schema = "application_7.xsd"; //$NON-NLS-1$
+    } else {
+      namespace = "http://java.sun.com/xml/ns/javaee"; //$NON-NLS-1$
+      schema = "application_" + version + ".xsd"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    writer.startElement("application"); //$NON-NLS-1$
+    writer.addAttribute("xmlns", namespace); //$NON-NLS-1$
+    writer.addAttribute("xmlns:xsi", "http://www.w3.org/2001/XMLSchema-instance"); //$NON-NLS-1$ //$NON-NLS-2$
+    writer.addAttribute("xsi:schemaLocation", namespace + " " + namespace + "/" + schema); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    writer.addAttribute("version", version); //$NON-NLS-1$
+  }
+
+  private static void writeModule(XMLWriter writer, EarModule module) {
+    String element;
+    if (module instanceof WebModule) {
+      writer.startElement("module"); //$NON-NLS-1$
+      writer.startElement("web"); //$NON-NLS-1$
+      writeElement(writer, "web-uri", module.getUri()); //$NON-NLS-1$
+      writeElement(writer, "context-root", ((WebModule) module).getContextRoot()); //$NON-NLS-1$
+      writer.endElement();
+      writeElement(writer, "alt-dd", module.getAltDeploymentDescriptor()); //$NON-NLS-1$
+      writer.endElement();
+      return;
+    } else if (module instanceof EjbModule) {
+      element = "ejb"; //$NON-NLS-1$
+    } else if (module instanceof AppClientModule) {
+      element = "java"; //$NON-NLS-1$
+    } else if (module instanceof RarModule || module instanceof SarModule) {
+      //sar modules are declared as connectors when JBoss support is not enabled
+      element = "connector"; //$NON-NLS-1$
+    } else if (module instanceof JarModule && ((JarModule) module).isIncludeInApplicationXml()) {
+      element = "java"; //$NON-NLS-1$
+    } else {
+      //Libraries and har modules are not declared
+      return;
+    }
+    writer.startElement("module"); //$NON-NLS-1$
+    writeElement(writer, element, module.getUri());
+    writeElement(writer, "alt-dd", module.getAltDeploymentDescriptor()); //$NON-NLS-1$
+    writer.endElement();
+  }
+
+  private static void writeElement(XMLWriter writer, String name, String value) {
+    if (value == null) {
+      return;
+    }
+    writer.startElement(name);
+    writer.writeText(value);
+    writer.endElement();
+  }
+
+  private boolean isAtLeast(int majorVersion) {
+    return !version.startsWith("1.") && Integer.parseInt(version) >= majorVersion; //$NON-NLS-1$
+  }
+
+  /**
+   * @return the version as written in application.xml (1.3, 1.4, 5, 6 or 7) or <code>null</code> if it's not supported
+   */
+  private static String normalizeVersion(String version) {
+    if (StringUtils.isBlank(version)) {
+      return null;
+    }
+    String v = version.trim();
+    if ("1.3".equals(v) || "1.4".equals(v)) { //$NON-NLS-1$ //$NON-NLS-2$
+      return v;
+    }
+    if (v.endsWith(".0")) { //$NON-NLS-1$
+      v = v.substring(0, v.length() - 2);
+    }
+    if ("5".equals(v) || "6".equals(v) || "7".equals(v)) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+      return v;
+    }
+    return null;
+  }
+}
@@ -20,9 +20,14 @@
 package org.eclipse.m2e.wtp.earmodules;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 
@@ -31,6 +36,9 @@ import org.codehaus.plexus.util.xml.Xpp3Dom;
  * This class was derived from maven-ear-plugin's org.apache.maven.plugin.ear.util.ArtifactTypeMappingService
  * 
  * Allows to map custom artifact type to standard type.
+ * <br/>
+ * Instances are immutable : the standard and user-defined types are resolved once into a table of module kinds,
+ * and {@link #getInstance(Xpp3Dom)} shares a single instance per distinct mapping configuration.
  * 
  * @author <a href="snicoll@apache.org">Stephane Nicoll</a>
  */
@@ -57,23 +65,34 @@ public class ArtifactTypeMappingService {
     standardArtifactTypes.add("app-client");     //$NON-NLS-1$
   }
 
-  // A standard type to a list of customType
-  private Map<String, List<String>> typeMappings;
+  private static final int MAX_SHARED_SERVICES = 32;
 
-  // The user-defined mapping for direct access
-  private Map<String, String> customMappings;
+  private static final ConcurrentMap<String, ArtifactTypeMappingService> SHARED_SERVICES = new ConcurrentHashMap<String, ArtifactTypeMappingService>();
+
+  // A standard type to the set of types mapped to it
+  private final Map<String, Set<String>> typeMappings;
+
+  // Any known type, standard or user-defined, to its standard type
+  private final Map<String, String> standardTypes;
+
+  // Any known type, standard or user-defined, to the kind of module it's packaged as
+  private final Map<String, ModuleKind> moduleKinds;
 
   public ArtifactTypeMappingService(Xpp3Dom plexusConfiguration) throws EarPluginException {
-    // Initializes the typeMappings with default values
-    init();
+    Map<String, Set<String>> typeMappings = new HashMap<String, Set<String>>();
+    // The user-defined mapping
+    Map<String, String> customMappings = new HashMap<String, String>();
 
-    // No user defined configuration
-    if(plexusConfiguration == null) {
-      return;
+    // Initialize the mapping with the standard artifact types
+    for(String type : getStandardArtifactTypes()) {
+      Set<String> typeMapping = new HashSet<String>();
+      typeMapping.add(type);
+      typeMappings.put(type, typeMapping);
     }
 
     // Inject users configuration
-    final Xpp3Dom[] artifactTypeMappings = plexusConfiguration.getChildren(ARTIFACT_TYPE_MAPPING_ELEMENT);
+    final Xpp3Dom[] artifactTypeMappings = plexusConfiguration == null ? new Xpp3Dom[0] : plexusConfiguration
+        .getChildren(ARTIFACT_TYPE_MAPPING_ELEMENT);
 
     for(Xpp3Dom artifactTypeMapping : artifactTypeMappings) {
       final String customType = artifactTypeMapping.getAttribute(TYPE_ATTRIBUTE);
@@ -93,10 +112,63 @@ public class ArtifactTypeMappingService {
         customMappings.put(customType, mapping);
 
         // Register the custom mapping to its standard type
-        List<String> typeMapping = typeMappings.get(mapping);
-        typeMapping.add(customType);
+        typeMappings.get(mapping).add(customType);
+      }
+    }
+
+    // Standard types are never remapped
+    Map<String, String> standardTypes = new HashMap<String, String>(customMappings);
+    for(String type : getStandardArtifactTypes()) {
+      standardTypes.put(type, type);
+    }
+    Map<String, ModuleKind> moduleKinds = new HashMap<String, ModuleKind>();
+    for(Map.Entry<String, String> standardType : standardTypes.entrySet()) {
+      moduleKinds.put(standardType.getKey(), ModuleKind.forStandardType(standardType.getValue()));
+    }
+    for(Map.Entry<String, Set<String>> typeMapping : typeMappings.entrySet()) {
+      typeMapping.setValue(Collections.unmodifiableSet(typeMapping.getValue()));
+    }
+    this.typeMappings = Collections.unmodifiableMap(typeMappings);
+    this.standardTypes = Collections.unmodifiableMap(standardTypes);
+    this.moduleKinds = Collections.unmodifiableMap(moduleKinds);
+  }
+
+  /**
+   * Returns the service for the specified <tt>artifactTypeMappings</tt> configuration. Services are immutable, so
+   * a single instance is shared by all the configurations declaring the same mappings.
+   * 
+   * @param plexusConfiguration the <tt>artifactTypeMappings</tt> configuration, may be null
+   * @return the shared service for these mappings
+   */
+  public static ArtifactTypeMappingService getInstance(Xpp3Dom plexusConfiguration) throws EarPluginException {
+    String fingerprint = getFingerprint(plexusConfiguration);
+    ArtifactTypeMappingService service = SHARED_SERVICES.get(fingerprint);
+    if(service == null) {
+      service = new ArtifactTypeMappingService(plexusConfiguration);
+      if(SHARED_SERVICES.size() >= MAX_SHARED_SERVICES) {
+        SHARED_SERVICES.clear();
+      }
+      ArtifactTypeMappingService existing = SHARED_SERVICES.putIfAbsent(fingerprint, service);
+      if(existing != null) {
+        service = existing;
       }
     }
+    return service;
+  }
+
+  /**
+   * @return the declared type/mapping pairs, in declaration order
+   */
+  private static String getFingerprint(Xpp3Dom plexusConfiguration) {
+    if(plexusConfiguration == null) {
+      return ""; //$NON-NLS-1$
+    }
+    StringBuilder fingerprint = new StringBuilder();
+    for(Xpp3Dom artifactTypeMapping : plexusConfiguration.getChildren(ARTIFACT_TYPE_MAPPING_ELEMENT)) {
+      fingerprint.append(artifactTypeMapping.getAttribute(TYPE_ATTRIBUTE)).append('=')
+          .append(artifactTypeMapping.getAttribute(MAPPING_ATTRIBUTE)).append('\n');
+    }
+    return fingerprint.toString();
   }
 
   /**
@@ -107,11 +179,11 @@ public class ArtifactTypeMappingService {
    * @return true if the customType could be mapped to the standard type
    */
   public boolean isMappedToType(final String standardType, final String customType) {
-    if(!isStandardArtifactType(standardType)) {
+    final Set<String> typeMappings = this.typeMappings.get(standardType);
+    if(typeMappings == null) {
       throw new IllegalStateException("Artifact type[" + standardType + "] is not a standard Ear artifact type[" //$NON-NLS-1$ //$NON-NLS-2$
           + getStandardArtifactTypes() + "]"); //$NON-NLS-1$
     }
-    final List<String> typeMappings = this.typeMappings.get(standardType);
     return typeMappings.contains(customType);
 
   }
@@ -126,25 +198,29 @@ public class ArtifactTypeMappingService {
   public String getStandardType(final String type) throws UnknownArtifactTypeException {
     if(type == null) {
       throw new IllegalStateException("custom type could not be null."); //$NON-NLS-1$
-    } else if(getStandardArtifactTypes().contains(type)) {
-      return type;
-    } else if(!customMappings.containsKey(type)) {
+    }
+    String standardType = standardTypes.get(type);
+    if(standardType == null) {
       throw new UnknownArtifactTypeException("Unknown artifact type[" + type + "]"); //$NON-NLS-1$ //$NON-NLS-2$
-    } else {
-      return customMappings.get(type);
     }
+    return standardType;
   }
 
-  private void init() {
-    this.typeMappings = new HashMap<String, List<String>>();
-    this.customMappings = new HashMap<String, String>();
-
-    // Initialize the mapping with the standard artifact types
-    for(String type : getStandardArtifactTypes()) {
-      List<String> typeMapping = new ArrayList<String>();
-      typeMapping.add(type);
-      this.typeMappings.put(type, typeMapping);
+  /**
+   * Returns the kind of module the specified <tt>type</tt>, standard or user-defined, is packaged as.
+   * 
+   * @param type a type
+   * @return the module kind for this type
+   */
+  ModuleKind getModuleKind(final String type) throws UnknownArtifactTypeException {
+    if(type == null) {
+      throw new IllegalStateException("custom type could not be null."); //$NON-NLS-1$
+    }
+    ModuleKind moduleKind = moduleKinds.get(type);
+    if(moduleKind == null) {
+      throw new UnknownArtifactTypeException("Unknown artifact type[" + type + "]"); //$NON-NLS-1$ //$NON-NLS-2$
     }
+    return moduleKind;
   }
 
   /**
@@ -23,9 +23,14 @@ package org.eclipse.m2e.wtp.earmodules;
 import static org.eclipse.m2e.wtp.DomUtils.getBooleanChildValue;
 import static org.eclipse.m2e.wtp.DomUtils.getChildValue;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
 import org.codehaus.plexus.util.StringUtils;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.eclipse.jst.j2ee.project.facet.IJ2EEFacetConstants;
@@ -59,7 +64,7 @@ public final class EarModuleFactory {
   public static EarModuleFactory createEarModuleFactory(ArtifactTypeMappingService artifactTypeMappingService,
       FileNameMapping fileNameMapping, String mainArtifactId, Set<Artifact> artifacts) throws EarPluginException {
     if(artifactTypeMappingService == null) {
-      artifactTypeMappingService = new ArtifactTypeMappingService(null);
+      artifactTypeMappingService = ArtifactTypeMappingService.getInstance(null);
     }
     if(fileNameMapping == null) {
       fileNameMapping = FileNameMappingFactory.getDefaultFileNameMapping();
@@ -80,37 +85,62 @@ public final class EarModuleFactory {
    */
   public EarModule newEarModule(Artifact artifact, String defaultLibBundleDir, IProjectFacetVersion javaEEVersion, 
       boolean defaultIncludeInApplicationXml) throws UnknownArtifactTypeException {
-    // Get the standard artifact type based on default config and user-defined mapping(s)
-    final String artifactType = artifactTypeMappingService.getStandardType(artifact.getType());
+    return newEarModule(artifact, defaultLibBundleDir, isLibBundleDirForEjbClients(javaEEVersion), defaultIncludeInApplicationXml);
+  }
+
+  /**
+   * Creates a new {@link EarModule} based on the specified {@link Artifact} and the specified execution configuration.
+   * 
+   * @param artifact the artifact
+   * @param defaultLibBundleDir the default bundle dir for {@link JarModule}
+   * @param libBundleDirForEjbClients whether ejb-client modules go to the default lib bundle dir, as in Java EE 5+ 
+   * @return an ear module for this artifact
+   * @see #isLibBundleDirForEjbClients(IProjectFacetVersion)
+   */
+  public EarModule newEarModule(Artifact artifact, String defaultLibBundleDir, boolean libBundleDirForEjbClients, 
+      boolean defaultIncludeInApplicationXml) throws UnknownArtifactTypeException {
+    // Get the module kind based on default config and user-defined mapping(s)
+    final ModuleKind moduleKind = artifactTypeMappingService.getModuleKind(artifact.getType());
     AbstractEarModule earModule = null;
-    if("jar".equals(artifactType)) { //$NON-NLS-1$
-      earModule = new JarModule(artifact);
-      ((JarModule)earModule).setIncludeInApplicationXml(defaultIncludeInApplicationXml);
-      ((JarModule)earModule).setLibBundleDir(defaultLibBundleDir);
-    } else if("ejb".equals(artifactType) || "ejb3".equals(artifactType)) { //$NON-NLS-1$ //$NON-NLS-2$
-      earModule  = new EjbModule(artifact);
-    } else if("par".equals(artifactType)) { //$NON-NLS-1$
-      earModule  = new ParModule(artifact);
-    } else if("ejb-client".equals(artifactType)) { //$NON-NLS-1$
-      earModule  = new EjbClientModule(artifact);
-      if (javaEEVersion.compareTo(IJ2EEFacetConstants.ENTERPRISE_APPLICATION_14) >  0)
-      {
-        ((EjbClientModule)earModule).setLibBundleDir(defaultLibBundleDir);
-      }
-    } else if("rar".equals(artifactType)) { //$NON-NLS-1$
-      earModule  = new RarModule(artifact);
-    } else if("war".equals(artifactType)) { //$NON-NLS-1$
-      earModule  = new WebModule(artifact);
-    } else if("sar".equals(artifactType)) { //$NON-NLS-1$
-      earModule  = new SarModule(artifact);
-    } else if("wsr".equals(artifactType)) { //$NON-NLS-1$
-      earModule  = new WsrModule(artifact);
-    } else if("har".equals(artifactType)) { //$NON-NLS-1$
-      earModule  = new HarModule(artifact);
-    } else if("app-client".equals(artifactType)) { //$NON-NLS-1$
+    switch(moduleKind) {
+      case JAR:
+        earModule = new JarModule(artifact);
+        ((JarModule)earModule).setIncludeInApplicationXml(defaultIncludeInApplicationXml);
+        ((JarModule)earModule).setLibBundleDir(defaultLibBundleDir);
+        break;
+      case EJB:
+        earModule  = new EjbModule(artifact);
+        break;
+      case PAR:
+        earModule  = new ParModule(artifact);
+        break;
+      case EJB_CLIENT:
+        earModule  = new EjbClientModule(artifact);
+        if (libBundleDirForEjbClients)
+        {
+          ((EjbClientModule)earModule).setLibBundleDir(defaultLibBundleDir);
+        }
+        break;
+      case RAR:
+        earModule  = new RarModule(artifact);
+        break;
+      case WAR:
+        earModule  = new WebModule(artifact);
+        break;
+      case SAR:
+        earModule  = new SarModule(artifact);
+        break;
+      case WSR:
+        earModule  = new WsrModule(artifact);
+        break;
+      case HAR:
+        earModule  = new HarModule(artifact);
+        break;
+      case APP_CLIENT:
         earModule  = new AppClientModule(artifact);
-    } else {
-      throw new IllegalStateException("Could not handle artifact type[" + artifactType + "]"); //$NON-NLS-1$ //$NON-NLS-2$
+        break;
+      default:
+        throw new IllegalStateException("Could not handle artifact type[" + artifact.getType() + "]"); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
     earModule.setBundleFileName(fileNameMapping.mapFileName(artifact));
@@ -120,6 +150,13 @@ public final class EarModuleFactory {
   }
 
   public EarModule newEarModule(Xpp3Dom domModule, String defaultLibBundleDir, IProjectFacetVersion javaEEVersion, boolean defaultIncludeInApplicationXml) throws EarPluginException {
+    return newEarModule(domModule, defaultLibBundleDir, isLibBundleDirForEjbClients(javaEEVersion), defaultIncludeInApplicationXml);
+  }
+
+  /**
+   * @see #isLibBundleDirForEjbClients(IProjectFacetVersion)
+   */
+  public EarModule newEarModule(Xpp3Dom domModule, String defaultLibBundleDir, boolean libBundleDirForEjbClients, boolean defaultIncludeInApplicationXml) throws EarPluginException {
     String artifactType = domModule.getName();
     String groupId      = getChildValue(domModule, "groupId"); //$NON-NLS-1$
     String artifactId   = getChildValue(domModule, "artifactId"); //$NON-NLS-1$
@@ -151,7 +188,7 @@ public final class EarModuleFactory {
     }
     else if ( "ejbClientModule".equals(artifactType)){ //$NON-NLS-1$
       earModule = new EjbClientModule();
-      if (javaEEVersion.compareTo(IJ2EEFacetConstants.ENTERPRISE_APPLICATION_14) >  0)
+      if (libBundleDirForEjbClients)
       {
         ((EjbClientModule)earModule).setLibBundleDir(defaultLibBundleDir);
       }
@@ -203,4 +240,91 @@ public final class EarModuleFactory {
     return earModule;
   }
 
+  /**
+   * Adds the modules of the dependencies not collected yet. pom, optional, test and provided dependencies are skipped.
+   * 
+   * @param earModules the modules collected so far, the new modules are added to it
+   * @param artifacts the dependencies of the project
+   * @param defaultLibBundleDir the default bundle dir for {@link JarModule}
+   * @param libBundleDirForEjbClients whether ejb-client modules go to the default lib bundle dir, as in Java EE 5+ 
+   * @param defaultIncludeInApplicationXml whether {@link JarModule}s are included in application.xml
+   */
+  public void addDependencyModules(Set<EarModule> earModules, Set<Artifact> artifacts, String defaultLibBundleDir,
+      boolean libBundleDirForEjbClients, boolean defaultIncludeInApplicationXml) throws EarPluginException {
+    RegisteredArtifacts registeredArtifacts = new RegisteredArtifacts(artifacts.size());
+    for(EarModule module : earModules) {
+      registeredArtifacts.add(module.getArtifact());
+    }
+
+    ScopeArtifactFilter filter = new ScopeArtifactFilter(Artifact.SCOPE_RUNTIME);
+
+    for(Artifact artifact : artifacts) {
+
+      // If the artifact's type is POM, ignore and continue
+      // since it's used for transitive deps only.
+      if("pom".equals(artifact.getType())) { //$NON-NLS-1$
+        continue;
+      }
+
+      // Artifact is not yet registered and it has neither test, nor a
+      // provided scope, nor is it optional
+      if(!registeredArtifacts.contains(artifact) && filter.include(artifact) && !artifact.isOptional()) {
+        EarModule module = newEarModule(artifact, defaultLibBundleDir, libBundleDirForEjbClients, defaultIncludeInApplicationXml);
+        if(module != null && earModules.add(module)) {
+          registeredArtifacts.add(module.getArtifact());
+        }
+      }
+    }
+  }
+
+  /**
+   * @return true if ejb-client modules are packaged in the default lib bundle dir, i.e. since Java EE 5 
+   */
+  public static boolean isLibBundleDirForEjbClients(IProjectFacetVersion javaEEVersion) {
+    return javaEEVersion.compareTo(IJ2EEFacetConstants.ENTERPRISE_APPLICATION_14) > 0;
+  }
+
+  /**
+   * Artifacts of the modules collected so far, hashed by groupId, artifactId, classifier and type.
+   */
+  private static class RegisteredArtifacts {
+
+    private final Map<String, List<Artifact>> artifactsByKey;
+
+    RegisteredArtifacts(int expectedSize) {
+      artifactsByKey = new HashMap<String, List<Artifact>>(expectedSize * 4 / 3 + 1);
+    }
+
+    void add(Artifact artifact) {
+      if (artifact == null) {
+        return;
+      }
+      String key = toKey(artifact);
+      List<Artifact> sameKey = artifactsByKey.get(key);
+      if (sameKey == null) {
+        sameKey = new ArrayList<Artifact>(1);
+        artifactsByKey.put(key, sameKey);
+      }
+      sameKey.add(artifact);
+    }
+
+    /**
+     * @return <code>true</code> if an equal artifact is registered
+     */
+    boolean contains(Artifact artifact) {
+      List<Artifact> sameKey = artifactsByKey.get(toKey(artifact));
+      if (sameKey != null) {
+        for (Artifact registered : sameKey) {
+          if (registered.equals(artifact)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    private static String toKey(Artifact artifact) {
+      return artifact.getGroupId() + ':' + artifact.getArtifactId() + ':' + artifact.getClassifier() + ':' + artifact.getType();
+    }
+  }
 }
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.earmodules;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The kinds of {@link EarModule} an artifact can be packaged as, by standard artifact type.
+ */
+enum ModuleKind {
+
+  JAR("jar"), //$NON-NLS-1$
+  EJB("ejb", "ejb3"), //$NON-NLS-1$ //$NON-NLS-2$
+  PAR("par"), //$NON-NLS-1$
+  EJB_CLIENT("ejb-client"), //$NON-NLS-1$
+  RAR("rar"), //$NON-NLS-1$
+  WAR("war"), //$NON-NLS-1$
+  SAR("sar"), //$NON-NLS-1$
+  WSR("wsr"), //$NON-NLS-1$
+  HAR("har"), //$NON-NLS-1$
+  APP_CLIENT("app-client"); //$NON-NLS-1$
+
+  private static final Map<String, ModuleKind> BY_STANDARD_TYPE;
+
+  static {
+    Map<String, ModuleKind> byStandardType = new HashMap<String, ModuleKind>();
+    for(ModuleKind kind : values()) {
+      for(String standardType : kind.standardTypes) {
+        byStandardType.put(standardType, kind);
+      }
+    }
+    BY_STANDARD_TYPE = Collections.unmodifiableMap(byStandardType);
+  }
+
+  private final String[] standardTypes;
+
+  private ModuleKind(String... standardTypes) {
+    this.standardTypes = standardTypes;
+  }
+
+  /**
+   * @return the kind of module for the specified standard type
+   */
+  static ModuleKind forStandardType(String standardType) {
+    ModuleKind kind = BY_STANDARD_TYPE.get(standardType);
+    if(kind == null) {
+      throw new IllegalStateException("Could not handle artifact type[" + standardType + "]"); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    return kind;
+  }
+}
@@ -16,6 +16,9 @@
 
 package org.eclipse.m2e.wtp.internal;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 
 /**
  * PathMatcher implementation for Ant-style path patterns.
@@ -47,6 +50,9 @@ package org.eclipse.m2e.wtp.internal;
  * <code>org/servlet/bla.jsp</code></li>
  * </ul>
  *
+ * <p>Patterns matched against many paths can be {@link #compile compiled} once,
+ * and paths matched against many patterns {@link #tokenize tokenized} once.
+ *
  * @author Alef Arendsen
  * @author Juergen Hoeller
  * @author Rob Harrop
@@ -57,8 +63,13 @@ public class AntPathMatcher  {
 	/** Default path separator: "/" */
 	public static final String DEFAULT_PATH_SEPARATOR = "/"; //$NON-NLS-1$
 
+	private static final int MAX_COMPILED_PATTERNS = 64;
+
 	private String pathSeparator = DEFAULT_PATH_SEPARATOR;
 
+	/** Patterns compiled by {@link #match} and {@link #matchStart} */
+	private final ConcurrentMap<String, CompiledPattern> compiledPatterns = new ConcurrentHashMap<String, CompiledPattern>();
+
 
 	/**
 	 * Set the path separator to use for pattern parsing.
@@ -66,6 +77,7 @@ public class AntPathMatcher  {
 	 */
 	public void setPathSeparator(String pathSeparator) {
 		this.pathSeparator = (pathSeparator != null ? pathSeparator : DEFAULT_PATH_SEPARATOR);
+		this.compiledPatterns.clear();
 	}
 
 
@@ -81,6 +93,24 @@ public class AntPathMatcher  {
 		return doMatch(pattern, path, false);
 	}
 
+	/**
+	 * Compiles a pattern, to be matched against many paths.
+	 * @param pattern the pattern to compile
+	 * @return an immutable, thread-safe, compiled pattern, using the current path separator
+	 */
+	public CompiledPattern compile(String pattern) {
+		return new CompiledPattern(pattern, this.pathSeparator);
+	}
+
+	/**
+	 * Splits a path, to be matched against many compiled patterns.
+	 * @param path the path to split
+	 * @return the path segments, using the current path separator
+	 */
+	public TokenizedPath tokenize(String path) {
+		return new TokenizedPath(path, this.pathSeparator);
+	}
+
 
 	/**
 	 * Actually match the given <code>path</code> against the given <code>pattern</code>.
@@ -95,126 +125,19 @@ public class AntPathMatcher  {
 		if (path.startsWith(this.pathSeparator) != pattern.startsWith(this.pathSeparator)) {
 			return false;
 		}
+		return getCompiledPattern(pattern).matches(tokenize(path), fullMatch);
+	}
 
-		String[] pattDirs = StringUtils.tokenizeToStringArray(pattern, this.pathSeparator);
-		String[] pathDirs = StringUtils.tokenizeToStringArray(path, this.pathSeparator);
-
-		int pattIdxStart = 0;
-		int pattIdxEnd = pattDirs.length - 1;
-		int pathIdxStart = 0;
-		int pathIdxEnd = pathDirs.length - 1;
-
-		// Match all elements up to the first **
-		while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-			String patDir = pattDirs[pattIdxStart];
-			if ("**".equals(patDir)) { //$NON-NLS-1$
-				break;
-			}
-			if (!matchStrings(patDir, pathDirs[pathIdxStart])) {
-				return false;
-			}
-			pattIdxStart++;
-			pathIdxStart++;
-		}
-
-		if (pathIdxStart > pathIdxEnd) {
-			// Path is exhausted, only match if rest of pattern is * or **'s
-			if (pattIdxStart > pattIdxEnd) {
-				return (pattern.endsWith(this.pathSeparator) ?
-						path.endsWith(this.pathSeparator) : !path.endsWith(this.pathSeparator));
-			}
-			if (!fullMatch) {
-				return true;
-			}
-			if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].equals("*") && //$NON-NLS-1$
-					path.endsWith(this.pathSeparator)) {
-				return true;
-			}
-			for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-				if (!pattDirs[i].equals("**")) { //$NON-NLS-1$
-					return false;
-				}
-			}
-			return true;
-		}
-		else if (pattIdxStart > pattIdxEnd) {
-			// String not exhausted, but pattern is. Failure.
-			return false;
-		}
-		else if (!fullMatch && "**".equals(pattDirs[pattIdxStart])) { //$NON-NLS-1$
-			// Path start definitely matches due to "**" part in pattern.
-			return true;
-		}
-
-		// up to last '**'
-		while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-			String patDir = pattDirs[pattIdxEnd];
-			if (patDir.equals("**")) { //$NON-NLS-1$
-				break;
-			}
-			if (!matchStrings(patDir, pathDirs[pathIdxEnd])) {
-				return false;
-			}
-			pattIdxEnd--;
-			pathIdxEnd--;
-		}
-		if (pathIdxStart > pathIdxEnd) {
-			// String is exhausted
-			for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-				if (!pattDirs[i].equals("**")) { //$NON-NLS-1$
-					return false;
-				}
-			}
-			return true;
-		}
-
-		while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-			int patIdxTmp = -1;
-			for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
-				if (pattDirs[i].equals("**")) { //$NON-NLS-1$
-					patIdxTmp = i;
-					break;
-				}
-			}
-			if (patIdxTmp == pattIdxStart + 1) {
-				// '**/**' situation, so skip one
-				pattIdxStart++;
-				continue;
-			}
-			// Find the pattern between padIdxStart & padIdxTmp in str between
-			// strIdxStart & strIdxEnd
-			int patLength = (patIdxTmp - pattIdxStart - 1);
-			int strLength = (pathIdxEnd - pathIdxStart + 1);
-			int foundIdx = -1;
-
-			strLoop:
-			    for (int i = 0; i <= strLength - patLength; i++) {
-				    for (int j = 0; j < patLength; j++) {
-					    String subPat = pattDirs[pattIdxStart + j + 1];
-					    String subStr = pathDirs[pathIdxStart + i + j];
-					    if (!matchStrings(subPat, subStr)) {
-						    continue strLoop;
-					    }
-				    }
-				    foundIdx = pathIdxStart + i;
-				    break;
-			    }
-
-			if (foundIdx == -1) {
-				return false;
-			}
-
-			pattIdxStart = patIdxTmp;
-			pathIdxStart = foundIdx + patLength;
-		}
-
-		for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-			if (!pattDirs[i].equals("**")) { //$NON-NLS-1$
-				return false;
+	private CompiledPattern getCompiledPattern(String pattern) {
+		CompiledPattern compiledPattern = this.compiledPatterns.get(pattern);
+		if (compiledPattern == null || !compiledPattern.pathSeparator.equals(this.pathSeparator)) {
+			if (this.compiledPatterns.size() >= MAX_COMPILED_PATTERNS) {
+				this.compiledPatterns.clear();
 			}
+			compiledPattern = compile(pattern);
+			this.compiledPatterns.put(pattern, compiledPattern);
 		}
-
-		return true;
+		return compiledPattern;
 	}
 
 	/**
@@ -222,15 +145,15 @@ public class AntPathMatcher  {
 	 * The pattern may contain two special characters:<br>
 	 * '*' means zero or more characters<br>
 	 * '?' means one and only one character
-	 * @param pattern pattern to match against.
+	 * @param patArr pattern to match against.
 	 * Must not be <code>null</code>.
+	 * @param containsStar whether the pattern contains a '*'
 	 * @param str string which must be matched against the pattern.
 	 * Must not be <code>null</code>.
 	 * @return <code>true</code> if the string matches against the
 	 * pattern, or <code>false</code> otherwise.
 	 */
-	private boolean matchStrings(String pattern, String str) {
-		char[] patArr = pattern.toCharArray();
+	private static boolean matchStrings(char[] patArr, boolean containsStar, String str) {
 		char[] strArr = str.toCharArray();
 		int patIdxStart = 0;
 		int patIdxEnd = patArr.length - 1;
@@ -238,14 +161,6 @@ public class AntPathMatcher  {
 		int strIdxEnd = strArr.length - 1;
 		char ch;
 
-		boolean containsStar = false;
-		for (int i = 0; i < patArr.length; i++) {
-			if (patArr[i] == '*') {
-				containsStar = true;
-				break;
-			}
-		}
-
 		if (!containsStar) {
 			// No '*'s, so we make a shortcut
 			if (patIdxEnd != strIdxEnd) {
@@ -409,4 +324,320 @@ public class AntPathMatcher  {
 		return buffer.toString();
 	}
 
+	/**
+	 * A path, split into segments once to be matched against many {@link CompiledPattern}s.
+	 */
+	public static final class TokenizedPath {
+
+		private final String path;
+
+		private final String pathSeparator;
+
+		private final String[] pathDirs;
+
+		private final boolean absolute;
+
+		private final boolean directory;
+
+		TokenizedPath(String path, String pathSeparator) {
+			this.path = path;
+			this.pathSeparator = pathSeparator;
+			this.pathDirs = StringUtils.tokenizeToStringArray(path, pathSeparator);
+			this.absolute = path.startsWith(pathSeparator);
+			this.directory = path.endsWith(pathSeparator);
+		}
+
+		public String getPath() {
+			return this.path;
+		}
+
+		@Override
+		public String toString() {
+			return this.path;
+		}
+	}
+
+
+	/**
+	 * A pattern, split into segments once to be matched against many paths.
+	 * <p>Segments without wildcards are compared as is, the leading ones rejecting
+	 * mismatching paths before any wildcard is evaluated. Paths with too many or
+	 * too few segments are rejected upfront when possible.
+	 */
+	public static final class CompiledPattern {
+
+		private final String pattern;
+
+		private final String pathSeparator;
+
+		private final Segment[] pattDirs;
+
+		private final boolean absolute;
+
+		private final boolean directory;
+
+		private final boolean doubleWildcard;
+
+		/** Number of leading segments without wildcards */
+		private final int literalPrefixLength;
+
+		/** Number of segments other than '**' */
+		private final int minPathLength;
+
+		CompiledPattern(String pattern, String pathSeparator) {
+			this.pattern = pattern;
+			this.pathSeparator = pathSeparator;
+			String[] tokens = StringUtils.tokenizeToStringArray(pattern, pathSeparator);
+			this.pattDirs = new Segment[tokens.length];
+			boolean hasDoubleWildcard = false;
+			int prefixLength = -1;
+			int length = 0;
+			for (int i = 0; i < tokens.length; i++) {
+				this.pattDirs[i] = new Segment(tokens[i]);
+				if (this.pattDirs[i].isDoubleWildcard()) {
+					hasDoubleWildcard = true;
+				} else {
+					length++;
+				}
+				if (prefixLength < 0 && !this.pattDirs[i].isLiteral()) {
+					prefixLength = i;
+				}
+			}
+			this.absolute = pattern.startsWith(pathSeparator);
+			this.directory = pattern.endsWith(pathSeparator);
+			this.doubleWildcard = hasDoubleWildcard;
+			this.literalPrefixLength = (prefixLength < 0 ? tokens.length : prefixLength);
+			this.minPathLength = length;
+		}
+
+		public String getPattern() {
+			return this.pattern;
+		}
+
+		/**
+		 * @return <code>true</code> if the pattern contains a '**' segment
+		 */
+		public boolean hasDoubleWildcard() {
+			return this.doubleWildcard;
+		}
+
+		public boolean matches(String path) {
+			return matches(new TokenizedPath(path, this.pathSeparator), true);
+		}
+
+		public boolean matches(TokenizedPath path) {
+			return matches(path, true);
+		}
+
+		public boolean matchesStart(TokenizedPath path) {
+			return matches(path, false);
+		}
+
+		boolean matches(TokenizedPath tokenizedPath, boolean fullMatch) {
+			if (!this.pathSeparator.equals(tokenizedPath.pathSeparator)) {
+				tokenizedPath = new TokenizedPath(tokenizedPath.path, this.pathSeparator);
+			}
+			if (tokenizedPath.absolute != this.absolute) {
+				return false;
+			}
+			String[] pathDirs = tokenizedPath.pathDirs;
+			if (!this.doubleWildcard && pathDirs.length > this.pattDirs.length) {
+				return false;
+			}
+			// A trailing '*' may match a trailing separator, all other segments need a path segment
+			if (fullMatch && pathDirs.length < this.minPathLength - 1) {
+				return false;
+			}
+			int prefixLength = Math.min(this.literalPrefixLength, pathDirs.length);
+			for (int i = 0; i < prefixLength; i++) {
+				if (!this.pattDirs[i].token.equals(pathDirs[i])) {
+					return false;
+				}
+			}
+
+			Segment[] pattDirs = this.pattDirs;
+			int pattIdxStart = prefixLength;
+			int pattIdxEnd = pattDirs.length - 1;
+			int pathIdxStart = prefixLength;
+			int pathIdxEnd = pathDirs.length - 1;
+
+			// Match all elements up to the first **
+			while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+				Segment patDir = pattDirs[pattIdxStart];
+				if (patDir.isDoubleWildcard()) {
+					break;
+				}
+				if (!patDir.matches(pathDirs[pathIdxStart])) {
+					return false;
+				}
+				pattIdxStart++;
+				pathIdxStart++;
+			}
+
+			if (pathIdxStart > pathIdxEnd) {
+				// Path is exhausted, only match if rest of pattern is * or **'s
+				if (pattIdxStart > pattIdxEnd) {
+					return (this.directory ? tokenizedPath.directory : !tokenizedPath.directory);
+				}
+				if (!fullMatch) {
+					return true;
+				}
+				if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].isAnyString() &&
+						tokenizedPath.directory) {
+					return true;
+				}
+				for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
+					if (!pattDirs[i].isDoubleWildcard()) {
+						return false;
+					}
+				}
+				return true;
+			}
+			else if (pattIdxStart > pattIdxEnd) {
+				// String not exhausted, but pattern is. Failure.
+				return false;
+			}
+			else if (!fullMatch && pattDirs[pattIdxStart].isDoubleWildcard()) {
+				// Path start definitely matches due to "**" part in pattern.
+				return true;
+			}
+
+			// up to last '**'
+			while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+				Segment patDir = pattDirs[pattIdxEnd];
+				if (patDir.isDoubleWildcard()) {
+					break;
+				}
+				if (!patDir.matches(pathDirs[pathIdxEnd])) {
+					return false;
+				}
+				pattIdxEnd--;
+				pathIdxEnd--;
+			}
+			if (pathIdxStart > pathIdxEnd) {
+				// String is exhausted
+				for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
+					if (!pattDirs[i].isDoubleWildcard()) {
+						return false;
+					}
+				}
+				return true;
+			}
+
+			while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+				int patIdxTmp = -1;
+				for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
+					if (pattDirs[i].isDoubleWildcard()) {
+						patIdxTmp = i;
+						break;
+					}
+				}
+				if (patIdxTmp == pattIdxStart + 1) {
+					// '**/**' situation, so skip one
+					pattIdxStart++;
+					continue;
+				}
+				// Find the pattern between padIdxStart & padIdxTmp in str between
+				// strIdxStart & strIdxEnd
+				int patLength = (patIdxTmp - pattIdxStart - 1);
+				int strLength = (pathIdxEnd - pathIdxStart + 1);
+				int foundIdx = -1;
+
+				strLoop:
+				    for (int i = 0; i <= strLength - patLength; i++) {
+					    for (int j = 0; j < patLength; j++) {
+						    Segment subPat = pattDirs[pattIdxStart + j + 1];
+						    String subStr = pathDirs[pathIdxStart + i + j];
+						    if (!subPat.matches(subStr)) {
+							    continue strLoop;
+						    }
+					    }
+					    foundIdx = pathIdxStart + i;
+					    break;
+				    }
+
+				if (foundIdx == -1) {
+					return false;
+				}
+
+				pattIdxStart = patIdxTmp;
+				pathIdxStart = foundIdx + patLength;
+			}
+
+			for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
+				if (!pattDirs[i].isDoubleWildcard()) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return this.pattern;
+		}
+	}
+
+
+	/**
+	 * A pattern segment, with its wildcards parsed once.
+	 */
+	private static final class Segment {
+
+		private static final int LITERAL = 0;
+
+		private static final int ANY_STRING = 1;
+
+		private static final int DOUBLE_WILDCARD = 2;
+
+		private static final int WILDCARD = 3;
+
+		final String token;
+
+		private final char[] chars;
+
+		private final boolean containsStar;
+
+		private final int kind;
+
+		Segment(String token) {
+			this.token = token;
+			this.chars = token.toCharArray();
+			this.containsStar = (token.indexOf('*') != -1);
+			if ("**".equals(token)) { //$NON-NLS-1$
+				this.kind = DOUBLE_WILDCARD;
+			} else if ("*".equals(token)) { //$NON-NLS-1$
+				this.kind = ANY_STRING;
+			} else if (this.containsStar || token.indexOf('?') != -1) {
+				this.kind = WILDCARD;
+			} else {
+				this.kind = LITERAL;
+			}
+		}
+
+		boolean isLiteral() {
+			return this.kind == LITERAL;
+		}
+
+		boolean isAnyString() {
+			return this.kind == ANY_STRING;
+		}
+
+		boolean isDoubleWildcard() {
+			return this.kind == DOUBLE_WILDCARD;
+		}
+
+		boolean matches(String str) {
+			switch (this.kind) {
+				case LITERAL:
+					return this.token.equals(str);
+				case WILDCARD:
+					return matchStrings(this.chars, this.containsStar, str);
+				default:
+					return true;
+			}
+		}
+	}
+
 }
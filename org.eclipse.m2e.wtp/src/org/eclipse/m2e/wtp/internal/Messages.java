@@ -47,6 +47,7 @@ public class Messages extends NLS {
 	public static String ResourceFilteringBuildParticipant_Changed_Resources_Require_Clean_Build;
 	public static String ResourceFilteringBuildParticipant_Cleaning_Filtered_Folder;
 	public static String ResourceFilteringBuildParticipant_Error_While_Filtering_Resources;
+	public static String ResourceFilteringBuildParticipant_Executing_Incremental_Resource_Filtering;
 	public static String ResourceFilteringBuildParticipant_Executing_Resource_Filtering;
 	public static String WarClassesClassifierClasspathProvider_WAR_Classes_Classifier_Classpath_Provider;
 	public static String WarVersionChangeListener_Error_Notifying_WebApp_Version_Change;
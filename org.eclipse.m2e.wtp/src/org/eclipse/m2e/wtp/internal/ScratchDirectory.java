@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.osgi.util.NLS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A temporary directory owned by a single invocation, deleted with its content by {@link #dispose()}.
+ * <br/>
+ * Each directory gets a unique name, atomically reserved by {@link File#mkdir()}, so concurrent invocations,
+ * even from different Eclipse instances, never share their scratch space.
+ *
+ * <pre>
+ * ScratchDirectory scratch = ScratchDirectory.create("generateApplicationXml");
+ * try {
+ *   ...
+ * } finally {
+ *   scratch.dispose();
+ * }
+ * </pre>
+ */
+public final class ScratchDirectory {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ScratchDirectory.class);
+
+  private static final String ROOT = ".m2e-wtp-scratch"; //$NON-NLS-1$
+
+  private static final int MAX_ATTEMPTS = 100;
+
+  private static final AtomicLong COUNTER = new AtomicLong();
+
+  private final File directory;
+
+  private ScratchDirectory(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Creates a new, empty, scratch directory under <code>java.io.tmpdir</code>.
+   *
+   * @param prefix the prefix of the directory name
+   */
+  public static ScratchDirectory create(String prefix) throws IOException {
+    File root = new File(System.getProperty("java.io.tmpdir"), ROOT); //$NON-NLS-1$
+    // Another invocation may create it concurrently
+    if(!root.mkdirs() && !root.isDirectory()) {
+      throw new IOException("Unable to create " + root.getAbsolutePath()); //$NON-NLS-1$
+    }
+    for(int i = 0; i < MAX_ATTEMPTS; i++ ) {
+      File directory = new File(root, prefix + '-' + Long.toString(System.nanoTime(), 36) + '-'
+          + COUNTER.incrementAndGet());
+      if(directory.mkdir()) {
+        return new ScratchDirectory(directory);
+      }
+    }
+    throw new IOException("Unable to create a scratch directory in " + root.getAbsolutePath()); //$NON-NLS-1$
+  }
+
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Deletes the directory and its content. Failures are logged, not reported.
+   */
+  public void dispose() {
+    if(!delete(directory)) {
+      LOG.warn(NLS.bind(Messages.MavenDeploymentDescriptorManagement_Error_Deleting_Temp_Folder, directory.getAbsolutePath()));
+    }
+  }
+
+  private static boolean delete(File file) {
+    File[] children = file.listFiles();
+    if(children != null) {
+      for(File child : children) {
+        delete(child);
+      }
+    }
+    return file.delete() || !file.exists();
+  }
+}
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.internal.filtering;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.codehaus.plexus.util.StringUtils;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.m2e.wtp.WTPProjectsUtil;
+import org.eclipse.m2e.wtp.overlay.internal.utilities.PathPatternMatcher;
+
+/**
+ * Maps the changes of a resource delta to the filtered resources they affect.
+ * <br/>
+ * Each added, changed or removed source file is mapped to its output path, relative to the filtering target folder.
+ * For each affected output, every resource providing it is then filtered again, in declaration order, so
+ * superseded resources are handled like in a full pass. Outputs no longer provided by any resource are deleted.
+ */
+class FilteredResourcesDelta {
+
+  private static final int CHANGE_FLAGS = IResourceDelta.CONTENT | IResourceDelta.REPLACED | IResourceDelta.TYPE
+      | IResourceDelta.ENCODING;
+
+  private final IProject project;
+
+  private final List<FilteredResource> resources;
+
+  private final Set<IPath> affectedOutputs = new LinkedHashSet<IPath>();
+
+  private final List<IPath> deletedOutputs = new ArrayList<IPath>();
+
+  private final List<Xpp3Dom> resourcesToFilter = new ArrayList<Xpp3Dom>();
+
+  /**
+   * @param project the project being built
+   * @param resources the resources of the filtering configuration
+   * @param delta the project delta
+   * @return the {@link FilteredResourcesDelta}, never <code>null</code>
+   */
+  static FilteredResourcesDelta compute(IProject project, List<Xpp3Dom> resources, IResourceDelta delta) throws CoreException {
+    List<FilteredResource> filteredResources = new ArrayList<FilteredResource>(resources.size());
+    for (Xpp3Dom resource : resources) {
+      FilteredResource filteredResource = FilteredResource.create(project, resource);
+      //Changes to resources outside of the project are not visible from the delta
+      if (filteredResource != null) {
+        filteredResources.add(filteredResource);
+      }
+    }
+    FilteredResourcesDelta filteredDelta = new FilteredResourcesDelta(project, filteredResources);
+    filteredDelta.collect(delta);
+    return filteredDelta;
+  }
+
+  private FilteredResourcesDelta(IProject project, List<FilteredResource> resources) {
+    this.project = project;
+    this.resources = resources;
+  }
+
+  private void collect(IResourceDelta delta) throws CoreException {
+    for (final FilteredResource resource : resources) {
+      IResourceDelta member = delta.findMember(resource.directory);
+      if (member == null) {
+        continue;
+      }
+      final int segments = member.getProjectRelativePath().segmentCount();
+      member.accept(new IResourceDeltaVisitor() {
+        @Override
+        public boolean visit(IResourceDelta child) {
+          if (child.getResource().getType() != IResource.FILE) {
+            return true;
+          }
+          if (child.getKind() == IResourceDelta.CHANGED && (child.getFlags() & CHANGE_FLAGS) == 0) {
+            //markers, sync info...
+            return false;
+          }
+          IPath relativePath = child.getProjectRelativePath().removeFirstSegments(segments);
+          if (resource.isIncluded(relativePath)) {
+            affectedOutputs.add(resource.targetPath.append(relativePath));
+          }
+          return false;
+        }
+      });
+    }
+
+    for (IPath output : affectedOutputs) {
+      boolean provided = false;
+      for (FilteredResource resource : resources) {
+        if (resource.provides(output)) {
+          provided = true;
+        }
+      }
+      if (!provided) {
+        deletedOutputs.add(output);
+      }
+    }
+
+    for (FilteredResource resource : resources) {
+      if (!resource.includes.isEmpty()) {
+        resourcesToFilter.add(resource.restrict());
+      }
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the delta doesn't affect any filtered resource
+   */
+  boolean isEmpty() {
+    return affectedOutputs.isEmpty();
+  }
+
+  /**
+   * @return the paths, relative to the target folder, of all the outputs to filter again or to delete
+   */
+  Set<IPath> getAffectedOutputs() {
+    return Collections.unmodifiableSet(affectedOutputs);
+  }
+
+  /**
+   * @return the paths, relative to the target folder, of the outputs whose source was removed
+   */
+  List<IPath> getDeletedOutputs() {
+    return deletedOutputs;
+  }
+
+  /**
+   * @return copies of the configured resources, only including the files to filter again
+   */
+  List<Xpp3Dom> getResourcesToFilter() {
+    return resourcesToFilter;
+  }
+
+  private static class FilteredResource {
+
+    private final IProject project;
+
+    private final Xpp3Dom resource;
+
+    private final IPath directory;
+
+    private final IPath targetPath;
+
+    private final PathPatternMatcher matcher;
+
+    private final List<String> includes = new ArrayList<String>();
+
+    private FilteredResource(IProject project, Xpp3Dom resource, IPath directory, IPath targetPath, PathPatternMatcher matcher) {
+      this.project = project;
+      this.resource = resource;
+      this.directory = directory;
+      this.targetPath = targetPath;
+      this.matcher = matcher;
+    }
+
+    static FilteredResource create(IProject project, Xpp3Dom resource) {
+      Xpp3Dom xpp3Directory = resource.getChild("directory"); //$NON-NLS-1$
+      String dir = xpp3Directory == null ? null : xpp3Directory.getValue();
+      if (StringUtils.isEmpty(dir)) {
+        return null;
+      }
+      IPath directory = WTPProjectsUtil.tryProjectRelativePath(project, dir);
+      if (directory == null || directory.isEmpty() || directory.isAbsolute()) {
+        return null;
+      }
+      IPath targetPath = Path.EMPTY;
+      Xpp3Dom xpp3TargetPath = resource.getChild("targetPath"); //$NON-NLS-1$
+      if (xpp3TargetPath != null && StringUtils.isNotEmpty(xpp3TargetPath.getValue())) {
+        targetPath = new Path(xpp3TargetPath.getValue());
+        if (targetPath.isAbsolute()) {
+          return null;
+        }
+      }
+      List<String> includes = getPatterns(resource, "includes", "include"); //$NON-NLS-1$ //$NON-NLS-2$
+      if (includes.isEmpty()) {
+        includes.add("**"); //$NON-NLS-1$
+      }
+      List<String> excludes = getPatterns(resource, "excludes", "exclude"); //$NON-NLS-1$ //$NON-NLS-2$
+      for (String defaultExclude : DirectoryScanner.DEFAULTEXCLUDES) {
+        excludes.add(normalizePattern(defaultExclude));
+      }
+      PathPatternMatcher matcher = PathPatternMatcher.compile(includes.toArray(new String[includes.size()]),
+          excludes.toArray(new String[excludes.size()]), true);
+      return new FilteredResource(project, resource, directory, targetPath, matcher);
+    }
+
+    boolean isIncluded(IPath relativePath) {
+      return matcher.accepts(relativePath.toString());
+    }
+
+    /**
+     * @return <code>true</code> if an existing file of this resource is filtered to the given output.
+     * The file is then added to the files to filter again.
+     */
+    boolean provides(IPath output) {
+      if (!targetPath.isPrefixOf(output)) {
+        return false;
+      }
+      IPath relativePath = output.removeFirstSegments(targetPath.segmentCount());
+      if (relativePath.isEmpty() || !isIncluded(relativePath)) {
+        return false;
+      }
+      IFile source = project.getFile(directory.append(relativePath));
+      if (!source.exists()) {
+        return false;
+      }
+      includes.add(relativePath.toPortableString());
+      return true;
+    }
+
+    Xpp3Dom restrict() {
+      Xpp3Dom restricted = new Xpp3Dom(resource);
+      for (int i = restricted.getChildCount() - 1; i >= 0; i--) {
+        if ("includes".equals(restricted.getChild(i).getName())) { //$NON-NLS-1$
+          restricted.removeChild(i);
+        }
+      }
+      Xpp3Dom includesNode = new Xpp3Dom("includes"); //$NON-NLS-1$
+      for (String include : includes) {
+        Xpp3Dom includeNode = new Xpp3Dom("include"); //$NON-NLS-1$
+        includeNode.setValue(include);
+        includesNode.addChild(includeNode);
+      }
+      restricted.addChild(includesNode);
+      return restricted;
+    }
+
+    private static List<String> getPatterns(Xpp3Dom resource, String parentName, String childName) {
+      List<String> patterns = new ArrayList<String>();
+      Xpp3Dom parent = resource.getChild(parentName);
+      if (parent != null) {
+        for (Xpp3Dom child : parent.getChildren(childName)) {
+          if (StringUtils.isNotEmpty(child.getValue())) {
+            patterns.add(normalizePattern(child.getValue().trim()));
+          }
+        }
+      }
+      return patterns;
+    }
+
+    /**
+     * As in DirectoryScanner, a pattern ending with a separator matches everything below it
+     */
+    private static String normalizePattern(String pattern) {
+      String normalized = pattern.replace('\\', '/');
+      if (normalized.endsWith("/")) { //$NON-NLS-1$
+        normalized += "**"; //$NON-NLS-1$
+      }
+      return normalized;
+    }
+  }
+}
@@ -23,6 +23,7 @@ import org.codehaus.plexus.util.StringUtils;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.codehaus.plexus.util.xml.Xpp3DomUtils;
 import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -57,6 +58,8 @@ public class ResourceFilteringBuildParticipant extends AbstractBuildParticipant
   
   private static final Logger LOG = LoggerFactory.getLogger(ResourceFilteringBuildParticipant.class );
 
+  private static final String CONFIGURATION_KEY = ResourceFilteringBuildParticipant.class.getName() + ".configuration"; //$NON-NLS-1$
+
   private CleanBuildContext forceCopyBuildContext; 
   
   @Override
@@ -79,21 +82,44 @@ public class ResourceFilteringBuildParticipant extends AbstractBuildParticipant
     try {
       forceCopyBuildContext = null;
       List<String> filters = configuration.getFilters();
-      if (changeRequiresForcedCopy(facade, filters, delta)) {
+      String configurationKey = getConfigurationKey(configuration, resources);
+      IFolder destFolder = project.getFolder(targetFolder);
+      if (changeRequiresForcedCopy(facade, filters, delta) 
+          || (delta != null && !configurationKey.equals(getBuildContext().getValue(CONFIGURATION_KEY)))) {
         LOG.info(NLS.bind(Messages.ResourceFilteringBuildParticipant_Changed_Resources_Require_Clean_Build,project.getName()));
         //String id = "" + "-" + getClass().getName();
         forceCopyBuildContext = new CleanBuildContext(oldBuildContext);
         ThreadBuildContext.setThreadBuildContext(forceCopyBuildContext);
       }
-      if (forceCopyBuildContext != null || hasResourcesChanged(facade, delta, resources)) {
+      if (forceCopyBuildContext == null && delta != null) {
+        //Only filter the resources affected by the delta
+        FilteredResourcesDelta filteredDelta = FilteredResourcesDelta.compute(project, resources, delta);
+        if (!filteredDelta.isEmpty()) {
+          LOG.info(NLS.bind(Messages.ResourceFilteringBuildParticipant_Executing_Incremental_Resource_Filtering, 
+              filteredDelta.getAffectedOutputs().size(), project.getName()));
+          for (IPath deletedOutput : filteredDelta.getDeletedOutputs()) {
+            IFile output = destFolder.getFile(deletedOutput);
+            if (output.exists()) {
+              output.delete(true, monitor);
+            }
+          }
+          if (!filteredDelta.getResourcesToFilter().isEmpty()) {
+            //Files to filter are explicitly listed, they must be copied even if they're not part of the delta
+            forceCopyBuildContext = new CleanBuildContext(oldBuildContext);
+            ThreadBuildContext.setThreadBuildContext(forceCopyBuildContext);
+            executeCopyResources(facade, configuration, targetFolder, filteredDelta.getResourcesToFilter(), monitor);
+          }
+          refreshOutputs(destFolder, filteredDelta.getAffectedOutputs(), monitor);
+        }
+      } else if (forceCopyBuildContext != null || hasResourcesChanged(facade, delta, resources)) {
         LOG.info(NLS.bind(Messages.ResourceFilteringBuildParticipant_Executing_Resource_Filtering,project.getName()));
         executeCopyResources(facade, configuration, targetFolder, resources, monitor);
         //FIXME deal with absolute paths
-        IFolder destFolder = project.getFolder(targetFolder);
         if (destFolder.exists()){
           destFolder.refreshLocal(IResource.DEPTH_INFINITE, monitor);
         }
       }
+      getBuildContext().setValue(CONFIGURATION_KEY, configurationKey);
     } finally {
       ThreadBuildContext.setThreadBuildContext(oldBuildContext);
     }
@@ -101,6 +127,41 @@ public class ResourceFilteringBuildParticipant extends AbstractBuildParticipant
     return null;
   }
 
+  /**
+   * Refreshes the filtered files, or their topmost folder unknown to the workspace
+   */
+  private void refreshOutputs(IFolder destFolder, Set<IPath> outputs, IProgressMonitor monitor) throws CoreException {
+    for (IPath output : outputs) {
+      IResource resource = destFolder.getFile(output);
+      while (!destFolder.equals(resource.getParent()) && !resource.getParent().exists()) {
+        resource = resource.getParent();
+      }
+      resource.refreshLocal(IResource.DEPTH_INFINITE, monitor);
+    }
+  }
+
+  /**
+   * @return a representation of the filtering configuration. Resources filtered with a different configuration
+   * must all be filtered again.
+   */
+  private String getConfigurationKey(ResourceFilteringConfiguration configuration, List<Xpp3Dom> resources) {
+    StringBuilder key = new StringBuilder();
+    key.append(configuration.getTargetFolder()).append('|').append(configuration.getEscapeString());
+    for (String filter : configuration.getFilters()) {
+      key.append('|').append(filter);
+    }
+    List<Xpp3Dom> nonFilteredExtensions = configuration.getNonfilteredExtensions();
+    if (nonFilteredExtensions != null) {
+      for (Xpp3Dom extension : nonFilteredExtensions) {
+        key.append('|').append(extension);
+      }
+    }
+    for (Xpp3Dom resource : resources) {
+      key.append('|').append(resource);
+    }
+    return key.toString();
+  }
+
   @Override
   protected BuildContext getBuildContext() {
      return (forceCopyBuildContext == null)?super.getBuildContext() : forceCopyBuildContext;
@@ -36,7 +36,7 @@ public class WarMavenArchiverConfigurator extends AbstractWTPArchiverConfigurato
     WarPluginConfiguration warPluginConfiguration = new WarPluginConfiguration(mavenProject, project);
     
     if (MavenWtpPlugin.getDefault().getMavenWtpPreferencesManager().getPreferences(project).isWebMavenArchiverUsesBuildDirectory()
-        || warPluginConfiguration.getWebResources() != null && warPluginConfiguration.getWebResources().length > 0 //Uses filtering
+        || warPluginConfiguration.getSnapshot().hasWebResources() //Uses filtering
         || warPluginConfiguration.isFilteringDeploymentDescriptorsEnabled()) {
 
       IPath localResourceFolder =  ProjectUtils.getM2eclipseWtpFolder(mavenProject, project);
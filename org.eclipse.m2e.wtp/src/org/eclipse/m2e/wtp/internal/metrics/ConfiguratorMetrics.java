@@ -0,0 +1,325 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.internal.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.m2e.wtp.internal.utilities.DebugUtilities;
+
+/**
+ * Records, per project and per phase, the wall time, CPU time, allocated bytes and number of
+ * <code>.settings/org.eclipse.wst.common.component</code> writes of the project configurators.
+ * <br/>
+ * Measures are only taken when the Maven debug output is enabled, or when the <code>org.eclipse.m2e.wtp.metrics</code>
+ * system property is set to <code>true</code>. Phases can be nested, each phase measures its nested phases too.
+ * CPU time and allocations are those of the current thread, so work delegated to jobs is not accounted for.
+ *
+ * <pre>
+ * Phase phase = ConfiguratorMetrics.INSTANCE.start(project, "setModuleDependencies");
+ * try {
+ *   ...
+ * } finally {
+ *   phase.stop();
+ * }
+ * </pre>
+ */
+public class ConfiguratorMetrics {
+
+  public static final String ENABLED_PROPERTY = "org.eclipse.m2e.wtp.metrics"; //$NON-NLS-1$
+
+  public static final ConfiguratorMetrics INSTANCE = new ConfiguratorMetrics();
+
+  private static final String COMPONENT_FILE = ".settings/org.eclipse.wst.common.component"; //$NON-NLS-1$
+
+  private final ConcurrentMap<String, PhaseStatistics> phases = new ConcurrentHashMap<String, PhaseStatistics>();
+
+  private final ConcurrentMap<String, ConcurrentMap<String, PhaseStatistics>> projects = new ConcurrentHashMap<String, ConcurrentMap<String, PhaseStatistics>>();
+
+  private final ThreadMXBean threads;
+
+  private final boolean cpuTimeSupported;
+
+  private final Method allocatedBytesMethod;
+
+  private ConfiguratorMetrics() {
+    threads = ManagementFactory.getThreadMXBean();
+    cpuTimeSupported = threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+    allocatedBytesMethod = getAllocatedBytesMethod(threads);
+  }
+
+  /**
+   * Allocated bytes are only available through the HotSpot specific <code>com.sun.management.ThreadMXBean</code>
+   */
+  private static Method getAllocatedBytesMethod(ThreadMXBean threads) {
+    try {
+      Class<?> hotspotThreads = Class.forName("com.sun.management.ThreadMXBean", false, null); //$NON-NLS-1$
+      if(!hotspotThreads.isInstance(threads)) {
+        return null;
+      }
+      Method method = hotspotThreads.getMethod("getThreadAllocatedBytes", long.class); //$NON-NLS-1$
+      Object allocated = method.invoke(threads, Thread.currentThread().getId());
+      return allocated instanceof Long && ((Long) allocated).longValue() >= 0 ? method : null;
+    } catch(Exception ex) {
+      return null;
+    }
+  }
+
+  /**
+   * @return <code>true</code> if configuration phases are measured
+   */
+  public boolean isEnabled() {
+    return Boolean.getBoolean(ENABLED_PROPERTY) || DebugUtilities.isDebugEnabled();
+  }
+
+  /**
+   * Starts measuring a phase of a project's configuration. The returned {@link Phase} must be stopped by the same
+   * thread.
+   *
+   * @param project the project being configured
+   * @param name the phase name, usually <code>ClassName.methodName</code>
+   */
+  public Phase start(IProject project, String name) {
+    if(project == null || !isEnabled()) {
+      return Phase.DISABLED;
+    }
+    return new Phase(this, project, name);
+  }
+
+  /**
+   * @return <code>true</code> if no phase was recorded since the last reset
+   */
+  public boolean isEmpty() {
+    return phases.isEmpty();
+  }
+
+  /**
+   * Discards all the recorded measures.
+   */
+  public void reset() {
+    phases.clear();
+    projects.clear();
+  }
+
+  /**
+   * @return the statistics of a phase, for all projects, or <code>null</code> if the phase was never recorded
+   */
+  public PhaseStatistics getStatistics(String phase) {
+    return phases.get(phase);
+  }
+
+  /**
+   * @return the statistics of a phase for one project, or <code>null</code> if the phase was never recorded
+   */
+  public PhaseStatistics getStatistics(String projectName, String phase) {
+    Map<String, PhaseStatistics> projectPhases = projects.get(projectName);
+    return projectPhases == null ? null : projectPhases.get(phase);
+  }
+
+  /**
+   * @return a JSON snapshot of the recorded measures, per phase and per project, times in milliseconds.
+   */
+  public String toJSON() {
+    StringBuilder json = new StringBuilder(4096);
+    json.append("{\"timestamp\":").append(System.currentTimeMillis()); //$NON-NLS-1$
+    json.append(",\"cpuTime\":").append(cpuTimeSupported); //$NON-NLS-1$
+    json.append(",\"allocatedBytes\":").append(allocatedBytesMethod != null); //$NON-NLS-1$
+    json.append(",\"phases\":"); //$NON-NLS-1$
+    appendPhases(json, phases);
+    json.append(",\"projects\":{"); //$NON-NLS-1$
+    boolean first = true;
+    for(Map.Entry<String, ConcurrentMap<String, PhaseStatistics>> project : new TreeMap<String, ConcurrentMap<String, PhaseStatistics>>(projects).entrySet()) {
+      if(!first) {
+        json.append(',');
+      }
+      first = false;
+      appendString(json, project.getKey());
+      json.append(':');
+      appendPhases(json, project.getValue());
+    }
+    json.append("}}"); //$NON-NLS-1$
+    return json.toString();
+  }
+
+  /**
+   * Writes a JSON snapshot of the recorded measures.
+   *
+   * @see #toJSON()
+   */
+  public void writeSnapshot(File file) throws IOException {
+    File parent = file.getParentFile();
+    if(parent != null && !parent.isDirectory()) {
+      parent.mkdirs();
+    }
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8"); //$NON-NLS-1$
+    try {
+      writer.write(toJSON());
+    } finally {
+      writer.close();
+    }
+  }
+
+  private static void appendPhases(StringBuilder json, Map<String, PhaseStatistics> statistics) {
+    json.append('{');
+    boolean first = true;
+    for(Map.Entry<String, PhaseStatistics> phase : new TreeMap<String, PhaseStatistics>(statistics).entrySet()) {
+      if(!first) {
+        json.append(',');
+      }
+      first = false;
+      appendString(json, phase.getKey());
+      json.append(':');
+      phase.getValue().toJSON(json);
+    }
+    json.append('}');
+  }
+
+  private static void appendString(StringBuilder json, String value) {
+    json.append('"');
+    for(int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if(c == '"' || c == '\\') {
+        json.append('\\').append(c);
+      } else if(c < 0x20) {
+        String hex = Integer.toHexString(c);
+        json.append("\\u"); //$NON-NLS-1$
+        for(int p = hex.length(); p < 4; p++) {
+          json.append('0');
+        }
+        json.append(hex);
+      } else {
+        json.append(c);
+      }
+    }
+    json.append('"');
+  }
+
+  long getCpuTime() {
+    return cpuTimeSupported ? threads.getCurrentThreadCpuTime() : -1;
+  }
+
+  long getAllocatedBytes() {
+    if(allocatedBytesMethod == null) {
+      return -1;
+    }
+    try {
+      return ((Long) allocatedBytesMethod.invoke(threads, Thread.currentThread().getId())).longValue();
+    } catch(Exception ex) {
+      return -1;
+    }
+  }
+
+  static long getComponentStamp(IProject project) {
+    IFile component = project.getFile(COMPONENT_FILE);
+    return component.getModificationStamp();
+  }
+
+  void record(IProject project, String name, long wallTime, long cpuTime, long allocated, long writes) {
+    getStatistics(phases, name).record(wallTime, cpuTime, allocated, writes);
+    ConcurrentMap<String, PhaseStatistics> projectPhases = projects.get(project.getName());
+    if(projectPhases == null) {
+      projectPhases = new ConcurrentHashMap<String, PhaseStatistics>();
+      ConcurrentMap<String, PhaseStatistics> existing = projects.putIfAbsent(project.getName(), projectPhases);
+      if(existing != null) {
+        projectPhases = existing;
+      }
+    }
+    getStatistics(projectPhases, name).record(wallTime, cpuTime, allocated, writes);
+  }
+
+  private static PhaseStatistics getStatistics(ConcurrentMap<String, PhaseStatistics> statistics, String name) {
+    PhaseStatistics phase = statistics.get(name);
+    if(phase == null) {
+      phase = new PhaseStatistics();
+      PhaseStatistics existing = statistics.putIfAbsent(name, phase);
+      if(existing != null) {
+        phase = existing;
+      }
+    }
+    return phase;
+  }
+
+  /**
+   * A running measure of a configuration phase.
+   */
+  public static class Phase {
+
+    static final Phase DISABLED = new Phase();
+
+    private final ConfiguratorMetrics metrics;
+
+    private final IProject project;
+
+    private final String name;
+
+    private final long startCpuTime;
+
+    private final long startAllocatedBytes;
+
+    private final long startComponentStamp;
+
+    private final long startTime;
+
+    private boolean stopped;
+
+    private Phase() {
+      metrics = null;
+      project = null;
+      name = null;
+      startCpuTime = -1;
+      startAllocatedBytes = -1;
+      startComponentStamp = IResource.NULL_STAMP;
+      startTime = 0;
+      stopped = true;
+    }
+
+    Phase(ConfiguratorMetrics metrics, IProject project, String name) {
+      this.metrics = metrics;
+      this.project = project;
+      this.name = name;
+      startComponentStamp = getComponentStamp(project);
+      startCpuTime = metrics.getCpuTime();
+      startAllocatedBytes = metrics.getAllocatedBytes();
+      startTime = System.nanoTime();
+    }
+
+    /**
+     * Stops the measure and records it. Subsequent calls have no effect.
+     */
+    public void stop() {
+      if(stopped) {
+        return;
+      }
+      stopped = true;
+      long wallTime = System.nanoTime() - startTime;
+      long cpuTime = startCpuTime < 0 ? -1 : metrics.getCpuTime() - startCpuTime;
+      long allocated = startAllocatedBytes < 0 ? -1 : metrics.getAllocatedBytes() - startAllocatedBytes;
+      long componentStamp = getComponentStamp(project);
+      long writes = 0;
+      if(componentStamp != IResource.NULL_STAMP && componentStamp != startComponentStamp) {
+        //Modification stamps are incremented on each write. A deleted then recreated file starts over.
+        writes = componentStamp > startComponentStamp ? componentStamp - startComponentStamp : 1;
+      }
+      metrics.record(project, name, wallTime, cpuTime, allocated, writes);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.internal.metrics;
+
+/**
+ * Aggregated measures of a configuration phase : number of executions, wall time histogram, total CPU time,
+ * allocated bytes and <code>.component</code> writes.
+ */
+public class PhaseStatistics {
+
+  /**
+   * Upper bounds, in milliseconds, of the wall time histogram buckets. The last bucket holds longer executions.
+   */
+  static final long[] WALL_TIME_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000};
+
+  private static final long NANOS_PER_MS = 1000000L;
+
+  private long count;
+
+  private long wallTimeNanos;
+
+  private long minWallTimeNanos = Long.MAX_VALUE;
+
+  private long maxWallTimeNanos;
+
+  private final long[] wallTimeHistogram = new long[WALL_TIME_BOUNDS_MS.length + 1];
+
+  private long cpuTimeNanos;
+
+  private long allocatedBytes;
+
+  private long componentWrites;
+
+  /**
+   * @param wallTime the elapsed time, in nanoseconds
+   * @param cpuTime the CPU time of the current thread, in nanoseconds, or -1 if unavailable
+   * @param allocated the bytes allocated by the current thread, or -1 if unavailable
+   * @param writes the number of times the .component file was written
+   */
+  synchronized void record(long wallTime, long cpuTime, long allocated, long writes) {
+    count++;
+    wallTimeNanos += wallTime;
+    minWallTimeNanos = Math.min(minWallTimeNanos, wallTime);
+    maxWallTimeNanos = Math.max(maxWallTimeNanos, wallTime);
+    int bucket = 0;
+    while(bucket < WALL_TIME_BOUNDS_MS.length && wallTime > WALL_TIME_BOUNDS_MS[bucket] * NANOS_PER_MS) {
+      bucket++;
+    }
+    wallTimeHistogram[bucket]++;
+    if(cpuTime > 0) {
+      cpuTimeNanos += cpuTime;
+    }
+    if(allocated > 0) {
+      allocatedBytes += allocated;
+    }
+    componentWrites += writes;
+  }
+
+  public synchronized long getCount() {
+    return count;
+  }
+
+  public synchronized long getWallTimeNanos() {
+    return wallTimeNanos;
+  }
+
+  public synchronized long getCpuTimeNanos() {
+    return cpuTimeNanos;
+  }
+
+  public synchronized long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public synchronized long getComponentWrites() {
+    return componentWrites;
+  }
+
+  synchronized void toJSON(StringBuilder json) {
+    json.append("{\"count\":").append(count); //$NON-NLS-1$
+    json.append(",\"wallTimeMs\":{\"total\":").append(toMillis(wallTimeNanos)); //$NON-NLS-1$
+    json.append(",\"min\":").append(toMillis(count == 0 ? 0 : minWallTimeNanos)); //$NON-NLS-1$
+    json.append(",\"max\":").append(toMillis(maxWallTimeNanos)); //$NON-NLS-1$
+    json.append(",\"histogram\":{\"bounds\":["); //$NON-NLS-1$
+    for(int i = 0; i < WALL_TIME_BOUNDS_MS.length; i++) {
+      if(i > 0) {
+        json.append(',');
+      }
+      json.append(WALL_TIME_BOUNDS_MS[i]);
+    }
+    json.append("],\"counts\":["); //$NON-NLS-1$
+    for(int i = 0; i < wallTimeHistogram.length; i++) {
+      if(i > 0) {
+        json.append(',');
+      }
+      json.append(wallTimeHistogram[i]);
+    }
+    json.append("]}}"); //$NON-NLS-1$
+    json.append(",\"cpuTimeMs\":").append(toMillis(cpuTimeNanos)); //$NON-NLS-1$
+    json.append(",\"allocatedBytes\":").append(allocatedBytes); //$NON-NLS-1$
+    json.append(",\"componentWrites\":").append(componentWrites); //$NON-NLS-1$
+    json.append('}');
+  }
+
+  private static String toMillis(long nanos) {
+    //3 decimals, locale independent
+    long micros = nanos / 1000;
+    long fraction = micros % 1000;
+    return (micros / 1000) + (fraction < 10 ? ".00" : fraction < 100 ? ".0" : ".") + fraction; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+  }
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.internal.utilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualReference;
+
+/**
+ * Order insensitive difference between two sets of {@link IVirtualReference}s.
+ * <br/>
+ * References are compared by referenced component, runtime path, archive name and dependency type. A reference
+ * differing from an existing one only by its runtime path, archive name or dependency type is reported as modified,
+ * other differences as added or removed references. Reordered references are not a difference.
+ */
+public class ReferenceDelta {
+
+  private final List<IVirtualReference> added;
+
+  private final List<IVirtualReference> removed;
+
+  private final List<IVirtualReference> modified;
+
+  private ReferenceDelta(List<IVirtualReference> added, List<IVirtualReference> removed,
+      List<IVirtualReference> modified) {
+    this.added = added;
+    this.removed = removed;
+    this.modified = modified;
+  }
+
+  /**
+   * Computes the changes turning the existing references into the new ones.
+   *
+   * @param existingRefs the current references, can be <code>null</code>
+   * @param newRefs the expected references
+   */
+  public static ReferenceDelta compute(IVirtualReference[] existingRefs, IVirtualReference[] newRefs) {
+    Map<Key, IVirtualReference> existing = index(existingRefs);
+    Map<Key, IVirtualReference> expected = index(newRefs);
+    //Both maps are left with the differences
+    for(Iterator<Key> keys = expected.keySet().iterator(); keys.hasNext();) {
+      if(existing.remove(keys.next()) != null) {
+        keys.remove();
+      }
+    }
+    if(existing.isEmpty() && expected.isEmpty()) {
+      return new ReferenceDelta(Collections.<IVirtualReference> emptyList(),
+          Collections.<IVirtualReference> emptyList(), Collections.<IVirtualReference> emptyList());
+    }
+
+    List<IVirtualReference> added = new ArrayList<IVirtualReference>(expected.size());
+    List<IVirtualReference> modified = new ArrayList<IVirtualReference>();
+    List<IVirtualReference> removed = new ArrayList<IVirtualReference>(existing.values());
+    for(IVirtualReference ref : expected.values()) {
+      IVirtualReference previous = removeFirst(removed, ref.getReferencedComponent());
+      if(previous == null) {
+        added.add(ref);
+      } else {
+        modified.add(ref);
+      }
+    }
+    return new ReferenceDelta(added, removed, modified);
+  }
+
+  private static Map<Key, IVirtualReference> index(IVirtualReference[] refs) {
+    Map<Key, IVirtualReference> index = new LinkedHashMap<Key, IVirtualReference>();
+    if(refs != null) {
+      for(IVirtualReference ref : refs) {
+        Key key = new Key(ref);
+        if(!index.containsKey(key)) {
+          index.put(key, ref);
+        }
+      }
+    }
+    return index;
+  }
+
+  private static IVirtualReference removeFirst(List<IVirtualReference> refs, IVirtualComponent component) {
+    for(Iterator<IVirtualReference> it = refs.iterator(); it.hasNext();) {
+      IVirtualReference ref = it.next();
+      if(equals(ref.getReferencedComponent(), component)) {
+        it.remove();
+        return ref;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return <code>true</code> if both sets hold the same references
+   */
+  public boolean isEmpty() {
+    return added.isEmpty() && removed.isEmpty() && modified.isEmpty();
+  }
+
+  /**
+   * @return <code>true</code> if references were added, but none removed or modified
+   */
+  public boolean isAdditionOnly() {
+    return !added.isEmpty() && removed.isEmpty() && modified.isEmpty();
+  }
+
+  /**
+   * @return the new references to components not referenced yet
+   */
+  public IVirtualReference[] getAdded() {
+    return added.toArray(new IVirtualReference[added.size()]);
+  }
+
+  /**
+   * @return the existing references to components not referenced anymore
+   */
+  public IVirtualReference[] getRemoved() {
+    return removed.toArray(new IVirtualReference[removed.size()]);
+  }
+
+  /**
+   * @return the new references replacing an existing reference to the same component
+   */
+  public IVirtualReference[] getModified() {
+    return modified.toArray(new IVirtualReference[modified.size()]);
+  }
+
+  @Override
+  public String toString() {
+    return "added: " + added.size() + ", removed: " + removed.size() + ", modified: " + modified.size(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+  }
+
+  private static boolean equals(Object o1, Object o2) {
+    return o1 == null ? o2 == null : o1.equals(o2);
+  }
+
+  private static final class Key {
+
+    private final IVirtualComponent component;
+
+    private final IPath runtimePath;
+
+    private final String archiveName;
+
+    private final int dependencyType;
+
+    private final int hashCode;
+
+    Key(IVirtualReference ref) {
+      component = ref.getReferencedComponent();
+      runtimePath = ref.getRuntimePath();
+      archiveName = ref.getArchiveName();
+      dependencyType = ref.getDependencyType();
+      int hash = component == null ? 0 : component.hashCode();
+      hash = 31 * hash + (runtimePath == null ? 0 : runtimePath.hashCode());
+      hash = 31 * hash + (archiveName == null ? 0 : archiveName.hashCode());
+      hashCode = 31 * hash + dependencyType;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if(this == obj) {
+        return true;
+      }
+      if(!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return hashCode == other.hashCode && dependencyType == other.dependencyType
+          && ReferenceDelta.equals(component, other.component) && ReferenceDelta.equals(runtimePath, other.runtimePath)
+          && ReferenceDelta.equals(archiveName, other.archiveName);
+    }
+  }
+}
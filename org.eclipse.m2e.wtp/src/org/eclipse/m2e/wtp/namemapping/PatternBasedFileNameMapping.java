@@ -8,19 +8,36 @@
 
 package org.eclipse.m2e.wtp.namemapping;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.war.util.MappingUtils;
 import org.codehaus.plexus.interpolation.InterpolationException;
 
 /**
  * Pattern Based FileName Mapping
+ * <br/>
+ * The pattern is compiled once into literal and artifact field segments, shared by all the mappings using the
+ * same pattern. Patterns using expressions other than the
+ * artifact coordinates are evaluated by {@link MappingUtils}, as the maven-war-plugin does.
  *
  * @author Fred Bricon
  */
 public class PatternBasedFileNameMapping implements FileNameMapping {
 
+  private static final int MAX_TEMPLATES = 32;
+
+  private static final ConcurrentMap<String, Template> TEMPLATES = new ConcurrentHashMap<String, Template>();
+
   private String pattern;
-  
+
+  private final Template template;
+
   public PatternBasedFileNameMapping(String pattern) {
     if (pattern == null || pattern.trim().length() == 0) {
       //pattern = "@{artifactId}@-@{version}@@{dashClassifier?}@.@{extension}@";
@@ -29,10 +46,32 @@ public class PatternBasedFileNameMapping implements FileNameMapping {
       pattern = "@{artifactId}@-@{baseVersion}@@{dashClassifier?}@.@{extension}@"; //$NON-NLS-1$
     }
     this.pattern = pattern;
+    this.template = getTemplate(pattern);
+  }
+
+  private static Template getTemplate(String pattern) {
+    Template template = TEMPLATES.get(pattern);
+    if (template == null) {
+      if (TEMPLATES.size() >= MAX_TEMPLATES) {
+        TEMPLATES.clear();
+      }
+      template = Template.compile(pattern);
+      if (template == null) {
+        return null;
+      }
+      Template existing = TEMPLATES.putIfAbsent(pattern, template);
+      if (existing != null) {
+        template = existing;
+      }
+    }
+    return template;
   }
 
   @Override
 public String mapFileName(Artifact artifact) {
+    if (template != null) {
+      return template.render(artifact);
+    }
     try {
       return MappingUtils.evaluateFileNameMapping(pattern, artifact);
     } catch(InterpolationException ex) {
@@ -41,4 +80,144 @@ public String mapFileName(Artifact artifact) {
     }
   }
 
+  /**
+   * Artifact fields supported by compiled patterns, resolved as {@link MappingUtils} does.
+   */
+  private enum Field {
+    GROUP_ID, ARTIFACT_ID, VERSION, BASE_VERSION, TYPE, CLASSIFIER, DASH_CLASSIFIER, EXTENSION;
+
+    static Field forExpression(String expression) {
+      if ("groupId".equals(expression)) { //$NON-NLS-1$
+        return GROUP_ID;
+      }
+      if ("artifactId".equals(expression)) { //$NON-NLS-1$
+        return ARTIFACT_ID;
+      }
+      if ("version".equals(expression)) { //$NON-NLS-1$
+        return VERSION;
+      }
+      if ("baseVersion".equals(expression)) { //$NON-NLS-1$
+        return BASE_VERSION;
+      }
+      if ("type".equals(expression)) { //$NON-NLS-1$
+        return TYPE;
+      }
+      if ("classifier".equals(expression)) { //$NON-NLS-1$
+        return CLASSIFIER;
+      }
+      if ("dashClassifier".equals(expression) || "dashClassifier?".equals(expression)) { //$NON-NLS-1$ //$NON-NLS-2$
+        return DASH_CLASSIFIER;
+      }
+      if ("extension".equals(expression)) { //$NON-NLS-1$
+        return EXTENSION;
+      }
+      return null;
+    }
+
+    /**
+     * @return the field value, <code>null</code> if it's not set, in which case the expression is kept as is.
+     */
+    String getValue(Artifact artifact) {
+      switch(this) {
+        case GROUP_ID:
+          return artifact.getGroupId();
+        case ARTIFACT_ID:
+          return artifact.getArtifactId();
+        case VERSION:
+          return artifact.getVersion();
+        case BASE_VERSION:
+          return artifact.getBaseVersion();
+        case TYPE:
+          return artifact.getType();
+        case CLASSIFIER:
+          if (artifact.getClassifier() != null) {
+            return artifact.getClassifier();
+          }
+          //Then looked up in the artifact handler, then defaults to an empty string
+          if (artifact.getArtifactHandler() != null && artifact.getArtifactHandler().getClassifier() != null) {
+            return artifact.getArtifactHandler().getClassifier();
+          }
+          return ""; //$NON-NLS-1$
+        case DASH_CLASSIFIER:
+          return artifact.getClassifier() == null ? "" : "-" + artifact.getClassifier(); //$NON-NLS-1$ //$NON-NLS-2$
+        case EXTENSION:
+          return artifact.getArtifactHandler() == null ? null : artifact.getArtifactHandler().getExtension();
+        default:
+          return null;
+      }
+    }
+  }
+
+  /**
+   * A compiled pattern : literals, and fields to replace.
+   */
+  private static class Template {
+
+    /**
+     * Same expressions as MappingUtils, with the optional "__artifact." prefix
+     */
+    private static final Pattern EXPRESSION = Pattern.compile("@\\{(__artifact\\.)?([^}]+)\\}@"); //$NON-NLS-1$
+
+    /**
+     * Literals, before each field and after the last one
+     */
+    private final String[] literals;
+
+    private final Field[] fields;
+
+    /**
+     * Expressions of the fields, rendered as is when a field is not set
+     */
+    private final String[] expressions;
+
+    private final ThreadLocal<StringBuilder> buffers = new ThreadLocal<StringBuilder>() {
+      @Override
+      protected StringBuilder initialValue() {
+        return new StringBuilder(128);
+      }
+    };
+
+    private Template(String[] literals, Field[] fields, String[] expressions) {
+      this.literals = literals;
+      this.fields = fields;
+      this.expressions = expressions;
+    }
+
+    /**
+     * @return the compiled pattern, or <code>null</code> if it uses unsupported expressions
+     */
+    static Template compile(String pattern) {
+      List<String> literals = new ArrayList<String>();
+      List<Field> fields = new ArrayList<Field>();
+      List<String> expressions = new ArrayList<String>();
+      Matcher matcher = EXPRESSION.matcher(pattern);
+      int start = 0;
+      while (matcher.find()) {
+        Field field = Field.forExpression(matcher.group(2));
+        if (field == null) {
+          return null;
+        }
+        literals.add(pattern.substring(start, matcher.start()));
+        fields.add(field);
+        expressions.add(matcher.group());
+        start = matcher.end();
+      }
+      literals.add(pattern.substring(start));
+      return new Template(literals.toArray(new String[literals.size()]), fields.toArray(new Field[fields.size()]),
+          expressions.toArray(new String[expressions.size()]));
+    }
+
+    String render(Artifact artifact) {
+      //As MappingUtils does : may set the base version of snapshots
+      artifact.isSnapshot();
+      StringBuilder buffer = buffers.get();
+      buffer.setLength(0);
+      for (int i = 0; i < fields.length; i++) {
+        String value = fields[i].getValue(artifact);
+        buffer.append(literals[i]).append(value == null ? expressions[i] : value);
+      }
+      buffer.append(literals[fields.length]);
+      return buffer.toString();
+    }
+  }
 }
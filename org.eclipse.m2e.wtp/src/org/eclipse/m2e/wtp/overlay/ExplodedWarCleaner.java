@@ -24,10 +24,12 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
-import org.eclipse.m2e.wtp.MavenWtpPlugin;
 
 /**
  * ExplodedWarCleaner to cleanup unused exploded war content from plugin's state location.
+ * <br/>
+ * Content no longer used is evicted by the {@link ExplodedWarStore}. The workspace projects are only scanned when
+ * folders unknown to the store, exploded by previous versions, remain.
  *
  * @author varadi
  */
@@ -57,28 +59,30 @@ public class ExplodedWarCleaner extends WorkspaceJob {
   @Override
   public IStatus runInWorkspace(final IProgressMonitor monitor) throws CoreException {
     try {
-      final Set<String> folders = getExplodedFolders();
-      final File explodedFolder = new File(MavenWtpPlugin.getDefault().getStateLocation().toString() + File.pathSeparator + LinkedOverlaysConstants.EXPLODED_WAR_FOLDER);
-      if(!explodedFolder.exists()) {
-        return Status.OK_STATUS;
+      monitor.setTaskName("Clean up..."); //$NON-NLS-1$
+      final ExplodedWarStore store = ExplodedWarStore.getInstance();
+      final Set<String> unknownFolders = store.clean(monitor);
+      if(unknownFolders.isEmpty() || monitor.isCanceled()) {
+        return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
       }
+
+      final Set<String> folders = getExplodedFolders();
       final Set<String> toRemove = new HashSet<String>();
-      for(final String folder : explodedFolder.list()) {
+      for(final String folder : unknownFolders) {
         if(!folders.contains(folder)) {
           toRemove.add(folder);
         }
       }
-      monitor.setTaskName("Clean up..."); //$NON-NLS-1$
       monitor.beginTask("Deleting unused exploded war artifacts", toRemove.size()); //$NON-NLS-1$
 
-      final String explodedContainer = MavenWtpPlugin.getDefault().getStateLocation().toString() + File.pathSeparator + LinkedOverlaysConstants.EXPLODED_WAR_FOLDER + File.pathSeparator;
+      final File explodedContainer = store.getRoot();
       for(final String folder : toRemove) {
         if(monitor.isCanceled()) {
           return Status.CANCEL_STATUS;
         }
         monitor.subTask("Deleting " + folder + "...");  //$NON-NLS-1$//$NON-NLS-2$
         try {
-          FileUtils.deleteDirectory(explodedContainer + folder);
+          FileUtils.deleteDirectory(new File(explodedContainer, folder));
         } catch(final Exception ex) {
         }
         monitor.worked(1);
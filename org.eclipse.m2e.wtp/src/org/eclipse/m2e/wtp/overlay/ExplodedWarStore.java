@@ -0,0 +1,503 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+
+package org.eclipse.m2e.wtp.overlay;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.m2e.wtp.MavenWtpPlugin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Store of the war overlays exploded in the plugin's state location, under the "exploded-wars" folder.
+ * <br/>
+ * Archives are exploded in folders named after the SHA-1 digest of their content, so an overlay used by several
+ * projects is only exploded once, whatever its name. The store keeps a persistent table of the exploded folders
+ * used by each project, the size and last use of each exploded folder, and the digests of the archives, which are
+ * only computed again when an archive is modified.
+ * <br/>
+ * Folders no longer used by any project are kept until the store exceeds its maximum size, then deleted, least
+ * recently used first. The maximum size, in megabytes, can be set with the
+ * <code>org.eclipse.m2e.wtp.explodedWars.maxSize</code> system property.
+ */
+public class ExplodedWarStore {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ExplodedWarStore.class);
+
+  public static final String MAX_SIZE_PROPERTY = "org.eclipse.m2e.wtp.explodedWars.maxSize"; //$NON-NLS-1$
+
+  static final long DEFAULT_MAX_SIZE_MB = 1024;
+
+  private static final String INDEX_FILE = ".index"; //$NON-NLS-1$
+
+  private static final String ENTRY_PREFIX = "entry."; //$NON-NLS-1$
+
+  private static final String PROJECT_PREFIX = "project."; //$NON-NLS-1$
+
+  private static final String ARCHIVE_PREFIX = "archive."; //$NON-NLS-1$
+
+  private static final long UNKNOWN_SIZE = -1;
+
+  private static ExplodedWarStore instance;
+
+  private final File root;
+
+  /**
+   * Exploded folders, by digest
+   */
+  private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+  /**
+   * Digests of the exploded folders used by each project, by project name
+   */
+  private final Map<String, Set<String>> projectReferences = new HashMap<String, Set<String>>();
+
+  /**
+   * Archive digests, by archive absolute path. A digest is valid as long as the size and last modification time of
+   * its archive are unchanged.
+   */
+  private final Map<String, ArchiveDigest> archiveDigests = new HashMap<String, ArchiveDigest>();
+
+  private boolean loaded;
+
+  public ExplodedWarStore(File root) {
+    this.root = root;
+  }
+
+  /**
+   * @return the store of the m2e-wtp plugin state location
+   */
+  public static synchronized ExplodedWarStore getInstance() {
+    if(instance == null) {
+      File stateLocation = MavenWtpPlugin.getDefault().getStateLocation().toFile();
+      instance = new ExplodedWarStore(new File(stateLocation, LinkedOverlaysConstants.EXPLODED_WAR_FOLDER));
+    }
+    return instance;
+  }
+
+  public File getRoot() {
+    return root;
+  }
+
+  /**
+   * @return the folder the archive having the given digest is exploded to
+   */
+  public File getFolder(String digest) {
+    return new File(root, digest);
+  }
+
+  /**
+   * Looks the archive up by path, size and last modification time, without reading it.
+   *
+   * @return the SHA-1 digest of the archive content, or null if the archive has not been seen with the same size and
+   *         modification time before.
+   */
+  public synchronized String getKnownDigest(File archive) {
+    load();
+    ArchiveDigest cached = archiveDigests.get(archive.getAbsolutePath());
+    if(cached != null && cached.length == archive.length() && cached.lastModified == archive.lastModified()) {
+      return cached.digest;
+    }
+    return null;
+  }
+
+  /**
+   * Looks the archive up by path, size and last modification time first. Its content is only read when it has not been
+   * seen with the same size and modification time before.
+   *
+   * @return the SHA-1 digest of the archive content, as an hexadecimal string.
+   */
+  public String getDigest(File archive) throws IOException {
+    String path = archive.getAbsolutePath();
+    long length = archive.length();
+    long lastModified = archive.lastModified();
+    synchronized(this) {
+      load();
+      ArchiveDigest cached = archiveDigests.get(path);
+      if(cached != null && cached.length == length && cached.lastModified == lastModified) {
+        return cached.digest;
+      }
+    }
+    //Not holding the lock while reading the archive
+    String digest = computeDigest(archive);
+    synchronized(this) {
+      archiveDigests.put(path, new ArchiveDigest(length, lastModified, digest));
+      save();
+    }
+    return digest;
+  }
+
+  /**
+   * @return true if the archive having the given digest was completely exploded
+   */
+  public synchronized boolean isUnpacked(String digest) {
+    load();
+    Entry entry = entries.get(digest);
+    return entry != null && entry.size != UNKNOWN_SIZE && getFolder(digest).isDirectory();
+  }
+
+  /**
+   * Records that the archive having the given digest was completely exploded.
+   */
+  public synchronized void setUnpacked(String digest) {
+    load();
+    Entry entry = getEntry(digest);
+    entry.size = sizeOf(getFolder(digest));
+    entry.lastUsed = System.currentTimeMillis();
+    save();
+  }
+
+  /**
+   * Replaces the exploded folders used by a project.
+   *
+   * @param projectName the project name
+   * @param digests the digests of the archives used by the project
+   */
+  public synchronized void setReferences(String projectName, Collection<String> digests) {
+    load();
+    Set<String> previous = projectReferences.get(projectName);
+    if(digests.isEmpty()) {
+      if(previous != null) {
+        projectReferences.remove(projectName);
+        save();
+      }
+      return;
+    }
+    long now = System.currentTimeMillis();
+    for(String digest : digests) {
+      getEntry(digest).lastUsed = now;
+    }
+    projectReferences.put(projectName, new LinkedHashSet<String>(digests));
+    save();
+  }
+
+  /**
+   * Adds an exploded folder to the ones used by a project.
+   *
+   * @param projectName the project name
+   * @param digest the digest of the archive used by the project
+   */
+  public synchronized void addReference(String projectName, String digest) {
+    load();
+    getEntry(digest).lastUsed = System.currentTimeMillis();
+    Set<String> digests = projectReferences.get(projectName);
+    if(digests == null) {
+      digests = new LinkedHashSet<String>();
+      projectReferences.put(projectName, digests);
+    }
+    digests.add(digest);
+    save();
+  }
+
+  /**
+   * Removes all the references of a project.
+   */
+  public void removeReferences(String projectName) {
+    setReferences(projectName, Collections.<String> emptySet());
+  }
+
+  /**
+   * Drops the references of the projects no longer in the workspace, then deletes the least recently used, unused,
+   * exploded folders until the store fits its maximum size.
+   *
+   * @return the names of the folders of the store root which are unknown to the store, such as folders exploded by
+   *         previous versions.
+   */
+  public synchronized Set<String> clean(IProgressMonitor monitor) {
+    load();
+    boolean changed = false;
+    for(Iterator<String> projects = projectReferences.keySet().iterator(); projects.hasNext();) {
+      String projectName = projects.next();
+      if(!ResourcesPlugin.getWorkspace().getRoot().getProject(projectName).exists()) {
+        projects.remove();
+        changed = true;
+      }
+    }
+
+    Set<String> used = new HashSet<String>();
+    for(Set<String> digests : projectReferences.values()) {
+      used.addAll(digests);
+    }
+
+    long totalSize = 0;
+    List<String> unused = new ArrayList<String>();
+    for(Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext();) {
+      Map.Entry<String, Entry> e = it.next();
+      String digest = e.getKey();
+      if(!used.contains(digest) && !getFolder(digest).exists()) {
+        it.remove();
+        changed = true;
+        continue;
+      }
+      if(e.getValue().size > 0) {
+        totalSize += e.getValue().size;
+      }
+      if(!used.contains(digest)) {
+        unused.add(digest);
+      }
+    }
+
+    Collections.sort(unused, new Comparator<String>() {
+      public int compare(String d1, String d2) {
+        long lastUsed1 = entries.get(d1).lastUsed;
+        long lastUsed2 = entries.get(d2).lastUsed;
+        return lastUsed1 < lastUsed2 ? -1 : (lastUsed1 == lastUsed2 ? 0 : 1);
+      }
+    });
+    long maxSize = getMaxSize();
+    for(String digest : unused) {
+      if(totalSize <= maxSize || monitor.isCanceled()) {
+        break;
+      }
+      monitor.subTask("Deleting " + digest + "..."); //$NON-NLS-1$ //$NON-NLS-2$
+      try {
+        FileUtils.deleteDirectory(getFolder(digest));
+      } catch(IOException ex) {
+        LOG.warn("Unable to delete " + getFolder(digest), ex); //$NON-NLS-1$
+        continue;
+      }
+      Entry entry = entries.remove(digest);
+      if(entry.size > 0) {
+        totalSize -= entry.size;
+      }
+      changed = true;
+    }
+
+    for(Iterator<ArchiveDigest> it = archiveDigests.values().iterator(); it.hasNext();) {
+      if(!entries.containsKey(it.next().digest)) {
+        it.remove();
+        changed = true;
+      }
+    }
+    if(changed) {
+      save();
+    }
+
+    Set<String> unknownFolders = new HashSet<String>();
+    String[] names = root.list();
+    if(names != null) {
+      for(String name : names) {
+        if(!name.startsWith(INDEX_FILE) && !entries.containsKey(name)) {
+          unknownFolders.add(name);
+        }
+      }
+    }
+    return unknownFolders;
+  }
+
+  private static long getMaxSize() {
+    long maxSizeMB = DEFAULT_MAX_SIZE_MB;
+    String value = System.getProperty(MAX_SIZE_PROPERTY);
+    if(value != null) {
+      try {
+        maxSizeMB = Long.parseLong(value.trim());
+      } catch(NumberFormatException ex) {
+        LOG.warn("Invalid " + MAX_SIZE_PROPERTY + " value : " + value); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+    }
+    return maxSizeMB * 1024 * 1024;
+  }
+
+  private Entry getEntry(String digest) {
+    Entry entry = entries.get(digest);
+    if(entry == null) {
+      entry = new Entry();
+      entries.put(digest, entry);
+    }
+    return entry;
+  }
+
+  private void load() {
+    if(loaded) {
+      return;
+    }
+    loaded = true;
+    File index = new File(root, INDEX_FILE);
+    if(!index.isFile()) {
+      return;
+    }
+    Properties properties = new Properties();
+    InputStream is = null;
+    try {
+      is = new FileInputStream(index);
+      properties.load(is);
+    } catch(IOException ex) {
+      LOG.warn("Unable to read " + index + ", exploded wars will be unpacked again", ex); //$NON-NLS-1$ //$NON-NLS-2$
+      return;
+    } finally {
+      close(is);
+    }
+    for(String key : properties.stringPropertyNames()) {
+      String[] values = properties.getProperty(key).split(","); //$NON-NLS-1$
+      try {
+        if(key.startsWith(ENTRY_PREFIX) && values.length == 2) {
+          Entry entry = getEntry(key.substring(ENTRY_PREFIX.length()));
+          entry.size = Long.parseLong(values[0]);
+          entry.lastUsed = Long.parseLong(values[1]);
+        } else if(key.startsWith(PROJECT_PREFIX)) {
+          Set<String> digests = new LinkedHashSet<String>();
+          for(String digest : values) {
+            if(digest.length() > 0) {
+              digests.add(digest);
+            }
+          }
+          projectReferences.put(key.substring(PROJECT_PREFIX.length()), digests);
+        } else if(key.startsWith(ARCHIVE_PREFIX) && values.length == 3) {
+          archiveDigests.put(key.substring(ARCHIVE_PREFIX.length()),
+              new ArchiveDigest(Long.parseLong(values[0]), Long.parseLong(values[1]), values[2]));
+        }
+      } catch(NumberFormatException ex) {
+        LOG.warn("Ignoring invalid entry " + key + " in " + index); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+    }
+    //Referenced folders must be known
+    for(Set<String> digests : projectReferences.values()) {
+      for(String digest : digests) {
+        getEntry(digest);
+      }
+    }
+  }
+
+  private void save() {
+    Properties properties = new Properties();
+    for(Map.Entry<String, Entry> e : entries.entrySet()) {
+      properties.setProperty(ENTRY_PREFIX + e.getKey(), e.getValue().size + "," + e.getValue().lastUsed); //$NON-NLS-1$
+    }
+    for(Map.Entry<String, Set<String>> e : projectReferences.entrySet()) {
+      StringBuilder digests = new StringBuilder();
+      for(String digest : e.getValue()) {
+        if(digests.length() > 0) {
+          digests.append(',');
+        }
+        digests.append(digest);
+      }
+      properties.setProperty(PROJECT_PREFIX + e.getKey(), digests.toString());
+    }
+    for(Map.Entry<String, ArchiveDigest> e : archiveDigests.entrySet()) {
+      ArchiveDigest d = e.getValue();
+      properties.setProperty(ARCHIVE_PREFIX + e.getKey(), d.length + "," + d.lastModified + "," + d.digest); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    if(!root.isDirectory() && !root.mkdirs()) {
+      LOG.warn("Unable to create " + root); //$NON-NLS-1$
+      return;
+    }
+    //Written aside then renamed, so a crash never leaves a truncated index
+    File index = new File(root, INDEX_FILE);
+    File tmp = new File(root, INDEX_FILE + ".tmp"); //$NON-NLS-1$
+    OutputStream os = null;
+    try {
+      os = new FileOutputStream(tmp);
+      properties.store(os, "m2e-wtp exploded wars"); //$NON-NLS-1$
+      os.close();
+      os = null;
+      if(!tmp.renameTo(index)) {
+        index.delete();
+        if(!tmp.renameTo(index)) {
+          throw new IOException("Unable to rename " + tmp + " to " + index); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+      }
+    } catch(IOException ex) {
+      LOG.warn("Unable to write " + index, ex); //$NON-NLS-1$
+    } finally {
+      close(os);
+    }
+  }
+
+  private static String computeDigest(File archive) throws IOException {
+    MessageDigest sha1;
+    try {
+      sha1 = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+    } catch(NoSuchAlgorithmException ex) {
+      throw new IOException(ex.getMessage());
+    }
+    InputStream is = new FileInputStream(archive);
+    try {
+      byte[] buffer = new byte[64 * 1024];
+      int read;
+      while((read = is.read(buffer)) > 0) {
+        sha1.update(buffer, 0, read);
+      }
+    } finally {
+      close(is);
+    }
+    byte[] digest = sha1.digest();
+    StringBuilder hex = new StringBuilder(digest.length * 2);
+    for(byte b : digest) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+  static long sizeOf(File file) {
+    if(file.isFile()) {
+      return file.length();
+    }
+    long size = 0;
+    File[] children = file.listFiles();
+    if(children != null) {
+      for(File child : children) {
+        size += sizeOf(child);
+      }
+    }
+    return size;
+  }
+
+  private static void close(java.io.Closeable closeable) {
+    if(closeable != null) {
+      try {
+        closeable.close();
+      } catch(IOException ex) {
+        //ignore
+      }
+    }
+  }
+
+  private static class Entry {
+    long size = UNKNOWN_SIZE;
+
+    long lastUsed;
+  }
+
+  private static class ArchiveDigest {
+    final long length;
+
+    final long lastModified;
+
+    final String digest;
+
+    ArchiveDigest(long length, long lastModified, String digest) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.digest = digest;
+    }
+  }
+}
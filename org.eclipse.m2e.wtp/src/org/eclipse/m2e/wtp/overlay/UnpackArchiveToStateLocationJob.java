@@ -9,15 +9,8 @@
 package org.eclipse.m2e.wtp.overlay;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.Enumeration;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
-import org.codehaus.plexus.util.FileUtils;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.CoreException;
@@ -27,6 +20,10 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.m2e.wtp.MavenWtpPlugin;
+import org.eclipse.m2e.wtp.internal.metrics.ConfiguratorMetrics;
+import org.eclipse.m2e.wtp.internal.metrics.ConfiguratorMetrics.Phase;
+import org.eclipse.m2e.wtp.overlay.internal.utilities.CompressionUtil;
+import org.eclipse.m2e.wtp.overlay.internal.utilities.ZipExtractor;
 
 /**
  * This job unpacks the war file into this plugin's state location under folder "exploded-wars".
@@ -42,6 +39,10 @@ public class UnpackArchiveToStateLocationJob extends WorkspaceJob {
 
   private final IFolder folderToRefresh;
 
+  private final ExplodedWarStore store;
+
+  private final String digest;
+
   private static class Rule implements ISchedulingRule {
 
     private final File path;
@@ -72,6 +73,20 @@ public class UnpackArchiveToStateLocationJob extends WorkspaceJob {
   }
 
   public UnpackArchiveToStateLocationJob(final String name, final File archive, final File unpackFolder, final IFolder folderToRefresh) {
+    this(name, archive, unpackFolder, folderToRefresh, null, null);
+  }
+
+  /**
+   * Unpacks an archive into an {@link ExplodedWarStore}. The archive is not unpacked again if the store already holds
+   * its content, e.g. when several projects use the same overlay.
+   */
+  public UnpackArchiveToStateLocationJob(final String name, final File archive, final ExplodedWarStore store,
+      final String digest, final IFolder folderToRefresh) {
+    this(name, archive, store.getFolder(digest), folderToRefresh, store, digest);
+  }
+
+  private UnpackArchiveToStateLocationJob(final String name, final File archive, final File unpackFolder,
+      final IFolder folderToRefresh, final ExplodedWarStore store, final String digest) {
     super(name);
     assert unpackFolder != null;
     assert archive != null && archive.exists() && archive.canRead();
@@ -79,18 +94,25 @@ public class UnpackArchiveToStateLocationJob extends WorkspaceJob {
     this.archive = archive;
     setRule(new Rule(unpackFolder));
     this.folderToRefresh = folderToRefresh;
+    this.store = store;
+    this.digest = digest;
   }
 
   @Override
   public IStatus runInWorkspace(final IProgressMonitor monitor) throws CoreException {
+    Phase phase = ConfiguratorMetrics.INSTANCE.start(folderToRefresh.getProject(), "UnpackArchiveToStateLocationJob.unpack"); //$NON-NLS-1$
     try {
-      if(unpackFolder.exists()) {
-        FileUtils.deleteDirectory(unpackFolder);
+      //Jobs unpacking the same content run one after the other, only the first one has something to do
+      if(store == null || !store.isUnpacked(digest)) {
+        unpack(archive, unpackFolder, monitor);
+        if(store != null) {
+          store.setUnpacked(digest);
+        }
       }
-      unpackFolder.mkdirs();
-      unpack(archive, unpackFolder, monitor);
-    } catch(final IOException e) {
+    } catch(final RuntimeException e) {
       return new Status(IStatus.ERROR, MavenWtpPlugin.ID, "Error unpacking " + archive.getName(), e); //$NON-NLS-1$
+    } finally {
+      phase.stop();
     }
 
     //will run in scheduling rule of parent of unpackfolder, so should be run in a different job
@@ -110,70 +132,18 @@ public class UnpackArchiveToStateLocationJob extends WorkspaceJob {
   }
 
   private void unpack(final File sourceFile, final File targetDir, final IProgressMonitor monitor) {
-	ZipFile zipFile = null;
     try {
-      zipFile = new ZipFile(sourceFile);
-      monitor.beginTask("Unzipping " + sourceFile + " to " + targetDir, zipFile.size()); //$NON-NLS-1$ //$NON-NLS-2$
-      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
-      while(entries.hasMoreElements()) {
-        final ZipEntry zipEntry = entries.nextElement();
-        if(shouldExplode(zipEntry)) {
-          final File file = new File(targetDir, zipEntry.getName());
-
-          if(!zipEntry.isDirectory()) {
-
-            final File parentFile = file.getParentFile();
-            if(null != parentFile && !parentFile.exists()) {
-              parentFile.mkdirs();
-            }
-
-            InputStream is = null;
-            OutputStream os = null;
-
-            try {
-              is = zipFile.getInputStream(zipEntry);
-              os = new FileOutputStream(file);
-
-              final byte[] buffer = new byte[1024 * 4];
-              while(true) {
-                final int len = is.read(buffer);
-                if(len < 0) {
-                  break;
-                }
-                os.write(buffer, 0, len);
-              }
-            } finally {
-              if(is != null) {
-                is.close();
-              }
-              if(os != null) {
-                os.close();
-              }
-            }
-          }
+      //Only new or modified entries are written, files not belonging to the archive anymore are deleted
+      CompressionUtil.unzip(sourceFile, targetDir, new ZipExtractor.EntryFilter() {
+        @Override
+        public boolean accept(ZipEntry entry) {
+          return shouldExplode(entry);
         }
-
-        monitor.worked(1);
-
-        if(monitor.isCanceled()) {
-          throw new InterruptedException(" unzipping " + sourceFile.getAbsolutePath() + " to " //$NON-NLS-1$ //$NON-NLS-2$
-              + targetDir.getAbsolutePath() + " was interrupted"); //$NON-NLS-1$
-        }
-      }
+      }, monitor);
     } catch(final Exception ex) {
       throw new RuntimeException("Cannot unpack zip file: " + sourceFile, ex); //$NON-NLS-1$
     }
-    finally {
-      if (zipFile != null) {
-        try {
-			zipFile.close();
-		} catch (IOException ex) {
-			MavenWtpPlugin.getDefault().getLog().log(new Status(IStatus.WARNING, MavenWtpPlugin.ID, "Cannot close zip file: " + zipFile.getName())); //$NON-NLS-1$
-		}
-      }
-    }
     targetDir.setLastModified(sourceFile.lastModified());
-    monitor.done();
   }
 
   private boolean shouldExplode(ZipEntry zipEntry) {